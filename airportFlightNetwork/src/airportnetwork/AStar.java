@@ -1,57 +1,38 @@
 package airportnetwork;
 
+import java.lang.ref.SoftReference;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.ToDoubleFunction;
 
 public class AStar {
 
+    /**
+     * Reusable engine of the calling thread, rebound whenever a different graph is queried.
+     * It is held softly: it survives ordinary collections, but an idle thread pins neither
+     * the last graph it queried nor the engine's arrays once memory is needed.
+     */
+    private static final ThreadLocal<SoftReference<AStarEngine>> ENGINES = new ThreadLocal<>();
+
     /**
      * Finds the shortest path between a start and goal airport in a graph using the A* search algorithm.
     */
     public static List<Airport> findPath(Graph<Airport> graph, Airport start, Airport goal,
             Function<Airport, Double> heuristic) {
-         // gScore: Cost from start along the shortest known path to this airport.
-        Map<Airport, Double> gScore = new HashMap<>();
-        Map<Airport, Double> fScore = new HashMap<>();
-        Map<Airport, Airport> cameFrom = new HashMap<>();
-        MiniHeap<Airport> openSet = new MiniHeap<>();
-
-        // Initialize gScore and fScore to infinity for all nodes, indicating that initially no path is known.
-        for (Airport node : graph.getAllNodes()) {
-            gScore.put(node, Double.POSITIVE_INFINITY);
-            fScore.put(node, Double.POSITIVE_INFINITY);
+        CompactGraph<Airport> compact = graph.currentSnapshot();
+        if (compact != null) {
+            return findPath(compact, start, goal, heuristic);
         }
-
-        gScore.put(start, 0.0);
-        fScore.put(start, heuristic.apply(start));
-        openSet.insert(start, fScore.get(start));
-// The main loop of the A* algorithm. It continues as long as there are nodes left to evaluate in the open set.
-        while (!openSet.isEmpty()) {
-            Airport current = openSet.extractMin().key;
-
-            if (current.equals(goal)) {
-                return reconstructPath(cameFrom, current);
-            }
-// Iterate over all the neighbors of the current node.
-            for (Edge<Airport> flight : graph.getEdges(current)) {
-                Airport neighbour = flight.getDestination();
-                double tentativeG = gScore.get(current) + flight.getWeight();
-
-                if (tentativeG < gScore.get(neighbour)) {
-                    cameFrom.put(neighbour, current);
-                    gScore.put(neighbour, tentativeG);
-                    fScore.put(neighbour, tentativeG + heuristic.apply(neighbour));
-
-                    if (openSet.contains(neighbour)) {
-                        openSet.decreaseKey(neighbour, fScore.get(neighbour));
-                    } else {
-                        openSet.insert(neighbour, fScore.get(neighbour));
-                    }
-                }
-            }
+        if (!graph.getAllNodes().contains(start) || !graph.getAllNodes().contains(goal)) {
+            return start.equals(goal) ? List.of(start) : Collections.emptyList();
+        }
+        Map<Airport, Airport> cameFrom = new HashMap<>();
+        if (!search(graph, start, goal, heuristic, cameFrom).containsKey(goal)) {
+            // The open set ran empty, so there's no path from start to goal.
+            return Collections.emptyList();
         }
-// If the open set is empty and we haven't reached the goal, it means there's no path from start to goal.
-        return Collections.emptyList();
+        return reconstructPath(cameFrom, goal);
     }
 /**
      * Computes the distances from a start airport to all other airports in the graph using a modified A* algorithm
@@ -59,46 +40,88 @@ public class AStar {
      */
     public static Map<Airport, Double> computeDistances(Graph<Airport> graph, Airport start,
             Function<Airport, Double> heuristic) {
+        CompactGraph<Airport> compact = graph.currentSnapshot();
+        if (compact == null) {
+            Map<Airport, Double> gScore = search(graph, start, null, heuristic, null);
+            for (Airport node : graph.getAllNodes()) {
+                gScore.putIfAbsent(node, Double.POSITIVE_INFINITY);
+            }
+            return gScore;
+        }
+        double[] distances = computeDistances(compact, start, heuristic);
         Map<Airport, Double> gScore = new HashMap<>();
-        Map<Airport, Double> fScore = new HashMap<>();
-        MiniHeap<Airport> openSet = new MiniHeap<>();
-// Initialize gScore and fScore to infinity for all nodes.
-        for (Airport node : graph.getAllNodes()) {
-            gScore.put(node, Double.POSITIVE_INFINITY);
-            fScore.put(node, Double.POSITIVE_INFINITY);
+        for (int v = 0; v < distances.length; v++) {
+            gScore.put(compact.vertex(v), distances[v]);
         }
+        gScore.put(start, 0.0);
+        // Return the map of distances from the start node.
+        return gScore;
+    }
 
+    /**
+     * A* search over the adjacency lists of a graph, for graphs changed since their last
+     * snapshot, so that a query never pays for rebuilding it. Stops once {@code goal}
+     * (if not null) is settled. Records predecessors in {@code cameFrom} if it is not null.
+     *
+     * @return the distances of the airports reached; the others are absent
+     */
+    private static Map<Airport, Double> search(Graph<Airport> graph, Airport start, Airport goal,
+            Function<Airport, Double> heuristic, Map<Airport, Airport> cameFrom) {
+        long started = SearchMetrics.ENABLED ? System.nanoTime() : 0L;
+        SearchMetrics.Counters counters = SearchMetrics.ENABLED ? new SearchMetrics.Counters() : null;
+        // gScore: Cost from start along the shortest known path to this airport.
+        Map<Airport, Double> gScore = new HashMap<>();
+        MiniHeap<Airport> openSet = new MiniHeap<>();
         gScore.put(start, 0.0);
-        fScore.put(start, heuristic.apply(start));
-        openSet.insert(start, fScore.get(start));
-// Main loop, continues until all reachable nodes have been evaluated.
+        openSet.insert(start, heuristic.apply(start));
+        if (SearchMetrics.ENABLED) {
+            counters.insert();
+        }
         while (!openSet.isEmpty()) {
             Airport current = openSet.extractMin().key;
-
+            if (SearchMetrics.ENABLED) {
+                counters.extractMin();
+            }
+            if (current.equals(goal)) {
+                break;
+            }
+            double currentG = gScore.get(current);
             for (Edge<Airport> flight : graph.getEdges(current)) {
+                if (SearchMetrics.ENABLED) {
+                    counters.relaxed++;
+                }
                 Airport neighbour = flight.getDestination();
-                double tentativeG = gScore.get(current) + flight.getWeight();
-
-                if (tentativeG < gScore.get(neighbour)) {
+                double tentativeG = currentG + flight.getWeight();
+                if (tentativeG < gScore.getOrDefault(neighbour, Double.POSITIVE_INFINITY)) {
                     gScore.put(neighbour, tentativeG);
-                    fScore.put(neighbour, tentativeG + heuristic.apply(neighbour));
-
+                    if (cameFrom != null) {
+                        cameFrom.put(neighbour, current);
+                    }
+                    double fScore = tentativeG + heuristic.apply(neighbour);
                     if (openSet.contains(neighbour)) {
-                        openSet.decreaseKey(neighbour, fScore.get(neighbour));
+                        openSet.decreaseKey(neighbour, fScore);
+                        if (SearchMetrics.ENABLED) {
+                            counters.decreaseKey(false);
+                        }
                     } else {
-                        openSet.insert(neighbour, fScore.get(neighbour));
+                        openSet.insert(neighbour, fScore);
+                        if (SearchMetrics.ENABLED) {
+                            counters.insert();
+                        }
                     }
                 }
             }
         }
-
-        // Return the map of distances from the start node.
+        if (SearchMetrics.ENABLED) {
+            // Every extracted airport is settled, since the heap never holds duplicates.
+            SearchMetrics.A_STAR.record(System.nanoTime() - started, counters.extractMins, counters);
+        }
         return gScore;
     }
+
     /**
-     * Reconstructs the path from the start node to the current node using the cameFrom map.
+     * Reconstructs the path from the start airport to {@code current} using the cameFrom map.
      */
-
     private static List<Airport> reconstructPath(Map<Airport, Airport> cameFrom, Airport current) {
         List<Airport> path = new LinkedList<>();
         while (current != null) {
@@ -107,4 +130,168 @@ public class AStar {
         }
         return path;
     }
+
+    /**
+     * Finds the shortest path between a start and goal airport in a compressed graph
+     * using the A* search algorithm.
+     */
+    public static List<Airport> findPath(CompactGraph<Airport> graph, Airport start, Airport goal,
+            Function<Airport, Double> heuristic) {
+        int source = graph.idOf(start);
+        int target = graph.idOf(goal);
+        if (source < 0 || target < 0) {
+            return start.equals(goal) ? List.of(start) : Collections.emptyList();
+        }
+        AStarEngine engine = engineFor(graph);
+        if (!engine.findPath(source, target, adapt(graph, heuristic))) {
+            // The open set ran empty, so there's no path from start to goal.
+            return Collections.emptyList();
+        }
+        return graph.toVertices(engine.path(target));
+    }
+
+    /**
+     * Finds the shortest path between two vertex ids of a compressed graph. The
+     * heuristic works on vertex ids and returns a primitive double, so the search
+     * does no boxing; see {@link #byId} and {@link #greatCircle(CompactGraph, Airport)}.
+     *
+     * @return the vertex ids along the path, or an empty array if the goal is unreachable
+     */
+    public static int[] findPath(CompactGraph<?> graph, int source, int goal, IntToDoubleFunction heuristic) {
+        AStarEngine engine = engineFor(graph);
+        return engine.findPath(source, goal, heuristic) ? engine.path(goal) : new int[0];
+    }
+
+    /**
+     * Finds the shortest path between two vertex ids of a compressed graph among the
+     * routes the constraints allow.
+     *
+     * @return the vertex ids along the path, or an empty array if no allowed route reaches the goal
+     */
+    public static int[] findPath(CompactGraph<?> graph, int source, int goal, IntToDoubleFunction heuristic,
+            RouteConstraints constraints) {
+        AStarEngine engine = engineFor(graph);
+        return engine.findPath(source, goal, heuristic, constraints) ? engine.path(goal) : new int[0];
+    }
+
+    /**
+     * Finds the shortest path between a start and goal airport using landmark lower bounds
+     * as the A* heuristic. The landmarks must have been computed on the graph's current
+     * snapshot, as returned by {@link Graph#freeze()}.
+     *
+     * @throws IllegalArgumentException if the graph changed since the landmarks were computed
+     */
+    public static List<Airport> findPath(Graph<Airport> graph, Airport start, Airport goal, Landmarks landmarks) {
+        CompactGraph<Airport> compact = graph.currentSnapshot();
+        if (compact == null) {
+            throw new IllegalArgumentException("Landmarks were computed for a different graph");
+        }
+        return findPath(compact, start, goal, landmarks);
+    }
+
+    /**
+     * Finds the shortest path between a start and goal airport of a compressed graph using
+     * landmark lower bounds as the A* heuristic.
+     */
+    public static List<Airport> findPath(CompactGraph<Airport> graph, Airport start, Airport goal,
+            Landmarks landmarks) {
+        if (landmarks.graph() != graph) {
+            throw new IllegalArgumentException("Landmarks were computed for a different graph");
+        }
+        int source = graph.idOf(start);
+        int target = graph.idOf(goal);
+        if (source < 0 || target < 0) {
+            return start.equals(goal) ? List.of(start) : Collections.emptyList();
+        }
+        AStarEngine engine = engineFor(graph);
+        if (!engine.findPath(source, target, landmarks.toward(target))) {
+            return Collections.emptyList();
+        }
+        return graph.toVertices(engine.path(target));
+    }
+
+    /**
+     * Computes the distances from a start airport to all other airports of a compressed
+     * graph. The result is indexed by vertex id.
+     */
+    public static double[] computeDistances(CompactGraph<Airport> graph, Airport start,
+            Function<Airport, Double> heuristic) {
+        double[] gScore = new double[graph.numVertices()];
+        int source = graph.idOf(start);
+        AStarEngine engine = engineFor(graph);
+        if (source >= 0) {
+            engine.computeDistances(source, adapt(graph, heuristic));
+        }
+        for (int v = 0; v < gScore.length; v++) {
+            gScore[v] = source >= 0 ? engine.distance(v) : Double.POSITIVE_INFINITY;
+        }
+        return gScore;
+    }
+
+    /**
+     * Returns the great-circle distance in kilometres to {@code goal} as an A* heuristic.
+     * It is admissible and consistent as long as no flight is weighted below the
+     * great-circle distance between its airports. Airports without coordinates get an
+     * estimate of 0.
+     */
+    public static Function<Airport, Double> greatCircle(Airport goal) {
+        return greatCircle(goal, 1.0);
+    }
+
+    /**
+     * Returns the great-circle distance to {@code goal} multiplied by {@code costPerKm} as an
+     * A* heuristic, for weights measured in other units. For travel times, for example,
+     * {@code costPerKm} is the reciprocal of the fastest cruising speed.
+     */
+    public static Function<Airport, Double> greatCircle(Airport goal, double costPerKm) {
+        if (!goal.hasCoordinates()) {
+            return airport -> 0.0;
+        }
+        return airport -> airport.hasCoordinates() ? airport.distanceTo(goal) * costPerKm : 0.0;
+    }
+
+    /**
+     * Adapts a primitive airport heuristic to the vertex ids of a compressed graph.
+     */
+    public static IntToDoubleFunction byId(CompactGraph<Airport> graph, ToDoubleFunction<Airport> heuristic) {
+        return v -> heuristic.applyAsDouble(graph.vertex(v));
+    }
+
+    /**
+     * Returns the great-circle distance in kilometres to {@code goal} as a heuristic on the
+     * vertex ids of a compressed graph. See {@link #greatCircle(Airport)}.
+     */
+    public static IntToDoubleFunction greatCircle(CompactGraph<Airport> graph, Airport goal) {
+        if (!goal.hasCoordinates()) {
+            return v -> 0.0;
+        }
+        return v -> {
+            Airport airport = graph.vertex(v);
+            return airport.hasCoordinates() ? airport.distanceTo(goal) : 0.0;
+        };
+    }
+
+    /**
+     * Adapts an airport heuristic to the vertex ids of a compressed graph.
+     */
+    private static IntToDoubleFunction adapt(CompactGraph<Airport> graph, Function<Airport, Double> heuristic) {
+        return v -> heuristic.apply(graph.vertex(v));
+    }
+
+    /**
+     * Returns the calling thread's engine for the given graph, creating it on first use
+     * or once the previous one has been collected.
+     */
+    static AStarEngine engineFor(CompactGraph<?> graph) {
+        SoftReference<AStarEngine> cached = ENGINES.get();
+        AStarEngine engine = cached == null ? null : cached.get();
+        if (engine == null) {
+            engine = new AStarEngine(graph);
+            ENGINES.set(new SoftReference<>(engine));
+        } else if (engine.graph() != graph) {
+            // Keep the arrays, so that querying each new version of a ConcurrentGraph allocates nothing.
+            engine.rebind(graph);
+        }
+        return engine;
+    }
 }
@@ -0,0 +1,243 @@
+package airportnetwork;
+
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * A* search over the dense vertex ids of a {@link CompactGraph}.
+ * Like {@link DijkstraEngine}, an engine is bound to one graph at a time and
+ * reuses its arrays between queries. The heuristic is evaluated at most once
+ * per vertex and query, and its value is remembered for later improvements of
+ * the same vertex. An engine is not thread-safe; use one per thread.
+ */
+public final class AStarEngine {
+
+    /** The graph this engine searches. */
+    private CompactGraph<?> graph;
+
+    /** gScores, predecessors and open set of the last query. */
+    private final SearchState state;
+
+    /** Constraints holding the edge filter of {@link #findPath(int, int, IntToDoubleFunction, IntPredicate)}. */
+    private RouteConstraints filter;
+
+    /** Label search for leg-limited queries, allocated by the first one. */
+    private LegSearch legSearch;
+
+    /** Whether the last query ran on {@link #legSearch} rather than {@link #state}. */
+    private boolean byLegs;
+
+    /**
+     * Constructs an engine for the given graph.
+     *
+     * @param graph the graph to search
+     */
+    public AStarEngine(CompactGraph<?> graph) {
+        this.graph = graph;
+        this.state = new SearchState(graph.numVertices());
+    }
+
+    /**
+     * Selects the priority queue used by the following queries. The default is
+     * {@link QueueType#FOUR_ARY_HEAP}.
+     *
+     * @param type the kind of priority queue
+     */
+    public void useQueue(QueueType type) {
+        state.useQueue(type);
+    }
+
+    /**
+     * Returns the graph this engine searches.
+     *
+     * @return the graph
+     */
+    public CompactGraph<?> graph() {
+        return graph;
+    }
+
+    /**
+     * Binds this engine to another graph, such as a newer version of a
+     * {@link ConcurrentGraph}. The arrays of the previous graph are reused if
+     * they are large enough and grown otherwise; the results of the last query
+     * are forgotten.
+     *
+     * @param graph the graph to search from now on
+     */
+    public void rebind(CompactGraph<?> graph) {
+        if (graph == this.graph) {
+            return;
+        }
+        this.graph = graph;
+        state.ensureCapacity(graph.numVertices());
+        state.reset();
+        legSearch = null;
+        byLegs = false;
+        filter = null;
+    }
+
+    /**
+     * Searches for the shortest path from {@code source} to {@code goal}.
+     *
+     * @param source    the source vertex id
+     * @param goal      the goal vertex id
+     * @param heuristic estimated remaining cost from a vertex id to the goal
+     * @return true if the goal was reached
+     */
+    public boolean findPath(int source, int goal, IntToDoubleFunction heuristic) {
+        return search(source, goal, heuristic, null);
+    }
+
+    /**
+     * Searches for the shortest path from {@code source} to {@code goal} that uses only
+     * the edges accepted by a filter, as if the others had been removed from the graph.
+     * A heuristic admissible for the whole graph stays admissible without those edges.
+     *
+     * @param source    the source vertex id
+     * @param goal      the goal vertex id
+     * @param heuristic estimated remaining cost from a vertex id to the goal
+     * @param allowed   tells, by edge index, whether an edge may be used; null allows all
+     * @return true if the goal was reached
+     */
+    public boolean findPath(int source, int goal, IntToDoubleFunction heuristic, IntPredicate allowed) {
+        if (allowed == null) {
+            return search(source, goal, heuristic, null);
+        }
+        if (filter == null) {
+            filter = new RouteConstraints(graph);
+        }
+        filter.setEdgeFilter(allowed);
+        try {
+            return search(source, goal, heuristic, filter);
+        } finally {
+            // Do not keep the caller's filter, and whatever it captures, reachable from this engine.
+            filter.setEdgeFilter(null);
+        }
+    }
+
+    /**
+     * Searches for the shortest path from {@code source} to {@code goal} among the
+     * routes the constraints allow. The heuristic must be consistent; one admissible
+     * for the whole graph stays admissible under the constraints. With a leg limit,
+     * vertices may be settled once per leg count.
+     *
+     * @param source      the source vertex id
+     * @param goal        the goal vertex id
+     * @param heuristic   estimated remaining cost from a vertex id to the goal
+     * @param constraints the constraints, built for this engine's graph
+     * @return true if the goal was reached
+     * @throws IllegalArgumentException if the constraints were built for another graph
+     */
+    public boolean findPath(int source, int goal, IntToDoubleFunction heuristic, RouteConstraints constraints) {
+        if (constraints.graph() != graph) {
+            throw new IllegalArgumentException("Constraints were built for a different graph");
+        }
+        if (!constraints.limitsLegs()) {
+            return search(source, goal, heuristic, constraints);
+        }
+        if (legSearch == null) {
+            legSearch = new LegSearch(graph);
+        }
+        byLegs = true;
+        long started = SearchMetrics.ENABLED ? System.nanoTime() : 0L;
+        boolean found = legSearch.search(source, goal, constraints, heuristic);
+        if (SearchMetrics.ENABLED) {
+            legSearch.record(SearchMetrics.A_STAR, started);
+        }
+        return found;
+    }
+
+    /**
+     * A*'s main loop, skipping the edges that {@code constraints}, if not null, reject.
+     */
+    private boolean search(int source, int goal, IntToDoubleFunction heuristic, RouteConstraints constraints) {
+        long started = SearchMetrics.ENABLED ? System.nanoTime() : 0L;
+        byLegs = false;
+        state.reset();
+        state.update(source, 0.0, -1, heuristic);
+        boolean found = false;
+        while (!state.isEmpty()) {
+            int current = state.extractMin();
+            if (current == goal) {
+                found = true;
+                break;
+            }
+            relax(current, heuristic, constraints);
+        }
+        if (SearchMetrics.ENABLED) {
+            state.record(SearchMetrics.A_STAR, started);
+        }
+        return found;
+    }
+
+    /**
+     * Computes the distances from {@code source} to every reachable vertex,
+     * without stopping at a goal.
+     *
+     * @param source    the source vertex id
+     * @param heuristic estimated remaining cost from a vertex id
+     */
+    public void computeDistances(int source, IntToDoubleFunction heuristic) {
+        long started = SearchMetrics.ENABLED ? System.nanoTime() : 0L;
+        byLegs = false;
+        state.reset();
+        state.update(source, 0.0, -1, heuristic);
+        while (!state.isEmpty()) {
+            relax(state.extractMin(), heuristic, null);
+        }
+        if (SearchMetrics.ENABLED) {
+            state.record(SearchMetrics.A_STAR, started);
+        }
+    }
+
+    /**
+     * Relaxes the outgoing edges of {@code current} that {@code constraints}, if not null, allow.
+     */
+    private void relax(int current, IntToDoubleFunction heuristic, RouteConstraints constraints) {
+        double currentG = state.distance(current);
+        double maxG = constraints == null ? Double.POSITIVE_INFINITY : constraints.maxCost();
+        for (int e = graph.edgeStart(current), end = graph.edgeEnd(current); e < end; e++) {
+            int neighbour = graph.target(e);
+            if (constraints != null && !constraints.allows(e, neighbour)) {
+                continue;
+            }
+            if (SearchMetrics.ENABLED) {
+                state.counters.relaxed++;
+            }
+            double tentativeG = currentG + graph.weight(e);
+            if (tentativeG <= maxG && tentativeG < state.distance(neighbour)) {
+                state.update(neighbour, tentativeG, current, heuristic);
+            }
+        }
+    }
+
+    /**
+     * Returns the gScore of a vertex found by the last query.
+     *
+     * @param v the vertex id
+     * @return the cost from the source, or infinity if v was not reached
+     */
+    public double distance(int v) {
+        return byLegs ? legSearch.distance(v) : state.distance(v);
+    }
+
+    /**
+     * Returns the path found by the last query from the source to {@code target}.
+     *
+     * @param target the target vertex id
+     * @return the vertex ids along the path, or an empty array if target was not reached
+     */
+    public int[] path(int target) {
+        return byLegs ? legSearch.path(target) : state.path(target);
+    }
+
+    /**
+     * Returns the number of vertices settled by the last query; a leg-limited query
+     * counts a vertex once per time it is settled.
+     *
+     * @return the settled-node count
+     */
+    public int settledCount() {
+        return byLegs ? legSearch.settledCount() : state.settledCount();
+    }
+}
@@ -1,24 +1,85 @@
 package airportnetwork;
 /**
  * Represents an airport.
- * An Airport has a unique code (e.g., "DUB" for Dublin Airport) and a name.
+ * An Airport has a unique code (e.g., "DUB" for Dublin Airport) and a name,
+ * and optionally the latitude and longitude of its location.
  */
 public class Airport {
+    /** Mean radius of the Earth in kilometres, used for great-circle distances. */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
     private final String code; // The unique code of the airport
     private final String name;// The full name of the airport
+    private final double latitude; // Degrees north, or NaN if unknown
+    private final double longitude; // Degrees east, or NaN if unknown
+
+    // Position on the unit sphere, precomputed so distances need no sin/cos per call
+    private final double x;
+    private final double y;
+    private final double z;
 
     /**
-     * Constructs an Airport object.
+     * Constructs an Airport object without a known location.
      */
     public Airport(String code, String name) {
+        this(code, name, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * Constructs an Airport object at the given latitude and longitude, in degrees.
+     */
+    public Airport(String code, String name, double latitude, double longitude) {
         this.code = code;
         this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        double phi = Math.toRadians(latitude);
+        double lambda = Math.toRadians(longitude);
+        this.x = Math.cos(phi) * Math.cos(lambda);
+        this.y = Math.cos(phi) * Math.sin(lambda);
+        this.z = Math.sin(phi);
     }
 /**
      * Gets the 3-letter code of the airport.
      */
     public String getCode() { return code; }
 
+    /**
+     * Gets the full name of the airport.
+     */
+    public String getName() { return name; }
+
+    /**
+     * Gets the latitude of the airport in degrees, or NaN if unknown.
+     */
+    public double getLatitude() { return latitude; }
+
+    /**
+     * Gets the longitude of the airport in degrees, or NaN if unknown.
+     */
+    public double getLongitude() { return longitude; }
+
+    /**
+     * Returns true if the location of the airport is known.
+     */
+    public boolean hasCoordinates() {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+    }
+
+    /**
+     * Returns the great-circle distance to another airport in kilometres, or NaN if
+     * either location is unknown. Equivalent to the haversine formula, but computed
+     * from the chord between the precomputed unit vectors, so it costs one sqrt and
+     * one asin.
+     */
+    public double distanceTo(Airport other) {
+        double dx = x - other.x;
+        double dy = y - other.y;
+        double dz = z - other.z;
+        double halfChord = Math.sqrt(dx * dx + dy * dy + dz * dz) / 2.0;
+        return 2.0 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, halfChord));
+    }
+
     // hashCode and equals overridden for HashMap/Set usage
     @Override
     public int hashCode() { return code.hashCode(); }
@@ -0,0 +1,137 @@
+package airportnetwork;
+
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.ToDoubleBiFunction;
+
+/**
+ * Bidirectional A* search. Both directions of a {@link BidirectionalDijkstra}
+ * run on edge costs reduced by the average of a forward estimate (towards the
+ * target) and a backward estimate (from the source). The averaged potential is
+ * consistent in both directions, so the bidirectional stopping criterion still
+ * returns shortest paths while the heuristic steers both frontiers towards each
+ * other. An engine is bound to one graph at a time and is not thread-safe.
+ */
+public final class BidirectionalAStar {
+
+    /** Reusable engine of the calling thread, rebound whenever a different graph is queried; held softly. */
+    private static final ThreadLocal<SoftReference<BidirectionalAStar>> ENGINES = new ThreadLocal<>();
+
+    /** The underlying bidirectional search. */
+    private final BidirectionalDijkstra search;
+
+    /**
+     * Constructs an engine for the given graph.
+     *
+     * @param graph the graph to search
+     */
+    public BidirectionalAStar(CompactGraph<?> graph) {
+        this.search = new BidirectionalDijkstra(graph);
+    }
+
+    /**
+     * Returns the graph this engine searches.
+     *
+     * @return the graph
+     */
+    public CompactGraph<?> graph() {
+        return search.graph();
+    }
+
+    /**
+     * Binds this engine to another graph, reusing the arrays of both directions
+     * where they are large enough; the results of the last query are forgotten.
+     *
+     * @param graph the graph to search from now on
+     */
+    public void rebind(CompactGraph<?> graph) {
+        search.rebind(graph);
+    }
+
+    /**
+     * Computes the shortest path from {@code source} to {@code target}. Both
+     * estimates must be consistent lower bounds on the true distances.
+     *
+     * @param source     the source vertex id
+     * @param target     the target vertex id
+     * @param toTarget   lower bound on the distance from a vertex id to the target
+     * @param fromSource lower bound on the distance from the source to a vertex id
+     * @return true if the target is reachable from the source
+     */
+    public boolean run(int source, int target, IntToDoubleFunction toTarget, IntToDoubleFunction fromSource) {
+        return search.search(source, target, toTarget, fromSource);
+    }
+
+    /**
+     * Returns the cost of the shortest path found by the last query.
+     *
+     * @return the path cost, or infinity if the target was not reachable
+     */
+    public double distance() {
+        return search.distance();
+    }
+
+    /**
+     * Returns the shortest path found by the last query.
+     *
+     * @return the vertex ids along the path, or an empty array if the target was not reachable
+     */
+    public int[] path() {
+        return search.path();
+    }
+
+    /**
+     * Returns the number of vertices settled by the last query in both directions together.
+     *
+     * @return the settled-node count
+     */
+    public int settledCount() {
+        return search.settledCount();
+    }
+
+    /**
+     * Finds the shortest path between a start and goal airport using bidirectional A*.
+     * {@code lowerBound.applyAsDouble(a, b)} must never overestimate the cost of
+     * travelling from {@code a} to {@code b}.
+     */
+    public static List<Airport> findPath(Graph<Airport> graph, Airport start, Airport goal,
+            ToDoubleBiFunction<Airport, Airport> lowerBound) {
+        return findPath(graph.freeze(), start, goal, lowerBound);
+    }
+
+    /**
+     * Finds the shortest path between a start and goal airport of a compressed
+     * graph using bidirectional A*.
+     */
+    public static List<Airport> findPath(CompactGraph<Airport> graph, Airport start, Airport goal,
+            ToDoubleBiFunction<Airport, Airport> lowerBound) {
+        int source = graph.idOf(start);
+        int target = graph.idOf(goal);
+        if (source < 0 || target < 0) {
+            return Collections.emptyList();
+        }
+        BidirectionalAStar engine = engineFor(graph);
+        boolean found = engine.run(source, target,
+                v -> lowerBound.applyAsDouble(graph.vertex(v), goal),
+                v -> lowerBound.applyAsDouble(start, graph.vertex(v)));
+        return found ? graph.toVertices(engine.path()) : Collections.emptyList();
+    }
+
+    /**
+     * Returns the calling thread's engine for the given graph, creating it on first use
+     * or after the previous one was collected.
+     */
+    static BidirectionalAStar engineFor(CompactGraph<?> graph) {
+        SoftReference<BidirectionalAStar> cached = ENGINES.get();
+        BidirectionalAStar engine = cached == null ? null : cached.get();
+        if (engine == null) {
+            engine = new BidirectionalAStar(graph);
+            ENGINES.set(new SoftReference<>(engine));
+        } else if (engine.graph() != graph) {
+            engine.rebind(graph);
+        }
+        return engine;
+    }
+}
@@ -0,0 +1,238 @@
+package airportnetwork;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Point-to-point shortest paths with Dijkstra's algorithm run at the same time
+ * from the source (over outgoing edges) and from the target (over incoming
+ * edges, via {@link CompactGraph#reversed()}). The two searches stop once the
+ * smallest keys of both frontiers add up to at least the best path seen so far,
+ * which on large graphs settles far fewer vertices than a forward-only search.
+ * An engine is bound to one graph at a time and is not thread-safe; use one per thread.
+ */
+public final class BidirectionalDijkstra {
+
+    /** Reusable engine of the calling thread, rebound whenever a different graph is queried; held softly. */
+    private static final ThreadLocal<SoftReference<BidirectionalDijkstra>> ENGINES = new ThreadLocal<>();
+
+    /** The graph searched from the source. */
+    private CompactGraph<?> graph;
+
+    /** The reversed graph searched from the target. */
+    private CompactGraph<?> reverse;
+
+    /** State of the search from the source. */
+    private final SearchState forward;
+
+    /** State of the search from the target; predecessors point towards the target. */
+    private final SearchState backward;
+
+    /** Cost of the best path found by the last query. */
+    private double best;
+
+    /** Vertex where the best path found by the last query joins both searches, or -1. */
+    private int meeting;
+
+    /**
+     * Constructs an engine for the given graph.
+     *
+     * @param graph the graph to search
+     */
+    public BidirectionalDijkstra(CompactGraph<?> graph) {
+        this.graph = graph;
+        this.reverse = graph.reversed();
+        this.forward = new SearchState(graph.numVertices());
+        this.backward = new SearchState(graph.numVertices());
+    }
+
+    /**
+     * Returns the graph this engine searches.
+     *
+     * @return the graph
+     */
+    public CompactGraph<?> graph() {
+        return graph;
+    }
+
+    /**
+     * Binds this engine to another graph, such as a newer version of a
+     * {@link ConcurrentGraph}. The arrays of both directions are reused if they
+     * are large enough and grown otherwise; the results of the last query are
+     * forgotten.
+     *
+     * @param graph the graph to search from now on
+     */
+    public void rebind(CompactGraph<?> graph) {
+        if (graph == this.graph) {
+            return;
+        }
+        this.graph = graph;
+        this.reverse = graph.reversed();
+        forward.ensureCapacity(graph.numVertices());
+        backward.ensureCapacity(graph.numVertices());
+        forward.reset();
+        backward.reset();
+        best = Double.POSITIVE_INFINITY;
+        meeting = -1;
+    }
+
+    /**
+     * Computes the shortest path from {@code source} to {@code target}.
+     *
+     * @param source the source vertex id
+     * @param target the target vertex id
+     * @return true if the target is reachable from the source
+     */
+    public boolean run(int source, int target) {
+        return search(source, target, null, null);
+    }
+
+    /**
+     * Runs both searches on reduced edge costs. With lower bounds {@code toTarget}
+     * on the distance to the target and {@code fromSource} on the distance from
+     * the source, the average potential p(v) = (toTarget(v) - fromSource(v)) / 2
+     * is consistent for both directions, so the usual stopping criterion stays
+     * correct. Passing null for both bounds gives plain bidirectional Dijkstra.
+     */
+    boolean search(int source, int target, IntToDoubleFunction toTarget, IntToDoubleFunction fromSource) {
+        forward.reset();
+        backward.reset();
+        best = Double.POSITIVE_INFINITY;
+        meeting = -1;
+
+        forward.update(source, 0.0, -1, potential(source, toTarget, fromSource));
+        backward.update(target, 0.0, -1, -potential(target, toTarget, fromSource));
+        if (source == target) {
+            best = 0.0;
+            meeting = source;
+            return true;
+        }
+
+        // Stop once no path through an unsettled vertex can beat the best one found.
+        while (forward.minPriority() + backward.minPriority() < best) {
+            if (forward.minPriority() <= backward.minPriority()) {
+                expand(graph, forward, backward, 1.0, toTarget, fromSource);
+            } else {
+                expand(reverse, backward, forward, -1.0, toTarget, fromSource);
+            }
+        }
+        return meeting >= 0;
+    }
+
+    /**
+     * Settles the next vertex of one direction and checks every improved
+     * neighbour against the distance the opposite direction has for it.
+     */
+    private void expand(CompactGraph<?> g, SearchState self, SearchState other, double sign,
+            IntToDoubleFunction toTarget, IntToDoubleFunction fromSource) {
+        int current = self.extractMin();
+        double currentDist = self.distance(current);
+        for (int e = g.edgeStart(current), end = g.edgeEnd(current); e < end; e++) {
+            int next = g.target(e);
+            double newDist = currentDist + g.weight(e);
+            if (newDist < self.distance(next)) {
+                self.update(next, newDist, current, newDist + sign * potential(next, toTarget, fromSource));
+                double candidate = newDist + other.distance(next);
+                if (candidate < best) {
+                    best = candidate;
+                    meeting = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the forward potential of a vertex, or 0 when no bounds are given.
+     */
+    private static double potential(int v, IntToDoubleFunction toTarget, IntToDoubleFunction fromSource) {
+        if (toTarget == null) {
+            return 0.0;
+        }
+        return (toTarget.applyAsDouble(v) - fromSource.applyAsDouble(v)) / 2.0;
+    }
+
+    /**
+     * Returns the cost of the shortest path found by the last query.
+     *
+     * @return the path cost, or infinity if the target was not reachable
+     */
+    public double distance() {
+        return best;
+    }
+
+    /**
+     * Returns the shortest path found by the last query.
+     *
+     * @return the vertex ids along the path, or an empty array if the target was not reachable
+     */
+    public int[] path() {
+        if (meeting < 0) {
+            return new int[0];
+        }
+        int[] head = forward.path(meeting);
+        int length = head.length;
+        for (int v = backward.predecessor(meeting); v >= 0; v = backward.predecessor(v)) {
+            length++;
+        }
+        int[] path = Arrays.copyOf(head, length);
+        int i = head.length;
+        for (int v = backward.predecessor(meeting); v >= 0; v = backward.predecessor(v)) {
+            path[i++] = v;
+        }
+        return path;
+    }
+
+    /**
+     * Returns the number of vertices settled by the last query in both directions together.
+     *
+     * @return the settled-node count
+     */
+    public int settledCount() {
+        return forward.settledCount() + backward.settledCount();
+    }
+
+    /**
+     * Retrieves the shortest path from a start airport to a goal airport
+     * using bidirectional Dijkstra.
+     */
+    public static List<Airport> findPath(Graph<Airport> graph, Airport start, Airport goal) {
+        return findPath(graph.freeze(), start, goal);
+    }
+
+    /**
+     * Retrieves the shortest path from a start airport to a goal airport of a
+     * compressed graph using bidirectional Dijkstra.
+     */
+    public static List<Airport> findPath(CompactGraph<Airport> graph, Airport start, Airport goal) {
+        int source = graph.idOf(start);
+        int target = graph.idOf(goal);
+        if (source < 0 || target < 0) {
+            return Collections.emptyList();
+        }
+        BidirectionalDijkstra engine = engineFor(graph);
+        if (!engine.run(source, target)) {
+            return Collections.emptyList();
+        }
+        return graph.toVertices(engine.path());
+    }
+
+    /**
+     * Returns the calling thread's engine for the given graph, creating it on first use
+     * or after the previous one was collected.
+     */
+    static BidirectionalDijkstra engineFor(CompactGraph<?> graph) {
+        SoftReference<BidirectionalDijkstra> cached = ENGINES.get();
+        BidirectionalDijkstra engine = cached == null ? null : cached.get();
+        if (engine == null) {
+            engine = new BidirectionalDijkstra(graph);
+            ENGINES.set(new SoftReference<>(engine));
+        } else if (engine.graph() != graph) {
+            engine.rebind(graph);
+        }
+        return engine;
+    }
+}
@@ -0,0 +1,287 @@
+package airportnetwork;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, read-only snapshot of a {@link Graph} stored in compressed
+ * sparse row (CSR) layout.
+ * Every vertex is given a dense integer id in {@code [0, numVertices())}. The
+ * outgoing edges of vertex {@code v} occupy the index range
+ * {@code [edgeStart(v), edgeEnd(v))} of two parallel arrays holding the edge
+ * targets and weights, so routing loops walk primitive arrays instead of
+ * hashing vertices and chasing {@link Edge} objects. A graph opened by
+ * {@link GraphSnapshot#open} reads the same layout from a memory-mapped file.
+ *
+ * @param <T> The type representing the vertices in the graph.
+ */
+public class CompactGraph<T> {
+
+    /** The vertices and their dense ids. */
+    private final VertexTable<T> vertices;
+
+    /** Edges of vertex v are stored at [offsets[v], offsets[v + 1]). */
+    private final int[] offsets;
+
+    /** Destination id of every edge. */
+    private final int[] targets;
+
+    /** Weight of every edge. */
+    private final double[] weights;
+
+    /** The graph with every edge reversed, built on first use. */
+    private volatile CompactGraph<T> reversed;
+
+    CompactGraph(Object[] vertices, Map<T, Integer> ids, int[] offsets, int[] targets, double[] weights) {
+        this(new ArrayVertexTable<>(vertices, ids), offsets, targets, weights);
+    }
+
+    /**
+     * Constructs a graph over a vertex table whose edges are stored elsewhere. Subclasses
+     * taking this route must override every edge accessor and {@link #reversed()}.
+     */
+    CompactGraph(VertexTable<T> vertices) {
+        this(vertices, null, null, null);
+    }
+
+    private CompactGraph(VertexTable<T> vertices, int[] offsets, int[] targets, double[] weights) {
+        this.vertices = vertices;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Constructs a graph over the same vertices and ids as {@code base} but with different edges.
+     */
+    CompactGraph(CompactGraph<T> base, int[] offsets, int[] targets, double[] weights) {
+        this(base.vertices, offsets, targets, weights);
+    }
+
+    /**
+     * Builds a compressed snapshot of the given graph. Later changes to the
+     * graph are not reflected in the snapshot.
+     *
+     * @param graph the graph to compress
+     * @param <T>   the vertex type
+     * @return the compressed snapshot
+     */
+    public static <T> CompactGraph<T> of(Graph<T> graph) {
+        int n = graph.numVertices();
+        Object[] vertices = new Object[n];
+        Map<T, Integer> ids = new HashMap<>(Math.max(16, (int) (n / 0.75f) + 1));
+        int id = 0;
+        for (T v : graph.vertices()) {
+            vertices[id] = v;
+            ids.put(v, id++);
+        }
+
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            @SuppressWarnings("unchecked")
+            T vertex = (T) vertices[v];
+            offsets[v + 1] = offsets[v] + graph.outDegree(vertex);
+        }
+
+        int[] targets = new int[offsets[n]];
+        double[] weights = new double[offsets[n]];
+        for (int v = 0; v < n; v++) {
+            @SuppressWarnings("unchecked")
+            T vertex = (T) vertices[v];
+            List<Edge<T>> edges = graph.getEdges(vertex);
+            int e = offsets[v];
+            for (Edge<T> edge : edges) {
+                targets[e] = ids.get(edge.getDestination());
+                weights[e] = edge.getWeight();
+                e++;
+            }
+        }
+        return new CompactGraph<>(vertices, ids, offsets, targets, weights);
+    }
+
+    /**
+     * Returns the number of vertices in the graph.
+     *
+     * @return the number of vertices
+     */
+    public int numVertices() {
+        return vertices.size();
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     *
+     * @return the number of edges
+     */
+    public int numEdges() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the dense id of the given vertex.
+     *
+     * @param v the vertex
+     * @return the id of the vertex, or -1 if it is not part of the graph
+     */
+    public int idOf(T v) {
+        return vertices.idOf(v);
+    }
+
+    /**
+     * Returns the vertex with the given dense id.
+     *
+     * @param id the vertex id
+     * @return the vertex
+     */
+    public T vertex(int id) {
+        return vertices.vertex(id);
+    }
+
+    /**
+     * Returns the index of the first outgoing edge of vertex {@code v}.
+     *
+     * @param v the vertex id
+     * @return the first edge index of v
+     */
+    public int edgeStart(int v) {
+        return offsets[v];
+    }
+
+    /**
+     * Returns the index one past the last outgoing edge of vertex {@code v}.
+     *
+     * @param v the vertex id
+     * @return the end (exclusive) edge index of v
+     */
+    public int edgeEnd(int v) {
+        return offsets[v + 1];
+    }
+
+    /**
+     * Returns the destination vertex id of edge {@code e}.
+     *
+     * @param e the edge index
+     * @return the destination id
+     */
+    public int target(int e) {
+        return targets[e];
+    }
+
+    /**
+     * Returns the weight of edge {@code e}.
+     *
+     * @param e the edge index
+     * @return the edge weight
+     */
+    public double weight(int e) {
+        return weights[e];
+    }
+
+    /**
+     * Returns the number of outgoing edges of vertex {@code v}.
+     *
+     * @param v the vertex id
+     * @return the out-degree of v
+     */
+    public int outDegree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * Maps a sequence of vertex ids, such as a path found by one of the engines,
+     * back to the vertices.
+     *
+     * @param vertexIds the vertex ids
+     * @return the vertices in the same order
+     */
+    public List<T> toVertices(int[] vertexIds) {
+        List<T> result = new ArrayList<>(vertexIds.length);
+        for (int id : vertexIds) {
+            result.add(vertex(id));
+        }
+        return result;
+    }
+
+    /**
+     * Returns this graph with every edge reversed, sharing the vertex ids of this
+     * graph. Backward searches walk the outgoing edges of the reversed graph to
+     * visit the incoming edges of this one. The reverse adjacency is built once
+     * on first use.
+     *
+     * @return the reversed graph
+     */
+    public CompactGraph<T> reversed() {
+        CompactGraph<T> result = reversed;
+        if (result == null) {
+            synchronized (this) {
+                result = reversed;
+                if (result == null) {
+                    result = buildReversed();
+                    reversed = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the reverse CSR arrays by counting in-degrees and scattering every edge.
+     */
+    private CompactGraph<T> buildReversed() {
+        int n = numVertices();
+        int[] reverseOffsets = new int[n + 1];
+        for (int target : targets) {
+            reverseOffsets[target + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+
+        int[] next = Arrays.copyOf(reverseOffsets, n);
+        int[] reverseTargets = new int[targets.length];
+        double[] reverseWeights = new double[targets.length];
+        for (int u = 0; u < n; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int slot = next[targets[e]]++;
+                reverseTargets[slot] = u;
+                reverseWeights[slot] = weights[e];
+            }
+        }
+        CompactGraph<T> result = new CompactGraph<>(this, reverseOffsets, reverseTargets, reverseWeights);
+        result.reversed = this;
+        return result;
+    }
+
+    /**
+     * A vertex table held in an array, with a hash map from vertices to ids.
+     */
+    private static final class ArrayVertexTable<T> implements VertexTable<T> {
+        private final Object[] vertices;
+        private final Map<T, Integer> ids;
+
+        ArrayVertexTable(Object[] vertices, Map<T, Integer> ids) {
+            this.vertices = vertices;
+            this.ids = ids;
+        }
+
+        @Override
+        public int size() {
+            return vertices.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T vertex(int id) {
+            return (T) vertices[id];
+        }
+
+        @Override
+        public int idOf(T v) {
+            Integer id = ids.get(v);
+            return id == null ? -1 : id;
+        }
+    }
+}
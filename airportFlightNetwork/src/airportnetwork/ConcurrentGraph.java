@@ -0,0 +1,421 @@
+package airportnetwork;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * A graph that can be changed while route queries run on it.
+ * Queries never lock: {@link #snapshot()} returns the latest published version
+ * as an immutable {@link CompactGraph}, which stays consistent for as long as
+ * the query holds it and works with every engine and static adapter. Writers
+ * are serialized on the graph's monitor. Every change is applied to an internal
+ * {@link Graph} and then published as a new version by a single volatile write.
+ * <p>
+ * Versions share almost all of their storage. The edge arrays of both
+ * directions are split into chunks and only ever appended to. A change rewrites
+ * the edges of the vertices it touches at the end of those arrays, beyond
+ * anything an older version can see. The per-vertex offsets are split into
+ * chunks of {@value #VERTEX_CHUNK} vertices, and only the touched chunks are
+ * copied. Publishing therefore costs time proportional to the degrees of the
+ * touched vertices plus a small fraction of the vertex count, not to the size
+ * of the graph. Once more than half of the edge slots belong to replaced
+ * lists, the next publication compacts them into fresh chunks. Old versions
+ * are reclaimed by the garbage collector when the last query holding them
+ * finishes.
+ * <p>
+ * Vertex ids are never reused. A removed vertex keeps its id without edges, and
+ * {@link CompactGraph#idOf} returns -1 for it; the vertex gets the same id back
+ * if it is added again. Use {@link #update} to publish several changes as one version.
+ *
+ * @param <T> The type representing the vertices in the graph.
+ */
+public final class ConcurrentGraph<T> {
+
+    /** Number of vertices per chunk of the offset arrays. */
+    static final int VERTEX_CHUNK = 1 << 10;
+
+    /** Number of edges per chunk of the edge arrays. */
+    private static final int EDGE_CHUNK = 1 << 16;
+
+    /** The current state of the graph, guarded by this. */
+    private final Graph<T> graph = new Graph<>();
+
+    /** Ids of every vertex ever added; shared with the published versions. */
+    private final Map<T, Integer> ids = new ConcurrentHashMap<>();
+
+    /** Vertices by id, in chunks that are only appended to. */
+    private Object[][] vertexChunks = new Object[0][];
+
+    /** Number of vertex ids handed out. */
+    private int numVertices;
+
+    /** Outgoing and incoming edge storage. */
+    private final Side outgoing = new Side(true);
+    private final Side incoming = new Side(false);
+
+    /** Depth of nested {@link #update} calls; publication waits for the outermost. */
+    private int batchDepth;
+
+    /** The latest published version. */
+    private volatile Version<T> current;
+
+    /**
+     * Constructs an empty graph.
+     */
+    public ConcurrentGraph() {
+        publish();
+    }
+
+    /**
+     * Returns the latest published version of the graph. Never blocks.
+     *
+     * @return an immutable snapshot
+     */
+    public CompactGraph<T> snapshot() {
+        return current;
+    }
+
+    /**
+     * Returns the number of the latest published version, which grows by one with
+     * every publication.
+     *
+     * @return the version number
+     */
+    public long version() {
+        return current.number;
+    }
+
+    /**
+     * Adds a vertex if it is not in the graph yet.
+     *
+     * @param vertex the vertex
+     */
+    public synchronized void addNode(T vertex) {
+        if (!graph.getAllNodes().contains(vertex)) {
+            graph.addNode(vertex);
+            touch(register(vertex));
+        }
+        publishUnlessBatched();
+    }
+
+    /**
+     * Adds a directed edge, adding missing vertices first.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @param weight      the weight of the edge
+     */
+    public synchronized void addEdge(T source, T destination, double weight) {
+        batchDepth++;
+        try {
+            addNode(source);
+            addNode(destination);
+        } finally {
+            batchDepth--;
+        }
+        graph.addEdge(source, destination, weight);
+        outgoing.dirty.set(ids.get(source));
+        incoming.dirty.set(ids.get(destination));
+        publishUnlessBatched();
+    }
+
+    /**
+     * Removes the edge from {@code source} to {@code destination}, if there is one.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @return true if an edge was removed
+     */
+    public synchronized boolean removeEdge(T source, T destination) {
+        Edge<T> edge = graph.getEdge(source, destination);
+        if (edge == null) {
+            return false;
+        }
+        graph.removeEdge(edge);
+        outgoing.dirty.set(ids.get(source));
+        incoming.dirty.set(ids.get(destination));
+        publishUnlessBatched();
+        return true;
+    }
+
+    /**
+     * Removes a vertex and all its edges.
+     *
+     * @param vertex the vertex
+     * @return true if the vertex was in the graph
+     */
+    public synchronized boolean removeVertex(T vertex) {
+        if (!graph.getAllNodes().contains(vertex)) {
+            return false;
+        }
+        for (Edge<T> e : graph.getEdges(vertex)) {
+            incoming.dirty.set(ids.get(e.getDestination()));
+        }
+        for (Edge<T> e : graph.incomingEdges(vertex)) {
+            outgoing.dirty.set(ids.get(e.getSource()));
+        }
+        graph.removeVertex(vertex);
+        touch(ids.get(vertex));
+        publishUnlessBatched();
+        return true;
+    }
+
+    /**
+     * Applies several changes and publishes them as one version. Queries see either
+     * none or all of them.
+     *
+     * @param changes calls the write methods of this graph
+     */
+    public synchronized void update(Consumer<ConcurrentGraph<T>> changes) {
+        batchDepth++;
+        try {
+            changes.accept(this);
+        } finally {
+            batchDepth--;
+        }
+        publishUnlessBatched();
+    }
+
+    private void publishUnlessBatched() {
+        if (batchDepth == 0 && (outgoing.dirty.length() > 0 || incoming.dirty.length() > 0
+                || current.vertices.size != numVertices)) {
+            publish();
+        }
+    }
+
+    /**
+     * Returns the id of a vertex, handing out the next one if it is new.
+     */
+    private int register(T vertex) {
+        Integer id = ids.get(vertex);
+        if (id != null) {
+            return id;
+        }
+        int chunk = numVertices / VERTEX_CHUNK;
+        if (chunk == vertexChunks.length) {
+            // Older versions keep the old outer array, so growing never disturbs them.
+            vertexChunks = Arrays.copyOf(vertexChunks, chunk + 1);
+            vertexChunks[chunk] = new Object[VERTEX_CHUNK];
+        }
+        vertexChunks[chunk][numVertices % VERTEX_CHUNK] = vertex;
+        ids.put(vertex, numVertices);
+        return numVertices++;
+    }
+
+    private void touch(int id) {
+        outgoing.dirty.set(id);
+        incoming.dirty.set(id);
+    }
+
+    /**
+     * Rewrites the edges of every touched vertex and publishes a new version.
+     */
+    private void publish() {
+        int[][] forwardStarts = outgoing.apply();
+        int[][] backwardStarts = incoming.apply();
+        Vertices<T> vertices = new Vertices<>(numVertices, vertexChunks, ids, forwardStarts);
+        long number = current == null ? 0 : current.number + 1;
+        Version<T> forward = new Version<>(vertices, number, forwardStarts, outgoing.degrees,
+                outgoing.targets, outgoing.weights, graph.numEdges());
+        Version<T> backward = new Version<>(vertices, number, backwardStarts, incoming.degrees,
+                incoming.targets, incoming.weights, graph.numEdges());
+        forward.reverse = backward;
+        backward.reverse = forward;
+        current = forward;
+    }
+
+    /**
+     * The edges of one direction: chunked per-vertex offsets and degrees, published
+     * copy-on-write, and chunked edge arrays that are only appended to.
+     */
+    private final class Side {
+        final boolean forward;
+        final BitSet dirty = new BitSet();
+        int[][] starts = new int[0][];
+        int[][] degrees = new int[0][];
+        int[][] targets = new int[0][];
+        double[][] weights = new double[0][];
+
+        /** Number of edge slots used, live or not. */
+        int tail;
+
+        /** Number of edge slots holding replaced lists. */
+        int garbage;
+
+        Side(boolean forward) {
+            this.forward = forward;
+        }
+
+        /**
+         * Rewrites the edge lists of the dirty vertices and returns the new offsets.
+         */
+        int[][] apply() {
+            int chunks = (numVertices + VERTEX_CHUNK - 1) / VERTEX_CHUNK;
+            int[][] newStarts = Arrays.copyOf(starts, chunks);
+            int[][] newDegrees = Arrays.copyOf(degrees, chunks);
+            boolean[] copied = new boolean[chunks];
+            for (int c = starts.length; c < chunks; c++) {
+                newStarts[c] = new int[VERTEX_CHUNK];
+                newDegrees[c] = new int[VERTEX_CHUNK];
+                copied[c] = true;
+            }
+            boolean compact = garbage > graph.numEdges() && garbage > EDGE_CHUNK;
+            if (compact) {
+                // Compact: rewrite every vertex into fresh chunks older versions never see.
+                targets = new int[0][];
+                weights = new double[0][];
+                tail = 0;
+                garbage = 0;
+                dirty.set(0, numVertices);
+            }
+            for (int v = dirty.nextSetBit(0); v >= 0; v = dirty.nextSetBit(v + 1)) {
+                int c = v / VERTEX_CHUNK;
+                int i = v % VERTEX_CHUNK;
+                if (!copied[c]) {
+                    newStarts[c] = newStarts[c].clone();
+                    newDegrees[c] = newDegrees[c].clone();
+                    copied[c] = true;
+                }
+                if (!compact) {
+                    garbage += newDegrees[c][i];
+                }
+                @SuppressWarnings("unchecked")
+                T vertex = (T) vertexChunks[c][i];
+                if (!graph.getAllNodes().contains(vertex)) {
+                    newStarts[c][i] = -1;
+                    newDegrees[c][i] = 0;
+                    continue;
+                }
+                int degree = forward ? graph.outDegree(vertex) : graph.inDegree(vertex);
+                Iterable<Edge<T>> edges = forward ? graph.getEdges(vertex) : graph.incomingEdges(vertex);
+                ensureCapacity(tail + degree);
+                newStarts[c][i] = tail;
+                newDegrees[c][i] = degree;
+                for (Edge<T> e : edges) {
+                    int slot = tail++;
+                    targets[slot / EDGE_CHUNK][slot % EDGE_CHUNK] = ids.get(forward ? e.getDestination() : e.getSource());
+                    weights[slot / EDGE_CHUNK][slot % EDGE_CHUNK] = e.getWeight();
+                }
+            }
+            dirty.clear();
+            starts = newStarts;
+            degrees = newDegrees;
+            return newStarts;
+        }
+
+        private void ensureCapacity(int capacity) {
+            int chunks = (capacity + EDGE_CHUNK - 1) / EDGE_CHUNK;
+            if (chunks > targets.length) {
+                int old = targets.length;
+                targets = Arrays.copyOf(targets, chunks);
+                weights = Arrays.copyOf(weights, chunks);
+                for (int c = old; c < chunks; c++) {
+                    targets[c] = new int[EDGE_CHUNK];
+                    weights[c] = new double[EDGE_CHUNK];
+                }
+            }
+        }
+    }
+
+    /**
+     * The vertex ids of one version.
+     */
+    private static final class Vertices<T> implements VertexTable<T> {
+        final int size;
+        private final Object[][] chunks;
+        private final Map<T, Integer> ids;
+        private final int[][] starts;
+
+        Vertices(int size, Object[][] chunks, Map<T, Integer> ids, int[][] starts) {
+            this.size = size;
+            this.chunks = chunks;
+            this.ids = ids;
+            this.starts = starts;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T vertex(int id) {
+            return (T) chunks[id / VERTEX_CHUNK][id % VERTEX_CHUNK];
+        }
+
+        @Override
+        public int idOf(T v) {
+            Integer id = ids.get(v);
+            // Vertices added after this version, or removed in it, are not part of it.
+            if (id == null || id >= size || starts[id / VERTEX_CHUNK][id % VERTEX_CHUNK] < 0) {
+                return -1;
+            }
+            return id;
+        }
+    }
+
+    /**
+     * One published version of one direction of the graph.
+     */
+    private static final class Version<T> extends CompactGraph<T> {
+        final Vertices<T> vertices;
+        final long number;
+        private final int[][] starts;
+        private final int[][] degrees;
+        private final int[][] targets;
+        private final double[][] weights;
+        private final int numEdges;
+        private Version<T> reverse;
+
+        Version(Vertices<T> vertices, long number, int[][] starts, int[][] degrees, int[][] targets,
+                double[][] weights, int numEdges) {
+            super(vertices);
+            this.vertices = vertices;
+            this.number = number;
+            this.starts = starts;
+            this.degrees = degrees;
+            this.targets = targets;
+            this.weights = weights;
+            this.numEdges = numEdges;
+        }
+
+        @Override
+        public int numEdges() {
+            return numEdges;
+        }
+
+        @Override
+        public int edgeStart(int v) {
+            return starts[v / VERTEX_CHUNK][v % VERTEX_CHUNK];
+        }
+
+        @Override
+        public int edgeEnd(int v) {
+            return starts[v / VERTEX_CHUNK][v % VERTEX_CHUNK] + degrees[v / VERTEX_CHUNK][v % VERTEX_CHUNK];
+        }
+
+        @Override
+        public int target(int e) {
+            return targets[e / EDGE_CHUNK][e % EDGE_CHUNK];
+        }
+
+        @Override
+        public double weight(int e) {
+            return weights[e / EDGE_CHUNK][e % EDGE_CHUNK];
+        }
+
+        @Override
+        public int outDegree(int v) {
+            return degrees[v / VERTEX_CHUNK][v % VERTEX_CHUNK];
+        }
+
+        @Override
+        public CompactGraph<T> reversed() {
+            return reverse;
+        }
+    }
+}
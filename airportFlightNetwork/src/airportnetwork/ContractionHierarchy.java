@@ -0,0 +1,528 @@
+package airportnetwork;
+
+import java.util.Arrays;
+
+/**
+ * A Contraction Hierarchy over a {@link CompactGraph}.
+ * Preprocessing contracts the vertices one by one in order of importance. When
+ * a vertex is contracted, every shortest path that passed through it is kept by
+ * a shortcut edge between its remaining neighbours, unless a local witness
+ * search finds a path at least as short that avoids it. Afterwards every edge,
+ * original or shortcut, leads either up or down the contraction order, and a
+ * query only has to search upwards from both the source and the target, which
+ * settles a tiny fraction of the graph. Shortcuts remember the vertex they
+ * bypass, so paths are unpacked back into original edges.
+ * <p>
+ * A vertex that has more than {@code maxCoreDegree} neighbours when its turn
+ * comes is not contracted but set aside in a core. On graphs without much
+ * hierarchy, such as uniformly random ones, the last vertices otherwise form a
+ * dense clique-like core whose contraction costs far more than it saves. The core keeps its edges in both
+ * directions and queries search it with plain bidirectional Dijkstra.
+ *
+ * @param <T> The type representing the vertices in the graph.
+ */
+public final class ContractionHierarchy<T> {
+
+    /** Maximum number of vertices a witness search may settle while contracting a vertex. */
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    /** Tighter settle limit used while only estimating the priority of a vertex. */
+    private static final int ESTIMATE_SETTLE_LIMIT = 50;
+
+    /** Default degree above which the remaining vertices are left as an uncontracted core. */
+    public static final int DEFAULT_MAX_CORE_DEGREE = 16;
+
+    /** The graph the hierarchy was built from. */
+    private final CompactGraph<T> graph;
+
+    /** Position of every vertex in the contraction order. */
+    private final int[] rank;
+
+    /** Edges leading from a vertex to a higher-ranked one. */
+    private final CompactGraph<T> upward;
+
+    /** Bypassed vertex of every upward edge, or -1 for original edges. */
+    private final int[] upwardMiddle;
+
+    /** Reversed edges leading into a vertex from a higher-ranked one. */
+    private final CompactGraph<T> downward;
+
+    /** Bypassed vertex of every downward edge, or -1 for original edges. */
+    private final int[] downwardMiddle;
+
+    /** Number of shortcut edges added during preprocessing. */
+    private final int shortcuts;
+
+    /** Number of vertices left uncontracted in the core. */
+    private final int coreSize;
+
+    private ContractionHierarchy(CompactGraph<T> graph, int[] rank, CompactGraph<T> upward, int[] upwardMiddle,
+            CompactGraph<T> downward, int[] downwardMiddle, int shortcuts, int coreSize) {
+        this.graph = graph;
+        this.rank = rank;
+        this.upward = upward;
+        this.upwardMiddle = upwardMiddle;
+        this.downward = downward;
+        this.downwardMiddle = downwardMiddle;
+        this.shortcuts = shortcuts;
+        this.coreSize = coreSize;
+    }
+
+    /**
+     * Builds a hierarchy for the current state of the given graph.
+     *
+     * @param graph the graph to preprocess
+     * @param <T>   the vertex type
+     * @return the contraction hierarchy
+     */
+    public static <T> ContractionHierarchy<T> build(Graph<T> graph) {
+        return build(graph.freeze());
+    }
+
+    /**
+     * Builds a hierarchy for the given compressed graph.
+     *
+     * @param graph the graph to preprocess
+     * @param <T>   the vertex type
+     * @return the contraction hierarchy
+     */
+    public static <T> ContractionHierarchy<T> build(CompactGraph<T> graph) {
+        return build(graph, DEFAULT_MAX_CORE_DEGREE);
+    }
+
+    /**
+     * Builds a hierarchy for the given compressed graph, leaving vertices with
+     * more than {@code maxCoreDegree} neighbours uncontracted.
+     *
+     * @param graph         the graph to preprocess
+     * @param maxCoreDegree largest degree of a vertex that is still contracted
+     * @param <T>           the vertex type
+     * @return the contraction hierarchy
+     */
+    public static <T> ContractionHierarchy<T> build(CompactGraph<T> graph, int maxCoreDegree) {
+        return new Contractor<>(graph, maxCoreDegree).contract();
+    }
+
+    /**
+     * Returns the graph the hierarchy was built from.
+     *
+     * @return the original graph
+     */
+    public CompactGraph<T> graph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of shortcut edges added during preprocessing.
+     *
+     * @return the shortcut count
+     */
+    public int numShortcuts() {
+        return shortcuts;
+    }
+
+    /**
+     * Returns the number of vertices left uncontracted in the core.
+     *
+     * @return the core size
+     */
+    public int coreSize() {
+        return coreSize;
+    }
+
+    /**
+     * Returns the position of a vertex in the contraction order. Core vertices
+     * rank above every contracted vertex.
+     *
+     * @param v the vertex id
+     * @return the rank of v
+     */
+    public int rank(int v) {
+        return rank[v];
+    }
+
+    /**
+     * Returns the edges leading from each vertex to higher-ranked vertices,
+     * plus the outgoing edges between core vertices.
+     */
+    CompactGraph<T> upward() {
+        return upward;
+    }
+
+    /**
+     * Returns, for each vertex, the reversed edges reaching it from higher-ranked
+     * vertices, plus the reversed incoming edges between core vertices.
+     */
+    CompactGraph<T> downward() {
+        return downward;
+    }
+
+    /**
+     * Appends the original vertices on the hierarchy edge {@code u -> v},
+     * excluding {@code u}, to {@code path}. Shortcuts are expanded with an
+     * explicit stack, so deep hierarchies cannot overflow the call stack.
+     */
+    void unpack(int u, int v, PathBuilder path) {
+        path.pushPair(u, v);
+        while (path.hasPairs()) {
+            int to = path.popPairSecond();
+            int from = path.popPairFirst();
+            int middle = middle(from, to);
+            if (middle < 0) {
+                path.add(to);
+            } else {
+                // Expand from -> middle first, so push it last.
+                path.pushPair(middle, to);
+                path.pushPair(from, middle);
+            }
+        }
+    }
+
+    /**
+     * Returns the bypassed vertex of the hierarchy edge {@code u -> v}, or -1 if it is an original edge.
+     */
+    private int middle(int u, int v) {
+        // Upward edges and core edges are stored at their source.
+        for (int e = upward.edgeStart(u), end = upward.edgeEnd(u); e < end; e++) {
+            if (upward.target(e) == v) {
+                return upwardMiddle[e];
+            }
+        }
+        for (int e = downward.edgeStart(v), end = downward.edgeEnd(v); e < end; e++) {
+            if (downward.target(e) == u) {
+                return downwardMiddle[e];
+            }
+        }
+        throw new IllegalStateException("No hierarchy edge from " + u + " to " + v);
+    }
+
+    /**
+     * Reusable buffers for unpacking a path: the growing list of vertex ids and
+     * a stack of hierarchy edges still to expand.
+     */
+    static final class PathBuilder {
+        private int[] vertices = new int[16];
+        private int size;
+        private int[] pairs = new int[16];
+        private int pairCount;
+
+        void clear() {
+            size = 0;
+            pairCount = 0;
+        }
+
+        void add(int v) {
+            if (size == vertices.length) {
+                vertices = Arrays.copyOf(vertices, size * 2);
+            }
+            vertices[size++] = v;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(vertices, size);
+        }
+
+        private boolean hasPairs() {
+            return pairCount > 0;
+        }
+
+        private void pushPair(int first, int second) {
+            if (pairCount + 2 > pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            }
+            pairs[pairCount++] = first;
+            pairs[pairCount++] = second;
+        }
+
+        private int popPairSecond() {
+            return pairs[--pairCount];
+        }
+
+        private int popPairFirst() {
+            return pairs[--pairCount];
+        }
+    }
+
+    /**
+     * Growable parallel arrays holding the edges on one side of a vertex while the
+     * graph is being contracted.
+     */
+    private static final class Arcs {
+        int[] to = new int[4];
+        double[] weight = new double[4];
+        int[] middle = new int[4];
+        int size;
+
+        int indexOf(int v) {
+            for (int i = 0; i < size; i++) {
+                if (to[i] == v) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void add(int v, double w, int mid) {
+            if (size == to.length) {
+                to = Arrays.copyOf(to, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+                middle = Arrays.copyOf(middle, size * 2);
+            }
+            to[size] = v;
+            weight[size] = w;
+            middle[size] = mid;
+            size++;
+        }
+
+        void remove(int v) {
+            int i = indexOf(v);
+            if (i >= 0) {
+                size--;
+                to[i] = to[size];
+                weight[i] = weight[size];
+                middle[i] = middle[size];
+            }
+        }
+    }
+
+    /**
+     * Performs the node ordering and contraction of one graph.
+     * The arc lists of a vertex only ever hold its uncontracted neighbours: when
+     * a vertex is contracted it is unlinked from its neighbours, and its own
+     * lists are frozen as its edges to higher-ranked vertices. Vertices left in
+     * the core keep the arcs between each other.
+     */
+    private static final class Contractor<T> {
+        private final CompactGraph<T> graph;
+        private final int maxCoreDegree;
+        private final int n;
+        private final Arcs[] out;
+        private final Arcs[] in;
+        private final int[] contractedNeighbours;
+        private final SearchState witness;
+        private final int[] targetMark;
+        private int markStamp;
+        private int shortcuts;
+
+        Contractor(CompactGraph<T> graph, int maxCoreDegree) {
+            this.graph = graph;
+            this.maxCoreDegree = maxCoreDegree;
+            this.n = graph.numVertices();
+            this.out = new Arcs[n];
+            this.in = new Arcs[n];
+            this.contractedNeighbours = new int[n];
+            this.witness = new SearchState(n);
+            this.targetMark = new int[n];
+            for (int v = 0; v < n; v++) {
+                out[v] = new Arcs();
+                in[v] = new Arcs();
+            }
+            // Copy the original edges, dropping self-loops and keeping the cheapest of parallel edges.
+            for (int u = 0; u < n; u++) {
+                for (int e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                    int v = graph.target(e);
+                    if (u != v) {
+                        addArc(u, v, graph.weight(e), -1);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the arc {@code u -> v}, or lowers the weight of an existing one.
+         * Returns true if a new arc was added.
+         */
+        private boolean addArc(int u, int v, double w, int mid) {
+            int i = out[u].indexOf(v);
+            if (i < 0) {
+                out[u].add(v, w, mid);
+                in[v].add(u, w, mid);
+                return true;
+            }
+            if (w < out[u].weight[i]) {
+                out[u].weight[i] = w;
+                out[u].middle[i] = mid;
+                int j = in[v].indexOf(u);
+                in[v].weight[j] = w;
+                in[v].middle[j] = mid;
+            }
+            return false;
+        }
+
+        ContractionHierarchy<T> contract() {
+            // Node ordering: the vertex with the smallest priority is contracted first.
+            IntMiniHeap queue = new IntMiniHeap(n);
+            for (int v = 0; v < n; v++) {
+                queue.insert(v, priority(v));
+            }
+
+            int[] rank = new int[n];
+            int next = 0;
+            int[] core = new int[16];
+            int coreSize = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.extractMin();
+                if (out[v].size + in[v].size > maxCoreDegree) {
+                    // Too dense to contract cheaply: set it aside in the core.
+                    if (coreSize == core.length) {
+                        core = Arrays.copyOf(core, coreSize * 2);
+                    }
+                    core[coreSize++] = v;
+                    continue;
+                }
+                // Priorities go stale as the graph changes, so re-check lazily.
+                double current = priority(v);
+                if (current > queue.minPriority()) {
+                    queue.insert(v, current);
+                    continue;
+                }
+                contractVertex(v, true);
+                rank[v] = next++;
+
+                Arcs o = out[v];
+                for (int i = 0; i < o.size; i++) {
+                    in[o.to[i]].remove(v);
+                }
+                Arcs r = in[v];
+                for (int i = 0; i < r.size; i++) {
+                    out[r.to[i]].remove(v);
+                }
+                for (int i = 0; i < o.size; i++) {
+                    touchNeighbour(o.to[i], queue);
+                }
+                for (int i = 0; i < r.size; i++) {
+                    touchNeighbour(r.to[i], queue);
+                }
+            }
+
+            for (int i = 0; i < coreSize; i++) {
+                rank[core[i]] = next++;
+            }
+            return assemble(rank, coreSize);
+        }
+
+        /**
+         * Counts a contracted neighbour and refreshes the priority of {@code u},
+         * unless it has already been set aside in the core.
+         */
+        private void touchNeighbour(int u, IntMiniHeap queue) {
+            contractedNeighbours[u]++;
+            if (queue.contains(u)) {
+                queue.changeKey(u, priority(u));
+            }
+        }
+
+        /**
+         * Edge difference of a vertex (shortcuts it would add minus edges it would
+         * remove) plus the number of neighbours already contracted, which spreads
+         * contraction evenly over the graph.
+         */
+        private double priority(int v) {
+            return contractVertex(v, false) - out[v].size - in[v].size + contractedNeighbours[v];
+        }
+
+        /**
+         * Finds the shortcuts needed to contract {@code v} and adds them when
+         * {@code apply} is true. Returns the number of shortcuts needed.
+         */
+        private int contractVertex(int v, boolean apply) {
+            int needed = 0;
+            Arcs r = in[v];
+            Arcs o = out[v];
+            for (int i = 0; i < r.size; i++) {
+                int u = r.to[i];
+                double maxVia = 0.0;
+                int targets = 0;
+                markStamp++;
+                for (int j = 0; j < o.size; j++) {
+                    if (o.to[j] != u) {
+                        maxVia = Math.max(maxVia, r.weight[i] + o.weight[j]);
+                        targetMark[o.to[j]] = markStamp;
+                        targets++;
+                    }
+                }
+                if (targets == 0) {
+                    continue;
+                }
+                witnessSearch(u, v, maxVia, targets, apply ? WITNESS_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+                for (int j = 0; j < o.size; j++) {
+                    int w = o.to[j];
+                    if (w == u) {
+                        continue;
+                    }
+                    double via = r.weight[i] + o.weight[j];
+                    if (witness.distance(w) > via) {
+                        needed++;
+                        if (apply && addArc(u, w, via, v)) {
+                            shortcuts++;
+                        }
+                    }
+                }
+            }
+            return needed;
+        }
+
+        /**
+         * Local Dijkstra from {@code source} over the remaining graph without
+         * {@code avoid}, bounded by a distance and a settled-vertex limit. It also
+         * stops once all {@code targets} vertices marked with the current stamp
+         * are settled.
+         */
+        private void witnessSearch(int source, int avoid, double maxDist, int targets, int settleLimit) {
+            witness.reset();
+            witness.update(source, 0.0, -1, 0.0);
+            int settled = 0;
+            while (!witness.isEmpty() && settled++ < settleLimit) {
+                int current = witness.extractMin();
+                if (targetMark[current] == markStamp && --targets == 0) {
+                    break;
+                }
+                double currentDist = witness.distance(current);
+                Arcs o = out[current];
+                for (int i = 0; i < o.size; i++) {
+                    int w = o.to[i];
+                    double newDist = currentDist + o.weight[i];
+                    if (w != avoid && newDist <= maxDist && newDist < witness.distance(w)) {
+                        witness.update(w, newDist, current, newDist);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Turns the frozen arc lists into upward and (reversed) downward CSR graphs.
+         * When a vertex was contracted all its remaining neighbours ranked higher,
+         * so its out-arcs lead up and its in-arcs come down into it. A core vertex
+         * only has core neighbours left, and its arcs go into both graphs.
+         */
+        private ContractionHierarchy<T> assemble(int[] rank, int coreSize) {
+            int[] upOffsets = new int[n + 1];
+            int[] downOffsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                upOffsets[v + 1] = upOffsets[v] + out[v].size;
+                downOffsets[v + 1] = downOffsets[v] + in[v].size;
+            }
+
+            int[] upTargets = new int[upOffsets[n]];
+            double[] upWeights = new double[upOffsets[n]];
+            int[] upMiddle = new int[upOffsets[n]];
+            int[] downTargets = new int[downOffsets[n]];
+            double[] downWeights = new double[downOffsets[n]];
+            int[] downMiddle = new int[downOffsets[n]];
+            for (int v = 0; v < n; v++) {
+                Arcs o = out[v];
+                System.arraycopy(o.to, 0, upTargets, upOffsets[v], o.size);
+                System.arraycopy(o.weight, 0, upWeights, upOffsets[v], o.size);
+                System.arraycopy(o.middle, 0, upMiddle, upOffsets[v], o.size);
+                Arcs r = in[v];
+                System.arraycopy(r.to, 0, downTargets, downOffsets[v], r.size);
+                System.arraycopy(r.weight, 0, downWeights, downOffsets[v], r.size);
+                System.arraycopy(r.middle, 0, downMiddle, downOffsets[v], r.size);
+            }
+            CompactGraph<T> upward = new CompactGraph<>(graph, upOffsets, upTargets, upWeights);
+            CompactGraph<T> downward = new CompactGraph<>(graph, downOffsets, downTargets, downWeights);
+            return new ContractionHierarchy<>(graph, rank, upward, upMiddle, downward, downMiddle, shortcuts,
+                    coreSize);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package airportnetwork;
+
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Point-to-point queries on a {@link ContractionHierarchy}.
+ * A forward search from the source follows only upward edges and a backward
+ * search from the target follows only (reversed) downward edges, so both climb
+ * the hierarchy and meet at the highest-ranked vertex of the shortest path.
+ * The result is unpacked into original edges and has the same cost as the path
+ * returned by {@link Dijkstra#getPath}; when several shortest paths tie, either
+ * may be returned. An engine is not thread-safe; use one per thread.
+ */
+public final class ContractionHierarchyQuery {
+
+    /** Reusable engine of the calling thread, rebound whenever a different hierarchy is queried; held softly. */
+    private static final ThreadLocal<SoftReference<ContractionHierarchyQuery>> ENGINES = new ThreadLocal<>();
+
+    /** The hierarchy this engine searches. */
+    private ContractionHierarchy<?> hierarchy;
+
+    /** State of the upward search from the source. */
+    private final SearchState forward;
+
+    /** State of the upward search from the target; predecessors point towards the target. */
+    private final SearchState backward;
+
+    /** Reusable buffers for unpacking shortcuts. */
+    private final ContractionHierarchy.PathBuilder builder = new ContractionHierarchy.PathBuilder();
+
+    /** Cost of the best path found by the last query. */
+    private double best;
+
+    /** Highest vertex of the best path found by the last query, or -1. */
+    private int meeting;
+
+    /**
+     * Constructs an engine for the given hierarchy.
+     *
+     * @param hierarchy the hierarchy to search
+     */
+    public ContractionHierarchyQuery(ContractionHierarchy<?> hierarchy) {
+        this.hierarchy = hierarchy;
+        this.forward = new SearchState(hierarchy.graph().numVertices());
+        this.backward = new SearchState(hierarchy.graph().numVertices());
+    }
+
+    /**
+     * Returns the hierarchy this engine searches.
+     *
+     * @return the hierarchy
+     */
+    public ContractionHierarchy<?> hierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * Binds this engine to another hierarchy. The arrays of both directions are
+     * reused if they are large enough and grown otherwise; the results of the
+     * last query are forgotten.
+     *
+     * @param hierarchy the hierarchy to search from now on
+     */
+    public void rebind(ContractionHierarchy<?> hierarchy) {
+        if (hierarchy == this.hierarchy) {
+            return;
+        }
+        this.hierarchy = hierarchy;
+        int n = hierarchy.graph().numVertices();
+        forward.ensureCapacity(n);
+        backward.ensureCapacity(n);
+        forward.reset();
+        backward.reset();
+        best = Double.POSITIVE_INFINITY;
+        meeting = -1;
+    }
+
+    /**
+     * Computes the shortest path from {@code source} to {@code target}.
+     *
+     * @param source the source vertex id
+     * @param target the target vertex id
+     * @return true if the target is reachable from the source
+     */
+    public boolean run(int source, int target) {
+        forward.reset();
+        backward.reset();
+        best = source == target ? 0.0 : Double.POSITIVE_INFINITY;
+        meeting = source == target ? source : -1;
+        forward.update(source, 0.0, -1, 0.0);
+        backward.update(target, 0.0, -1, 0.0);
+
+        // Each upward search may stop once its smallest key can no longer improve the best path.
+        CompactGraph<?> up = hierarchy.upward();
+        CompactGraph<?> down = hierarchy.downward();
+        boolean forwardTurn = true;
+        while (true) {
+            boolean forwardDone = forward.minPriority() >= best;
+            boolean backwardDone = backward.minPriority() >= best;
+            if (forwardDone && backwardDone) {
+                break;
+            }
+            if (forwardDone || (!backwardDone && !forwardTurn)) {
+                expand(down, backward, forward);
+            } else {
+                expand(up, forward, backward);
+            }
+            forwardTurn = !forwardTurn;
+        }
+        return meeting >= 0;
+    }
+
+    /**
+     * Settles the next vertex of one upward search and checks every improved
+     * neighbour against the distance the opposite search has for it.
+     */
+    private void expand(CompactGraph<?> g, SearchState self, SearchState other) {
+        int current = self.extractMin();
+        double currentDist = self.distance(current);
+        for (int e = g.edgeStart(current), end = g.edgeEnd(current); e < end; e++) {
+            int next = g.target(e);
+            double newDist = currentDist + g.weight(e);
+            if (newDist < self.distance(next)) {
+                self.update(next, newDist, current, newDist);
+                double candidate = newDist + other.distance(next);
+                if (candidate < best) {
+                    best = candidate;
+                    meeting = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cost of the shortest path found by the last query.
+     *
+     * @return the path cost, or infinity if the target was not reachable
+     */
+    public double distance() {
+        return best;
+    }
+
+    /**
+     * Returns the shortest path found by the last query, with every shortcut
+     * unpacked into the original vertices it bypasses.
+     *
+     * @return the vertex ids along the path, or an empty array if the target was not reachable
+     */
+    public int[] path() {
+        if (meeting < 0) {
+            return new int[0];
+        }
+        builder.clear();
+        int[] up = forward.path(meeting);
+        builder.add(up[0]);
+        for (int i = 0; i + 1 < up.length; i++) {
+            hierarchy.unpack(up[i], up[i + 1], builder);
+        }
+        for (int v = meeting, next = backward.predecessor(v); next >= 0; v = next, next = backward.predecessor(v)) {
+            hierarchy.unpack(v, next, builder);
+        }
+        return builder.toArray();
+    }
+
+    /**
+     * Returns the number of vertices settled by the last query in both directions together.
+     *
+     * @return the settled-node count
+     */
+    public int settledCount() {
+        return forward.settledCount() + backward.settledCount();
+    }
+
+    /**
+     * Retrieves the shortest path from a start airport to a goal airport using a
+     * contraction hierarchy built for the airport graph.
+     */
+    public static List<Airport> findPath(ContractionHierarchy<Airport> hierarchy, Airport start, Airport goal) {
+        CompactGraph<Airport> graph = hierarchy.graph();
+        int source = graph.idOf(start);
+        int target = graph.idOf(goal);
+        if (source < 0 || target < 0) {
+            return Collections.emptyList();
+        }
+        ContractionHierarchyQuery engine = engineFor(hierarchy);
+        if (!engine.run(source, target)) {
+            return Collections.emptyList();
+        }
+        return graph.toVertices(engine.path());
+    }
+
+    /**
+     * Returns the calling thread's engine for the given hierarchy, creating it on first use
+     * or after the previous one was collected.
+     */
+    static ContractionHierarchyQuery engineFor(ContractionHierarchy<?> hierarchy) {
+        SoftReference<ContractionHierarchyQuery> cached = ENGINES.get();
+        ContractionHierarchyQuery engine = cached == null ? null : cached.get();
+        if (engine == null) {
+            engine = new ContractionHierarchyQuery(hierarchy);
+            ENGINES.set(new SoftReference<>(engine));
+        } else if (engine.hierarchy() != hierarchy) {
+            engine.rebind(hierarchy);
+        }
+        return engine;
+    }
+}
@@ -0,0 +1,364 @@
+package airportnetwork;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel single-source shortest paths by delta-stepping (Meyer and Sanders)
+ * over the dense vertex ids of a {@link CompactGraph}.
+ * Tentative distances are grouped into buckets of width delta. The lowest non-empty
+ * bucket is emptied in rounds that relax the light edges (weight at most delta) of
+ * all its vertices at once, since none of them can improve another by more than
+ * one bucket; once it stays empty its vertices are final and their heavy edges
+ * are relaxed in one more round. Each round splits its vertices over the worker
+ * threads of a {@link ForkJoinPool}, which lower distances by compare-and-set, so
+ * the result equals that of {@link DijkstraEngine#run(int)}.
+ * <p>
+ * A small delta approaches Dijkstra's order with little parallelism per round; a
+ * large one gives bigger rounds but relaxes edges repeatedly. The default is the
+ * largest edge weight divided by the average out-degree. An engine is not
+ * thread-safe; use one per thread.
+ */
+public final class DeltaSteppingEngine {
+
+    /** Rounds with fewer vertices than this are relaxed on the calling thread. */
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    /** Vertices relaxed by one task. */
+    private static final int GRAIN = 512;
+
+    /** Largest number of buckets in the cyclic bucket array. */
+    private static final int MAX_BUCKETS = 1 << 20;
+
+    /** Bit pattern that no non-negative distance has; marks a vertex as never relaxed. */
+    private static final long NEVER = -1L;
+
+    /** The graph this engine searches. */
+    private final CompactGraph<?> graph;
+
+    /** Width of a bucket. */
+    private final double delta;
+
+    /** The pool the rounds run on. */
+    private final ForkJoinPool pool;
+
+    /**
+     * Tentative distance of every vertex as the bits of a non-negative double, whose
+     * order as longs is the order of the distances, so they can be lowered by CAS.
+     */
+    private final AtomicLongArray dist;
+
+    /** Distance bits at which every vertex last had its light edges relaxed, or {@link #NEVER}. */
+    private final AtomicLongArray relaxedAt;
+
+    /** Cyclic array of buckets; bucket i is stored at {@code i % buckets.length}. */
+    private final IntList[] buckets;
+
+    /** Marks the vertices whose heavy edges were relaxed in a bucket. */
+    private final int[] heavyStamp;
+
+    /** Generation of {@link #heavyStamp}. */
+    private int heavyGeneration;
+
+    /** Number of rounds of the last query. */
+    private int rounds;
+
+    /**
+     * Constructs an engine with the default delta that runs on the common fork/join pool.
+     *
+     * @param graph the graph to search
+     */
+    public DeltaSteppingEngine(CompactGraph<?> graph) {
+        this(graph, defaultDelta(graph), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs an engine.
+     *
+     * @param graph the graph to search; edge weights must not be negative
+     * @param delta the bucket width
+     * @param pool  the pool the rounds run on
+     * @throws IllegalArgumentException if delta is not positive, or so small that the
+     *                                  largest edge weight would span too many buckets
+     */
+    public DeltaSteppingEngine(CompactGraph<?> graph, double delta, ForkJoinPool pool) {
+        if (!(delta > 0)) {
+            throw new IllegalArgumentException("Delta must be positive: " + delta);
+        }
+        double span = Math.ceil(maxWeight(graph) / delta) + 2;
+        if (span > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Delta " + delta + " is too small for the largest edge weight");
+        }
+        this.graph = graph;
+        this.delta = delta;
+        this.pool = pool;
+        int n = graph.numVertices();
+        this.dist = new AtomicLongArray(n);
+        this.relaxedAt = new AtomicLongArray(n);
+        this.heavyStamp = new int[n];
+        this.buckets = new IntList[(int) span];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new IntList();
+        }
+    }
+
+    /**
+     * Returns the default bucket width for a graph: the largest edge weight divided by
+     * the average out-degree.
+     *
+     * @param graph the graph
+     * @return the default delta
+     */
+    public static double defaultDelta(CompactGraph<?> graph) {
+        double max = maxWeight(graph);
+        double degree = graph.numVertices() == 0 ? 1 : (double) graph.numEdges() / graph.numVertices();
+        double delta = max / Math.max(1.0, degree);
+        return delta > 0 ? delta : 1.0;
+    }
+
+    /**
+     * Returns the graph this engine searches.
+     *
+     * @return the graph
+     */
+    public CompactGraph<?> graph() {
+        return graph;
+    }
+
+    /**
+     * Returns the bucket width.
+     *
+     * @return delta
+     */
+    public double delta() {
+        return delta;
+    }
+
+    /**
+     * Computes the shortest path distances from {@code source} to every reachable vertex.
+     *
+     * @param source the source vertex id
+     */
+    public void run(int source) {
+        int n = graph.numVertices();
+        long infinity = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+        for (int v = 0; v < n; v++) {
+            dist.setPlain(v, infinity);
+            relaxedAt.setPlain(v, NEVER);
+        }
+        for (IntList bucket : buckets) {
+            bucket.clear();
+        }
+        rounds = 0;
+
+        dist.set(source, Double.doubleToRawLongBits(0.0));
+        buckets[0].add(source);
+        long pending = 1;
+        long current = 0;
+        IntList settled = new IntList();
+        while (pending > 0) {
+            while (buckets[slot(current)].isEmpty()) {
+                current++;
+            }
+            IntList frontier = buckets[slot(current)];
+            buckets[slot(current)] = new IntList();
+            pending -= frontier.size();
+            settled.clear();
+
+            // Light edges can only refill the current bucket, so repeat until it stays empty.
+            while (!frontier.isEmpty()) {
+                IntList[] result = relax(frontier, true);
+                settled.addAll(result[0]);
+                IntList next = new IntList();
+                IntList improved = result[1];
+                for (int i = 0; i < improved.size(); i++) {
+                    int v = improved.get(i);
+                    // Clamp rounding in bucketOf; a distance never falls below the current bucket.
+                    long b = Math.max(current, bucketOf(v));
+                    if (b == current) {
+                        next.add(v);
+                    } else {
+                        buckets[slot(b)].add(v);
+                        pending++;
+                    }
+                }
+                frontier = next;
+            }
+
+            // The distances of the settled vertices are final; relax their heavy edges once.
+            if (++heavyGeneration == Integer.MAX_VALUE) {
+                Arrays.fill(heavyStamp, 0);
+                heavyGeneration = 1;
+            }
+            IntList heavy = new IntList();
+            for (int i = 0; i < settled.size(); i++) {
+                int v = settled.get(i);
+                if (heavyStamp[v] != heavyGeneration) {
+                    heavyStamp[v] = heavyGeneration;
+                    heavy.add(v);
+                }
+            }
+            IntList improved = relax(heavy, false)[1];
+            for (int i = 0; i < improved.size(); i++) {
+                int v = improved.get(i);
+                buckets[slot(Math.max(current + 1, bucketOf(v)))].add(v);
+                pending++;
+            }
+            current++;
+        }
+    }
+
+    /**
+     * Returns the distance of a vertex found by the last query.
+     *
+     * @param v the vertex id
+     * @return the distance, or infinity if v was not reached
+     */
+    public double distance(int v) {
+        return Double.longBitsToDouble(dist.get(v));
+    }
+
+    /**
+     * Returns the distances found by the last query, indexed by vertex id.
+     *
+     * @return a new array of distances
+     */
+    public double[] distances() {
+        double[] result = new double[graph.numVertices()];
+        for (int v = 0; v < result.length; v++) {
+            result[v] = distance(v);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of relaxation rounds of the last query.
+     *
+     * @return the round count
+     */
+    public int rounds() {
+        return rounds;
+    }
+
+    /**
+     * Relaxes the light or heavy edges of a round of vertices, in parallel if the round
+     * is large enough.
+     *
+     * @return the vertices whose edges were relaxed, and the vertices whose distance was
+     * lowered (possibly several times each)
+     */
+    private IntList[] relax(IntList vertices, boolean light) {
+        rounds++;
+        int size = vertices.size();
+        if (size < PARALLEL_THRESHOLD) {
+            IntList[] result = {new IntList(), new IntList()};
+            relaxRange(vertices, 0, size, light, result[0], result[1]);
+            return result;
+        }
+        int tasks = (size + GRAIN - 1) / GRAIN;
+        IntList[] relaxed = new IntList[tasks];
+        IntList[] improved = new IntList[tasks];
+        pool.submit(() -> IntStream.range(0, tasks).parallel().forEach(t -> {
+            relaxed[t] = new IntList();
+            improved[t] = new IntList();
+            relaxRange(vertices, t * GRAIN, Math.min(size, (t + 1) * GRAIN), light, relaxed[t], improved[t]);
+        })).join();
+        IntList[] result = {new IntList(), new IntList()};
+        for (int t = 0; t < tasks; t++) {
+            result[0].addAll(relaxed[t]);
+            result[1].addAll(improved[t]);
+        }
+        return result;
+    }
+
+    private void relaxRange(IntList vertices, int from, int to, boolean light, IntList relaxed, IntList improved) {
+        for (int i = from; i < to; i++) {
+            int u = vertices.get(i);
+            long bits = dist.get(u);
+            if (light) {
+                // Claim the vertex at its current distance, so duplicates in a round relax it once.
+                long previous = relaxedAt.get(u);
+                if (previous == bits || !relaxedAt.compareAndSet(u, previous, bits)) {
+                    continue;
+                }
+            }
+            relaxed.add(u);
+            double du = Double.longBitsToDouble(bits);
+            for (int e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                double w = graph.weight(e);
+                if ((w <= delta) != light) {
+                    continue;
+                }
+                int v = graph.target(e);
+                long candidate = Double.doubleToRawLongBits(du + w);
+                long old = dist.get(v);
+                while (candidate < old) {
+                    if (dist.compareAndSet(v, old, candidate)) {
+                        improved.add(v);
+                        break;
+                    }
+                    old = dist.get(v);
+                }
+            }
+        }
+    }
+
+    private long bucketOf(int v) {
+        return (long) (Double.longBitsToDouble(dist.get(v)) / delta);
+    }
+
+    private int slot(long bucket) {
+        return (int) (bucket % buckets.length);
+    }
+
+    private static double maxWeight(CompactGraph<?> graph) {
+        double max = 0;
+        for (int v = 0, n = graph.numVertices(); v < n; v++) {
+            for (int e = graph.edgeStart(v), end = graph.edgeEnd(v); e < end; e++) {
+                max = Math.max(max, graph.weight(e));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * A growable list of ints.
+     */
+    private static final class IntList {
+        private int[] items = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        void addAll(IntList other) {
+            if (size + other.size > items.length) {
+                items = Arrays.copyOf(items, Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.items, 0, items, size, other.size);
+            size += other.size;
+        }
+
+        int get(int index) {
+            return items[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
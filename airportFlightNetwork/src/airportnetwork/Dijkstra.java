@@ -1,5 +1,6 @@
 package airportnetwork;
 
+import java.lang.ref.SoftReference;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -7,42 +8,35 @@ import java.util.List;
 import java.util.Map;
 
 public class Dijkstra {
+
+    /**
+     * Reusable engine of the calling thread, rebound whenever a different graph is queried.
+     * It is held softly: it survives ordinary collections, but an idle thread pins neither
+     * the last graph it queried nor the engine's arrays once memory is needed.
+     */
+    private static final ThreadLocal<SoftReference<DijkstraEngine>> ENGINES = new ThreadLocal<>();
+
     /**
      * Computes the shortest path distances from a start airport to all other airports
      * in the graph using Dijkstra's algorithm.
      */
 
     public static Map<Airport, Double> computeShortestPath(Graph<Airport> graph, Airport start) {
+        CompactGraph<Airport> compact = graph.currentSnapshot();
+        if (compact == null) {
+            Map<Airport, Double> distances = search(graph, start, null, Double.POSITIVE_INFINITY, null);
+            for (Airport airport : graph.getAllNodes()) {
+                distances.putIfAbsent(airport, Double.POSITIVE_INFINITY);
+            }
+            return distances;
+        }
+        double[] shortest = computeShortestPath(compact, start);
         // distances: Stores the shortest distance from the start airport to each airport.
         Map<Airport, Double> distances = new HashMap<>();
-        MiniHeap<Airport> minHeap = new MiniHeap<>();
-
-        // Initialize distances to infinity for all airports, indicating that initially
-        for (Airport airport : graph.getAllNodes()) {
-            distances.put(airport, Double.POSITIVE_INFINITY);
+        for (int v = 0; v < shortest.length; v++) {
+            distances.put(compact.vertex(v), shortest[v]);
         }
-
         distances.put(start, 0.0);// The distance from the start airport to itself is 0.
-        minHeap.insert(start, 0.0);
-// Dijkstra's algorithm main loop: Continue as long as there are airports
-        while (!minHeap.isEmpty()) {
-            MiniHeap.Node<Airport> current = minHeap.extractMin();
-            Airport currentAirport = current.key;
-
-            for (Edge<Airport> flight : graph.getEdges(currentAirport)) {
-                Airport dest = flight.getDestination();
-                double newDist = distances.get(currentAirport) + flight.getWeight();
-// If the newly calculated distance is shorter than the current shortest distance
-                if (newDist < distances.get(dest)) {
-                    distances.put(dest, newDist);
-                    if (minHeap.contains(dest)) {
-                        minHeap.decreaseKey(dest, newDist);
-                    } else {
-                        minHeap.insert(dest, newDist);
-                    }
-                }
-            }
-        }
 // Return the map containing the shortest distances from the start airport
         return distances;
     }
@@ -50,8 +44,23 @@ public class Dijkstra {
      * Finds the shortest distance between a start and end airport in the graph.
      */
     public static double findShortestDistance(Graph<Airport> graph, Airport start, Airport end) {
-        Map<Airport, Double> distances = computeShortestPath(graph, start);
-        return distances.getOrDefault(end, Double.POSITIVE_INFINITY);
+        return findShortestDistance(graph, start, end, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the shortest distance between a start and end airport, giving up once
+     * every airport closer than {@code maxCost} has been settled.
+     * Returns infinity if there is no route costing at most {@code maxCost}.
+     */
+    public static double findShortestDistance(Graph<Airport> graph, Airport start, Airport end, double maxCost) {
+        CompactGraph<Airport> compact = graph.currentSnapshot();
+        if (compact != null) {
+            return findShortestDistance(compact, start, end, maxCost);
+        }
+        if (!graph.getAllNodes().contains(start) || !graph.getAllNodes().contains(end)) {
+            return start.equals(end) ? 0.0 : Double.POSITIVE_INFINITY;
+        }
+        return search(graph, start, end, maxCost, null).getOrDefault(end, Double.POSITIVE_INFINITY);
     }
 
     /**
@@ -60,48 +69,206 @@ public class Dijkstra {
      */
 
     public static List<Airport> getPath(Graph<Airport> graph, Airport start, Airport goal) {
-        Map<Airport, Double> distances = new HashMap<>();
+        return getPath(graph, start, goal, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Retrieves the shortest path from a start airport to a goal airport if its
+     * cost is at most {@code maxCost}, or an empty list otherwise.
+     */
+    public static List<Airport> getPath(Graph<Airport> graph, Airport start, Airport goal, double maxCost) {
+        CompactGraph<Airport> compact = graph.currentSnapshot();
+        if (compact != null) {
+            return getPath(compact, start, goal, maxCost);
+        }
+        if (!graph.getAllNodes().contains(start) || !graph.getAllNodes().contains(goal)) {
+            return start.equals(goal) ? List.of(start) : Collections.emptyList();
+        }
         Map<Airport, Airport> previous = new HashMap<>();
-        MiniHeap<Airport> minHeap = new MiniHeap<>();
- // Initialize distances to infinity for all airports.
-        for (Airport airport : graph.getAllNodes()) {
-            distances.put(airport, Double.POSITIVE_INFINITY);
+        if (!search(graph, start, goal, maxCost, previous).containsKey(goal)) {
+            return Collections.emptyList();
         }
+        LinkedList<Airport> path = new LinkedList<>();
+        for (Airport current = goal; current != null; current = previous.get(current)) {
+            path.addFirst(current);
+        }
+        return path;
+    }
 
+    /**
+     * Dijkstra's algorithm over the adjacency lists of a graph, for graphs changed since
+     * their last snapshot, so that a query never pays for rebuilding it. Stops once
+     * {@code goal} (if not null) is settled and never queues an airport further than
+     * {@code maxCost}. Records predecessors in {@code previous} if it is not null.
+     *
+     * @return the distances of the airports reached; the others are absent
+     */
+    private static Map<Airport, Double> search(Graph<Airport> graph, Airport start, Airport goal, double maxCost,
+            Map<Airport, Airport> previous) {
+        long started = SearchMetrics.ENABLED ? System.nanoTime() : 0L;
+        SearchMetrics.Counters counters = SearchMetrics.ENABLED ? new SearchMetrics.Counters() : null;
+        Map<Airport, Double> distances = new HashMap<>();
+        MiniHeap<Airport> minHeap = new MiniHeap<>();
         distances.put(start, 0.0);
         minHeap.insert(start, 0.0);
-// Dijkstra's algorithm main loop.
+        if (SearchMetrics.ENABLED) {
+            counters.insert();
+        }
         while (!minHeap.isEmpty()) {
-            MiniHeap.Node<Airport> current = minHeap.extractMin();
-            Airport currentAirport = current.key;
-
+            Airport currentAirport = minHeap.extractMin().key;
+            if (SearchMetrics.ENABLED) {
+                counters.extractMin();
+            }
+            if (currentAirport.equals(goal)) {
+                break;
+            }
+            double currentDist = distances.get(currentAirport);
             for (Edge<Airport> flight : graph.getEdges(currentAirport)) {
+                if (SearchMetrics.ENABLED) {
+                    counters.relaxed++;
+                }
                 Airport dest = flight.getDestination();
-                double newDist = distances.get(currentAirport) + flight.getWeight();
-// If a shorter path to the destination airport is found.
-                if (newDist < distances.get(dest)) {
+                double newDist = currentDist + flight.getWeight();
+                if (newDist <= maxCost && newDist < distances.getOrDefault(dest, Double.POSITIVE_INFINITY)) {
                     distances.put(dest, newDist);
-                    previous.put(dest, currentAirport);
+                    if (previous != null) {
+                        previous.put(dest, currentAirport);
+                    }
                     if (minHeap.contains(dest)) {
                         minHeap.decreaseKey(dest, newDist);
+                        if (SearchMetrics.ENABLED) {
+                            counters.decreaseKey(false);
+                        }
                     } else {
                         minHeap.insert(dest, newDist);
+                        if (SearchMetrics.ENABLED) {
+                            counters.insert();
+                        }
                     }
                 }
             }
         }
-// If the goal airport is not reachable from the start airport, return an empty list.
-        if (!distances.containsKey(goal) || distances.get(goal) == Double.POSITIVE_INFINITY) {
+        if (SearchMetrics.ENABLED) {
+            // Every extracted airport is settled, since the heap never holds duplicates.
+            SearchMetrics.DIJKSTRA.record(System.nanoTime() - started, counters.extractMins, counters);
+        }
+        return distances;
+    }
+
+    /**
+     * Computes the shortest path distances from a start airport to all other airports
+     * of a compressed graph. The result is indexed by vertex id.
+     */
+    public static double[] computeShortestPath(CompactGraph<Airport> graph, Airport start) {
+        double[] distances = new double[graph.numVertices()];
+        int source = graph.idOf(start);
+        DijkstraEngine engine = engineFor(graph);
+        if (source >= 0) {
+            engine.run(source);
+        }
+        for (int v = 0; v < distances.length; v++) {
+            distances[v] = source >= 0 ? engine.distance(v) : Double.POSITIVE_INFINITY;
+        }
+        return distances;
+    }
+
+    /**
+     * Finds the shortest distance between a start and end airport in a compressed graph.
+     */
+    public static double findShortestDistance(CompactGraph<Airport> graph, Airport start, Airport end) {
+        return findShortestDistance(graph, start, end, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the shortest distance between a start and end airport in a compressed
+     * graph, or infinity if there is no route costing at most {@code maxCost}.
+     */
+    public static double findShortestDistance(CompactGraph<Airport> graph, Airport start, Airport end,
+            double maxCost) {
+        int source = graph.idOf(start);
+        int target = graph.idOf(end);
+        if (source < 0 || target < 0) {
+            return start.equals(end) ? 0.0 : Double.POSITIVE_INFINITY;
+        }
+        DijkstraEngine engine = engineFor(graph);
+        // Stop as soon as the end airport is settled instead of settling the whole graph.
+        return engine.run(source, target, maxCost) ? engine.distance(target) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Retrieves the shortest path from a start airport to a goal airport in a
+     * compressed graph.
+     */
+    public static List<Airport> getPath(CompactGraph<Airport> graph, Airport start, Airport goal) {
+        return getPath(graph, start, goal, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Retrieves the shortest path from a start airport to a goal airport in a
+     * compressed graph if its cost is at most {@code maxCost}, or an empty list otherwise.
+     */
+    public static List<Airport> getPath(CompactGraph<Airport> graph, Airport start, Airport goal, double maxCost) {
+        int source = graph.idOf(start);
+        int target = graph.idOf(goal);
+        if (source < 0 || target < 0) {
+            return start.equals(goal) ? List.of(start) : Collections.emptyList();
+        }
+        DijkstraEngine engine = engineFor(graph);
+        // Stop as soon as the goal airport is settled instead of settling the whole graph.
+        if (!engine.run(source, target, maxCost)) {
             return Collections.emptyList();
         }
+        return graph.toVertices(engine.path(target));
+    }
 
-        LinkedList<Airport> path = new LinkedList<>();
-        Airport current = goal;
-        while (current != null) {
-            path.addFirst(current);
-            current = previous.get(current);
+    /**
+     * Finds the shortest distance between a start and end airport in a compressed graph
+     * among the routes the constraints allow, such as those avoiding closed airports or
+     * with at most a few legs. Returns infinity if there is no such route.
+     */
+    public static double findShortestDistance(CompactGraph<Airport> graph, Airport start, Airport end,
+            RouteConstraints constraints) {
+        int source = graph.idOf(start);
+        int target = graph.idOf(end);
+        if (source < 0 || target < 0) {
+            return start.equals(end) ? 0.0 : Double.POSITIVE_INFINITY;
         }
- // Return the reconstructed shortest path.
-        return path;
+        DijkstraEngine engine = engineFor(graph);
+        return engine.run(source, target, constraints) ? engine.distance(target) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Retrieves the shortest path from a start airport to a goal airport in a compressed
+     * graph among the routes the constraints allow, or an empty list if there is none.
+     */
+    public static List<Airport> getPath(CompactGraph<Airport> graph, Airport start, Airport goal,
+            RouteConstraints constraints) {
+        int source = graph.idOf(start);
+        int target = graph.idOf(goal);
+        if (source < 0 || target < 0) {
+            return start.equals(goal) ? List.of(start) : Collections.emptyList();
+        }
+        DijkstraEngine engine = engineFor(graph);
+        if (!engine.run(source, target, constraints)) {
+            return Collections.emptyList();
+        }
+        return graph.toVertices(engine.path(target));
+    }
+
+    /**
+     * Returns the calling thread's engine for the given graph, creating it on first use
+     * or once the previous one has been collected.
+     */
+    static DijkstraEngine engineFor(CompactGraph<?> graph) {
+        SoftReference<DijkstraEngine> cached = ENGINES.get();
+        DijkstraEngine engine = cached == null ? null : cached.get();
+        if (engine == null) {
+            engine = new DijkstraEngine(graph);
+            ENGINES.set(new SoftReference<>(engine));
+        } else if (engine.graph() != graph) {
+            // Keep the arrays, so that querying each new version of a ConcurrentGraph allocates nothing.
+            engine.rebind(graph);
+        }
+        return engine;
     }
 }
@@ -0,0 +1,303 @@
+package airportnetwork;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra's algorithm over the dense vertex ids of a {@link CompactGraph}.
+ * An engine is bound to one graph at a time and keeps its distance and
+ * predecessor arrays between queries, so repeated queries allocate nothing
+ * that grows with the size of the graph. An engine is not thread-safe; use
+ * one per thread.
+ */
+public final class DijkstraEngine {
+
+    /** The graph this engine searches. */
+    private CompactGraph<?> graph;
+
+    /** Distances, predecessors and frontier of the last query. */
+    private final SearchState state;
+
+    /** Marks the targets of a multi-target query, allocated by the first one. */
+    private int[] targetStamp;
+
+    /** Generation of the current multi-target query in {@link #targetStamp}. */
+    private int targetGeneration;
+
+    /** Label search for leg-limited queries, allocated by the first one. */
+    private LegSearch legSearch;
+
+    /** Whether the last query ran on {@link #legSearch} rather than {@link #state}. */
+    private boolean byLegs;
+
+    /**
+     * Constructs an engine for the given graph.
+     *
+     * @param graph the graph to search
+     */
+    public DijkstraEngine(CompactGraph<?> graph) {
+        this.graph = graph;
+        this.state = new SearchState(graph.numVertices());
+    }
+
+    /**
+     * Selects the priority queue used by the following queries. The default is
+     * {@link QueueType#FOUR_ARY_HEAP}.
+     *
+     * @param type the kind of priority queue
+     */
+    public void useQueue(QueueType type) {
+        state.useQueue(type);
+    }
+
+    /**
+     * Returns the graph this engine searches.
+     *
+     * @return the graph
+     */
+    public CompactGraph<?> graph() {
+        return graph;
+    }
+
+    /**
+     * Binds this engine to another graph, such as a newer version of a
+     * {@link ConcurrentGraph}. The arrays of the previous graph are reused if
+     * they are large enough and grown otherwise; the results of the last query
+     * are forgotten.
+     *
+     * @param graph the graph to search from now on
+     */
+    public void rebind(CompactGraph<?> graph) {
+        if (graph == this.graph) {
+            return;
+        }
+        this.graph = graph;
+        state.ensureCapacity(graph.numVertices());
+        state.reset();
+        legSearch = null;
+        byLegs = false;
+        if (targetStamp != null && targetStamp.length < graph.numVertices()) {
+            targetStamp = null;
+        }
+    }
+
+    /**
+     * Computes the shortest path distances from {@code source} to every reachable vertex.
+     *
+     * @param source the source vertex id
+     */
+    public void run(int source) {
+        search(source, -1, Double.POSITIVE_INFINITY, null);
+    }
+
+    /**
+     * Computes the shortest path from {@code source} to {@code target}, stopping
+     * as soon as the target is settled. Only the distances of settled vertices
+     * are final afterwards.
+     *
+     * @param source the source vertex id
+     * @param target the target vertex id
+     * @return true if the target was reached
+     */
+    public boolean run(int source, int target) {
+        return search(source, target, Double.POSITIVE_INFINITY, null);
+    }
+
+    /**
+     * Computes the shortest path from {@code source} to {@code target} if its
+     * cost is at most {@code maxCost}. Vertices beyond the bound are never
+     * queued, so "no route under X" queries fail after exploring only the ball
+     * of radius {@code maxCost} around the source.
+     *
+     * @param source  the source vertex id
+     * @param target  the target vertex id
+     * @param maxCost the largest path cost of interest
+     * @return true if the target was reached within the bound
+     */
+    public boolean run(int source, int target, double maxCost) {
+        return search(source, target, maxCost, null);
+    }
+
+    /**
+     * Computes the shortest path distances from {@code source} to every vertex
+     * whose distance is at most {@code maxCost}.
+     *
+     * @param source  the source vertex id
+     * @param maxCost the search radius
+     */
+    public void runWithin(int source, double maxCost) {
+        search(source, -1, maxCost, null);
+    }
+
+    /**
+     * Computes the shortest path from {@code source} to {@code target} among the
+     * routes the constraints allow. Without a leg limit this costs about as much as
+     * an unconstrained query; with one, vertices may be settled once per leg count.
+     * Afterwards, distances and paths are those of the cheapest allowed routes.
+     *
+     * @param source      the source vertex id
+     * @param target      the target vertex id
+     * @param constraints the constraints, built for this engine's graph
+     * @return true if the target was reached
+     * @throws IllegalArgumentException if the constraints were built for another graph
+     */
+    public boolean run(int source, int target, RouteConstraints constraints) {
+        if (constraints.graph() != graph) {
+            throw new IllegalArgumentException("Constraints were built for a different graph");
+        }
+        if (!constraints.limitsLegs()) {
+            return search(source, target, constraints.maxCost(), constraints);
+        }
+        if (legSearch == null) {
+            legSearch = new LegSearch(graph);
+        }
+        byLegs = true;
+        long started = SearchMetrics.ENABLED ? System.nanoTime() : 0L;
+        boolean found = legSearch.search(source, target, constraints, null);
+        if (SearchMetrics.ENABLED) {
+            legSearch.record(SearchMetrics.DIJKSTRA, started);
+        }
+        return found;
+    }
+
+    /**
+     * Computes the shortest path distances from {@code source} to every vertex the
+     * constraints allow a route to.
+     *
+     * @param source      the source vertex id
+     * @param constraints the constraints, built for this engine's graph
+     * @throws IllegalArgumentException if the constraints were built for another graph
+     */
+    public void run(int source, RouteConstraints constraints) {
+        run(source, -1, constraints);
+    }
+
+    /**
+     * Computes the shortest path distances from {@code source} to every vertex in
+     * {@code targets}, stopping as soon as all of them are settled. Only the distances
+     * of settled vertices are final afterwards.
+     *
+     * @param source  the source vertex id
+     * @param targets the target vertex ids; duplicates are allowed
+     * @return the number of distinct targets reached
+     */
+    public int run(int source, int[] targets) {
+        if (targetStamp == null) {
+            targetStamp = new int[graph.numVertices()];
+        }
+        if (++targetGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(targetStamp, 0);
+            targetGeneration = 1;
+        }
+        int remaining = 0;
+        for (int t : targets) {
+            if (targetStamp[t] != targetGeneration) {
+                targetStamp[t] = targetGeneration;
+                remaining++;
+            }
+        }
+        return remaining - search(source, -1, Double.POSITIVE_INFINITY, null, remaining);
+    }
+
+    /**
+     * Runs {@link #search(int, int, double, RouteConstraints, int)} without targets
+     * marked in {@link #targetStamp}.
+     */
+    private boolean search(int source, int target, double maxCost, RouteConstraints constraints) {
+        search(source, target, maxCost, constraints, -1);
+        return target < 0 || state.isReached(target);
+    }
+
+    /**
+     * Dijkstra's main loop. Stops when {@code target} (if not -1) is extracted
+     * from the frontier, or once {@code remaining} (if not -1) of the vertices
+     * marked in {@link #targetStamp} have been, and never queues a vertex
+     * further than {@code maxCost}. Edges that {@code constraints}, if not null,
+     * reject are skipped.
+     *
+     * @return the number of marked vertices left to extract, or -1
+     */
+    private int search(int source, int target, double maxCost, RouteConstraints constraints, int remaining) {
+        long started = SearchMetrics.ENABLED ? System.nanoTime() : 0L;
+        byLegs = false;
+        state.reset();
+        state.update(source, 0.0, -1, 0.0);
+        while (remaining != 0 && !state.isEmpty()) {
+            int current = state.extractMin();
+            if (current == target) {
+                break;
+            }
+            if (remaining > 0 && targetStamp[current] == targetGeneration) {
+                remaining--;
+            }
+            double currentDist = state.distance(current);
+
+            for (int e = graph.edgeStart(current), end = graph.edgeEnd(current); e < end; e++) {
+                int dest = graph.target(e);
+                if (constraints != null && !constraints.allows(e, dest)) {
+                    continue;
+                }
+                if (SearchMetrics.ENABLED) {
+                    state.counters.relaxed++;
+                }
+                double newDist = currentDist + graph.weight(e);
+                if (newDist <= maxCost && newDist < state.distance(dest)) {
+                    state.update(dest, newDist, current, newDist);
+                }
+            }
+        }
+        if (SearchMetrics.ENABLED) {
+            state.record(SearchMetrics.DIJKSTRA, started);
+        }
+        return remaining;
+    }
+
+    /**
+     * Returns the distance of a vertex found by the last query.
+     *
+     * @param v the vertex id
+     * @return the distance, or infinity if v was not reached
+     */
+    public double distance(int v) {
+        return byLegs ? legSearch.distance(v) : state.distance(v);
+    }
+
+    /**
+     * Returns true if the last query reached the vertex.
+     *
+     * @param v the vertex id
+     * @return whether v was reached
+     */
+    public boolean isReached(int v) {
+        return byLegs ? legSearch.isReached(v) : state.isReached(v);
+    }
+
+    /**
+     * Returns the predecessor of a vertex on the shortest path found by the last query.
+     *
+     * @param v the vertex id
+     * @return the predecessor id, or -1 for the source and unreached vertices
+     */
+    public int predecessor(int v) {
+        return byLegs ? legSearch.predecessor(v) : state.predecessor(v);
+    }
+
+    /**
+     * Returns the shortest path found by the last query from the source to {@code target}.
+     *
+     * @param target the target vertex id
+     * @return the vertex ids along the path, or an empty array if target was not reached
+     */
+    public int[] path(int target) {
+        return byLegs ? legSearch.path(target) : state.path(target);
+    }
+
+    /**
+     * Returns the number of vertices settled by the last query; a leg-limited query
+     * counts a vertex once per time it is settled.
+     *
+     * @return the settled-node count
+     */
+    public int settledCount() {
+        return byLegs ? legSearch.settledCount() : state.settledCount();
+    }
+}
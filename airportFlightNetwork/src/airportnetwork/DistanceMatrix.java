@@ -0,0 +1,172 @@
+package airportnetwork;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * A dense table of shortest path distances from a set of sources to a set of targets.
+ * One Dijkstra search is run per source, stopping as soon as every target is
+ * settled. The searches fan out over a {@link ForkJoinPool}; each worker thread
+ * reuses its own {@link DijkstraEngine}, so a batch allocates nothing per source
+ * beyond its row of the table, and throughput grows with the number of workers.
+ */
+public final class DistanceMatrix {
+
+    /** Number of rows, one per source. */
+    private final int rows;
+
+    /** Number of columns, one per target. */
+    private final int columns;
+
+    /** Distances in row-major order. */
+    private final double[] distances;
+
+    private DistanceMatrix(int rows, int columns, double[] distances) {
+        this.rows = rows;
+        this.columns = columns;
+        this.distances = distances;
+    }
+
+    /**
+     * Computes the distances between airports of a graph on the common fork/join pool.
+     * See {@link #compute(CompactGraph, List, List)}.
+     *
+     * @param graph   the graph
+     * @param sources the source vertices, one row each
+     * @param targets the target vertices, one column each
+     * @param <T>     the vertex type
+     * @return the distance matrix
+     */
+    public static <T> DistanceMatrix compute(Graph<T> graph, List<T> sources, List<T> targets) {
+        return compute(graph.freeze(), sources, targets);
+    }
+
+    /**
+     * Computes the distances between vertices of a compressed graph on the common fork/join
+     * pool. Rows and columns of vertices that are not in the graph hold infinity, except
+     * for a vertex paired with itself.
+     *
+     * @param graph   the graph
+     * @param sources the source vertices, one row each
+     * @param targets the target vertices, one column each
+     * @param <T>     the vertex type
+     * @return the distance matrix
+     */
+    public static <T> DistanceMatrix compute(CompactGraph<T> graph, List<T> sources, List<T> targets) {
+        int[] sourceIds = ids(graph, sources);
+        DistanceMatrix matrix = compute(graph, sourceIds, ids(graph, targets));
+        for (int i = 0; i < sourceIds.length; i++) {
+            if (sourceIds[i] < 0) {
+                for (int j = 0; j < matrix.columns; j++) {
+                    if (sources.get(i).equals(targets.get(j))) {
+                        matrix.distances[i * matrix.columns + j] = 0.0;
+                    }
+                }
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Computes the distances between vertex ids of a compressed graph on the common
+     * fork/join pool. An id of -1 stands for a vertex that is not in the graph; its row
+     * or column holds infinity.
+     *
+     * @param graph   the graph
+     * @param sources the source vertex ids, one row each
+     * @param targets the target vertex ids, one column each
+     * @return the distance matrix
+     */
+    public static DistanceMatrix compute(CompactGraph<?> graph, int[] sources, int[] targets) {
+        return compute(graph, sources, targets, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the distances between vertex ids of a compressed graph, running the
+     * searches on the given pool, e.g. to bound the number of threads a batch job uses.
+     *
+     * @param graph   the graph
+     * @param sources the source vertex ids, one row each
+     * @param targets the target vertex ids, one column each
+     * @param pool    the pool running the searches
+     * @return the distance matrix
+     * @throws IllegalArgumentException if the matrix would have more than 2<sup>31</sup> entries
+     */
+    public static DistanceMatrix compute(CompactGraph<?> graph, int[] sources, int[] targets, ForkJoinPool pool) {
+        int columns = targets.length;
+        if ((long) sources.length * columns > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Matrix too large: " + sources.length + " x " + columns);
+        }
+        double[] distances = new double[sources.length * columns];
+        int[] known = IntStream.of(targets).filter(t -> t >= 0).toArray();
+        // A parallel stream started from inside a pool runs its tasks in that pool.
+        pool.submit(() -> IntStream.range(0, sources.length).parallel().forEach(i -> {
+            int offset = i * columns;
+            if (sources[i] < 0) {
+                Arrays.fill(distances, offset, offset + columns, Double.POSITIVE_INFINITY);
+                return;
+            }
+            DijkstraEngine engine = Dijkstra.engineFor(graph);
+            engine.run(sources[i], known);
+            for (int j = 0; j < columns; j++) {
+                distances[offset + j] = targets[j] < 0 ? Double.POSITIVE_INFINITY : engine.distance(targets[j]);
+            }
+        })).join();
+        return new DistanceMatrix(sources.length, columns, distances);
+    }
+
+    /**
+     * Returns the number of sources.
+     *
+     * @return the number of rows
+     */
+    public int numSources() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of targets.
+     *
+     * @return the number of columns
+     */
+    public int numTargets() {
+        return columns;
+    }
+
+    /**
+     * Returns the distance from a source to a target.
+     *
+     * @param source the index of the source in the list it was given in
+     * @param target the index of the target in the list it was given in
+     * @return the distance, or infinity if the target is unreachable
+     */
+    public double distance(int source, int target) {
+        if (source < 0 || source >= rows || target < 0 || target >= columns) {
+            throw new IndexOutOfBoundsException("No entry (" + source + ", " + target + ") in a "
+                    + rows + " x " + columns + " matrix");
+        }
+        return distances[source * columns + target];
+    }
+
+    /**
+     * Returns the distances from one source to every target.
+     *
+     * @param source the index of the source
+     * @return a copy of the row
+     */
+    public double[] row(int source) {
+        double[] row = new double[columns];
+        System.arraycopy(distances, source * columns, row, 0, columns);
+        return row;
+    }
+
+    private static <T> int[] ids(CompactGraph<T> graph, List<T> vertices) {
+        int[] ids = new int[vertices.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = graph.idOf(vertices.get(i));
+        }
+        return ids;
+    }
+}
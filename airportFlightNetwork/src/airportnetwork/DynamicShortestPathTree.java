@@ -0,0 +1,280 @@
+package airportnetwork;
+
+import java.util.*;
+
+/**
+ * The shortest path tree of one source in a {@link Graph}, kept up to date as the
+ * graph changes instead of being recomputed (Ramalingam and Reps).
+ * <p>
+ * The tree listens to its graph. An edge that is added, or whose weight drops, can
+ * only shorten routes through it, so the improvement is propagated from its target
+ * by Dijkstra's algorithm over the vertices it reaches. An edge of the tree that is
+ * removed, or whose weight grows, can only lengthen routes within the subtree below
+ * it: that subtree is cut off, each of its vertices is seeded with its best edge
+ * from the rest of the tree, and Dijkstra's algorithm runs over the subtree alone.
+ * Any other change leaves the tree as it is. Either way the work is proportional to
+ * the vertices whose distance changes and their edges, and the distances equal those
+ * of a full {@link Dijkstra#computeShortestPath(Graph, Airport)}; among routes of the
+ * same cost the predecessor may differ.
+ * <p>
+ * Edge weights must not be negative. A tree is not thread-safe, like its graph.
+ *
+ * @param <T> The type representing the vertices in the graph.
+ */
+public final class DynamicShortestPathTree<T> implements GraphListener<T> {
+
+    /** The graph the tree spans. */
+    private final Graph<T> graph;
+
+    /** The source of every route. */
+    private final T source;
+
+    /**
+     * Distance and predecessor of every reached vertex; unreached vertices are absent.
+     * The source is always present, as it is for {@link Dijkstra}, even if it is not in the graph.
+     */
+    private final Map<T, Node<T>> nodes = new HashMap<>();
+
+    /** Number of distances reset or lowered by the last change. */
+    private int lastRepairSize;
+
+    /**
+     * Computes the shortest path tree of a source and registers it with the graph.
+     *
+     * @param graph  the graph to span
+     * @param source the source vertex
+     */
+    public DynamicShortestPathTree(Graph<T> graph, T source) {
+        this.graph = graph;
+        this.source = source;
+        nodes.put(source, new Node<>(0.0, null));
+        MiniHeap<T> queue = new MiniHeap<>();
+        queue.insert(source, 0.0);
+        propagate(queue);
+        lastRepairSize = nodes.size();
+        graph.addListener(this);
+    }
+
+    /**
+     * Returns the source of the tree.
+     *
+     * @return the source vertex
+     */
+    public T source() {
+        return source;
+    }
+
+    /**
+     * Returns the shortest distance from the source to a vertex.
+     *
+     * @param v the vertex
+     * @return the distance, or infinity if v is not reachable
+     */
+    public double distance(T v) {
+        Node<T> node = nodes.get(v);
+        return node == null ? Double.POSITIVE_INFINITY : node.dist;
+    }
+
+    /**
+     * Returns the vertex before {@code v} on its shortest path from the source.
+     *
+     * @param v the vertex
+     * @return the predecessor, or null for the source and unreachable vertices
+     */
+    public T predecessor(T v) {
+        Node<T> node = nodes.get(v);
+        return node == null ? null : node.pred;
+    }
+
+    /**
+     * Returns the shortest path from the source to a vertex.
+     *
+     * @param target the target vertex
+     * @return the vertices along the path, or an empty list if target is not reachable
+     */
+    public List<T> getPath(T target) {
+        if (!nodes.containsKey(target)) {
+            return Collections.emptyList();
+        }
+        List<T> path = new ArrayList<>();
+        for (T v = target; v != null; v = nodes.get(v).pred) {
+            path.add(v);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Returns the number of vertices reachable from the source.
+     *
+     * @return the reached-vertex count
+     */
+    public int reachedCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the number of distances reset or lowered by the last change to the graph,
+     * where a vertex cut off and then reached again counts twice. The work of a repair
+     * is proportional to these vertices and their edges.
+     *
+     * @return the repair size
+     */
+    public int lastRepairSize() {
+        return lastRepairSize;
+    }
+
+    /**
+     * Unregisters the tree from its graph. A closed tree no longer follows the graph.
+     */
+    public void close() {
+        graph.removeListener(this);
+    }
+
+    @Override
+    public void edgeAdded(Edge<T> edge) {
+        lastRepairSize = 0;
+        lower(edge);
+    }
+
+    @Override
+    public void edgeRemoved(Edge<T> edge) {
+        lastRepairSize = 0;
+        cut(edge);
+    }
+
+    @Override
+    public void edgeReweighted(Edge<T> edge, Edge<T> replacement) {
+        lastRepairSize = 0;
+        if (replacement.getWeight() < edge.getWeight()) {
+            lower(replacement);
+        } else if (replacement.getWeight() > edge.getWeight()) {
+            // The subtree is reseeded from the current graph, which already has the new weight.
+            cut(edge);
+        }
+    }
+
+    @Override
+    public void vertexRemoved(T vertex) {
+        // Its edges are gone, so it is already unreachable unless it was the source, which
+        // stays at distance 0 but no longer reaches anything.
+        if (vertex.equals(source)) {
+            lastRepairSize = nodes.size() - 1;
+            nodes.clear();
+            nodes.put(source, new Node<>(0.0, null));
+        }
+    }
+
+    /**
+     * Propagates an edge that may shorten the route to its target.
+     */
+    private void lower(Edge<T> edge) {
+        Node<T> from = nodes.get(edge.getSource());
+        if (from == null) {
+            return;
+        }
+        T v = edge.getDestination();
+        double candidate = from.dist + edge.getWeight();
+        if (candidate < distance(v)) {
+            nodes.put(v, new Node<>(candidate, edge.getSource()));
+            MiniHeap<T> queue = new MiniHeap<>();
+            queue.insert(v, candidate);
+            lastRepairSize++;
+            propagate(queue);
+        }
+    }
+
+    /**
+     * Recomputes the subtree below an edge that was removed or made heavier, if the
+     * edge was a tree edge.
+     */
+    private void cut(Edge<T> edge) {
+        T u = edge.getSource();
+        T v = edge.getDestination();
+        Node<T> from = nodes.get(u);
+        Node<T> to = nodes.get(v);
+        if (from == null || to == null || !u.equals(to.pred) || from.dist + edge.getWeight() != to.dist) {
+            return;
+        }
+
+        // 1. Cut off the subtree of v: every vertex whose predecessor chain runs through v.
+        List<T> subtree = new ArrayList<>();
+        subtree.add(v);
+        nodes.remove(v);
+        for (int i = 0; i < subtree.size(); i++) {
+            T x = subtree.get(i);
+            for (Edge<T> e : graph.outgoingEdges(x)) {
+                T y = e.getDestination();
+                Node<T> child = nodes.get(y);
+                if (child != null && x.equals(child.pred)) {
+                    nodes.remove(y);
+                    subtree.add(y);
+                }
+            }
+        }
+        lastRepairSize += subtree.size();
+
+        // 2. Seed every cut vertex with its best edge from the rest of the tree. The seeds
+        //    are recorded only once all are known, so none is taken from another cut vertex.
+        List<Node<T>> seeds = new ArrayList<>(subtree.size());
+        for (T y : subtree) {
+            Node<T> best = null;
+            for (Edge<T> e : graph.incomingEdges(y)) {
+                Node<T> x = nodes.get(e.getSource());
+                if (x != null && (best == null || x.dist + e.getWeight() < best.dist)) {
+                    best = new Node<>(x.dist + e.getWeight(), e.getSource());
+                }
+            }
+            seeds.add(best);
+        }
+        MiniHeap<T> queue = new MiniHeap<>();
+        for (int i = 0; i < subtree.size(); i++) {
+            Node<T> seed = seeds.get(i);
+            if (seed != null) {
+                nodes.put(subtree.get(i), seed);
+                queue.insert(subtree.get(i), seed.dist);
+            }
+        }
+
+        // 3. Settle the subtree in order of distance.
+        propagate(queue);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the queued vertices, whose distances are already
+     * recorded, lowering the distance of every vertex it can improve.
+     */
+    private void propagate(MiniHeap<T> queue) {
+        while (!queue.isEmpty()) {
+            T x = queue.extractMin().key;
+            double dx = nodes.get(x).dist;
+            for (Edge<T> e : graph.outgoingEdges(x)) {
+                T y = e.getDestination();
+                double candidate = dx + e.getWeight();
+                Node<T> node = nodes.get(y);
+                if (node == null || candidate < node.dist) {
+                    nodes.put(y, new Node<>(candidate, x));
+                    lastRepairSize++;
+                    if (queue.contains(y)) {
+                        queue.decreaseKey(y, candidate);
+                    } else {
+                        queue.insert(y, candidate);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The distance of a reached vertex and its predecessor on a shortest path.
+     */
+    private static final class Node<T> {
+        final double dist;
+        final T pred;
+
+        Node(double dist, T pred) {
+            this.dist = dist;
+            this.pred = pred;
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package airportnetwork;
 /**
  * Represents a flight connection between two airports.
+ * A scheduled flight also has departure and arrival times, as whole numbers in
+ * one unit chosen by the caller (for example minutes since midnight of the first
+ * day of a {@link Timetable}).
 */
 public class Flight {
+    /** Departure and arrival time of a flight without a schedule. */
+    public static final int UNSCHEDULED = Integer.MIN_VALUE;
+
     private final Airport source;
     private final Airport destination;
     private final double weight; // Can be distance, price, etc.
+    private final int departure; // Departure time, or UNSCHEDULED
+    private final int arrival; // Arrival time, or UNSCHEDULED
 /**
      * Constructs a Flight object.
      */
@@ -13,10 +21,54 @@ public class Flight {
         this.source = source;
         this.destination = destination;
         this.weight = weight;
+        this.departure = UNSCHEDULED;
+        this.arrival = UNSCHEDULED;
+    }
+
+    /**
+     * Constructs a scheduled Flight object, whose weight is its duration.
+     *
+     * @throws IllegalArgumentException if departure is {@link #UNSCHEDULED} or it arrives before it departs
+     */
+    public Flight(Airport source, Airport destination, int departure, int arrival) {
+        if (departure == UNSCHEDULED) {
+            throw new IllegalArgumentException("Flight from " + source + " to " + destination
+                    + " has no departure time");
+        }
+        if (arrival < departure) {
+            throw new IllegalArgumentException("Flight from " + source + " to " + destination
+                    + " arrives at " + arrival + " before departing at " + departure);
+        }
+        this.source = source;
+        this.destination = destination;
+        this.weight = (double) arrival - departure;
+        this.departure = departure;
+        this.arrival = arrival;
     }
 /**
      * Gets the weight of the flight.
      */
     public double getWeight() { return weight; }
+    public Airport getSource() { return source; }
     public Airport getDestination() { return destination; }
+
+    /**
+     * Gets the departure time, or {@link #UNSCHEDULED}.
+     */
+    public int getDeparture() { return departure; }
+
+    /**
+     * Gets the arrival time, or {@link #UNSCHEDULED}.
+     */
+    public int getArrival() { return arrival; }
+
+    /**
+     * Tells whether the flight has departure and arrival times.
+     */
+    public boolean isScheduled() { return departure != UNSCHEDULED; }
+
+    @Override
+    public String toString() {
+        return source + "->" + destination + (isScheduled() ? "@" + departure + "-" + arrival : "");
+    }
 }
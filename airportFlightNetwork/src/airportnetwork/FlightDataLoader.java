@@ -0,0 +1,524 @@
+package airportnetwork;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams airport and flight records from CSV files in the OpenFlights layout
+ * into a {@link Graph}.
+ * Files are read through a {@link FileChannel} into one fixed-size buffer and
+ * parsed in place: fields are located as byte ranges, numbers are parsed
+ * straight from the bytes, and airport codes are looked up in a table keyed by
+ * their bytes, so a route record creates no {@code String}s. Only the first
+ * sighting of an airport allocates its code and name. Memory use is therefore
+ * bounded by the buffer and the graph, however large the file.
+ * <p>
+ * Airport files follow OpenFlights {@code airports.dat}: id, name, city,
+ * country, IATA, ICAO, latitude, longitude, ... Each airport is keyed by its
+ * IATA code, or its ICAO code when it has none, and both codes resolve to it.
+ * Route files follow {@code routes.dat}, with the source and destination codes
+ * in columns 2 and 4; other layouts can be read with {@link #routeColumns}.
+ * Routes without a weight column are weighted by great-circle distance.
+ */
+public final class FlightDataLoader {
+
+    /** Receives progress reports while a file is loaded. */
+    public interface ProgressListener {
+
+        /**
+         * Called periodically and once at the end of a file.
+         *
+         * @param bytesRead  the number of bytes read so far
+         * @param totalBytes the size of the file
+         */
+        void progress(long bytesRead, long totalBytes);
+    }
+
+    /** Size of the read buffer; also the longest line that can be read. */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /** Bytes read between two progress reports. */
+    private static final long PROGRESS_INTERVAL = 64L << 20;
+
+    /** Fields beyond this count are ignored. */
+    private static final int MAX_FIELDS = 16;
+
+    /** Powers of ten that are exact as doubles, for the number parsing fast path. */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** The graph records are loaded into. */
+    private final Graph<Airport> graph;
+
+    /** Airports by IATA and ICAO code. */
+    private final CodeTable airports = new CodeTable();
+
+    /** Start of every field of the current line, excluding quotes. */
+    private final int[] fieldStart = new int[MAX_FIELDS];
+
+    /** End of every field of the current line, excluding quotes. */
+    private final int[] fieldEnd = new int[MAX_FIELDS];
+
+    private ProgressListener listener;
+    private int sourceColumn = 2;
+    private int targetColumn = 4;
+    private int weightColumn = -1;
+    private boolean skipDuplicates = true;
+    private boolean createMissing = true;
+
+    /** Lines skipped by the last load because they were malformed or referred to unknown airports. */
+    private long skippedLines;
+
+    /**
+     * Constructs a loader that adds airports and flights to the given graph.
+     * Airports already in the graph are not known to the loader.
+     *
+     * @param graph the graph to load into
+     */
+    public FlightDataLoader(Graph<Airport> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Sets the listener that receives progress reports.
+     *
+     * @param listener the listener, or null for none
+     * @return this loader
+     */
+    public FlightDataLoader onProgress(ProgressListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Sets the columns of route files holding the source code, destination code and weight.
+     *
+     * @param source the zero-based source column
+     * @param target the zero-based destination column
+     * @param weight the zero-based weight column, or -1 to weight by great-circle distance
+     * @return this loader
+     */
+    public FlightDataLoader routeColumns(int source, int target, int weight) {
+        if (source < 0 || target < 0 || source >= MAX_FIELDS || target >= MAX_FIELDS || weight >= MAX_FIELDS) {
+            throw new IllegalArgumentException("Column out of range");
+        }
+        this.sourceColumn = source;
+        this.targetColumn = target;
+        this.weightColumn = weight;
+        return this;
+    }
+
+    /**
+     * Sets whether a route is skipped when the graph already has a flight between the same
+     * airports, as happens when several airlines fly it. Enabled by default.
+     *
+     * @param skip true to skip duplicate routes
+     * @return this loader
+     */
+    public FlightDataLoader skipDuplicateRoutes(boolean skip) {
+        this.skipDuplicates = skip;
+        return this;
+    }
+
+    /**
+     * Sets whether a route to an airport that has not been loaded creates that airport,
+     * named by its code and without coordinates, instead of being skipped. Enabled by default.
+     *
+     * @param create true to create missing airports
+     * @return this loader
+     */
+    public FlightDataLoader createMissingAirports(boolean create) {
+        this.createMissing = create;
+        return this;
+    }
+
+    /**
+     * Returns the airport with the given IATA or ICAO code loaded so far.
+     *
+     * @param code the airport code
+     * @return the airport, or null if unknown
+     */
+    public Airport airport(String code) {
+        byte[] bytes = code.getBytes(StandardCharsets.UTF_8);
+        return airports.get(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Returns the number of lines the last load skipped because they were malformed,
+     * lacked a code, or referred to an unknown airport.
+     *
+     * @return the number of skipped lines
+     */
+    public long skippedLines() {
+        return skippedLines;
+    }
+
+    /**
+     * Loads an airport file and adds every new airport to the graph.
+     *
+     * @param file the airport file
+     * @return the number of airports added
+     * @throws IOException if the file cannot be read or holds a line longer than the buffer
+     */
+    public int loadAirports(Path file) throws IOException {
+        int before = graph.numVertices();
+        read(file, this::airportLine);
+        return graph.numVertices() - before;
+    }
+
+    /**
+     * Loads a route file and adds a flight to the graph for every route.
+     *
+     * @param file the route file
+     * @return the number of flights added
+     * @throws IOException if the file cannot be read or holds a line longer than the buffer
+     */
+    public int loadRoutes(Path file) throws IOException {
+        int before = graph.numEdges();
+        read(file, this::routeLine);
+        return graph.numEdges() - before;
+    }
+
+    /**
+     * Handles one line of a file, given as a byte range without the line terminator.
+     */
+    private interface LineHandler {
+        void line(byte[] bytes, int from, int to);
+    }
+
+    /**
+     * Reads a file through a fixed buffer and hands every complete line to the handler.
+     */
+    private void read(Path file, LineHandler handler) throws IOException {
+        skippedLines = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long total = channel.size();
+            long done = 0;
+            long nextReport = PROGRESS_INTERVAL;
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            byte[] bytes = buffer.array();
+            while (true) {
+                int n = channel.read(buffer);
+                if (n < 0) {
+                    if (buffer.position() > 0) {
+                        handleLine(handler, bytes, 0, buffer.position());
+                    }
+                    break;
+                }
+                done += n;
+                int limit = buffer.position();
+                int start = 0;
+                for (int i = 0; i < limit; i++) {
+                    if (bytes[i] == '\n') {
+                        handleLine(handler, bytes, start, i);
+                        start = i + 1;
+                    }
+                }
+                if (start == 0 && limit == bytes.length) {
+                    throw new IOException("Line longer than " + BUFFER_SIZE + " bytes in " + file);
+                }
+                // Keep the partial last line at the front of the buffer.
+                System.arraycopy(bytes, start, bytes, 0, limit - start);
+                buffer.position(limit - start);
+                if (listener != null && done >= nextReport) {
+                    listener.progress(done, total);
+                    nextReport = done + PROGRESS_INTERVAL;
+                }
+            }
+            if (listener != null) {
+                listener.progress(done, total);
+            }
+        }
+    }
+
+    private void handleLine(LineHandler handler, byte[] bytes, int from, int to) {
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        if (to > from) {
+            handler.line(bytes, from, to);
+        }
+    }
+
+    /**
+     * Parses one airport record.
+     */
+    private void airportLine(byte[] b, int from, int to) {
+        int fields = split(b, from, to);
+        if (fields < 8) {
+            skippedLines++;
+            return;
+        }
+        boolean hasIata = present(b, 4);
+        boolean hasIcao = present(b, 5);
+        if (!hasIata && !hasIcao) {
+            skippedLines++;
+            return;
+        }
+        int code = hasIata ? 4 : 5;
+        if (airports.get(b, fieldStart[code], fieldEnd[code]) != null) {
+            return;
+        }
+        double latitude = parseDouble(b, fieldStart[6], fieldEnd[6]);
+        double longitude = parseDouble(b, fieldStart[7], fieldEnd[7]);
+        Airport airport = new Airport(text(b, code), text(b, 1), latitude, longitude);
+        airports.put(b, fieldStart[code], fieldEnd[code], airport);
+        if (hasIata && hasIcao) {
+            airports.put(b, fieldStart[5], fieldEnd[5], airport);
+        }
+        graph.addNode(airport);
+    }
+
+    /**
+     * Parses one route record.
+     */
+    private void routeLine(byte[] b, int from, int to) {
+        int fields = split(b, from, to);
+        if (fields <= Math.max(Math.max(sourceColumn, targetColumn), weightColumn)) {
+            skippedLines++;
+            return;
+        }
+        Airport source = resolve(b, sourceColumn);
+        Airport target = resolve(b, targetColumn);
+        if (source == null || target == null) {
+            skippedLines++;
+            return;
+        }
+        double weight;
+        if (weightColumn >= 0) {
+            weight = parseDouble(b, fieldStart[weightColumn], fieldEnd[weightColumn]);
+            if (Double.isNaN(weight)) {
+                // Also skips a header line.
+                skippedLines++;
+                return;
+            }
+        } else if (source.hasCoordinates() && target.hasCoordinates()) {
+            weight = source.distanceTo(target);
+        } else {
+            weight = 1.0;
+        }
+        if (skipDuplicates && graph.getEdge(source, target) != null) {
+            return;
+        }
+        graph.addEdge(source, target, weight);
+    }
+
+    /**
+     * Returns the airport whose code is in the given field, creating it if allowed.
+     */
+    private Airport resolve(byte[] b, int field) {
+        if (!present(b, field)) {
+            return null;
+        }
+        Airport airport = airports.get(b, fieldStart[field], fieldEnd[field]);
+        if (airport == null && createMissing) {
+            String code = text(b, field);
+            airport = new Airport(code, code);
+            airports.put(b, fieldStart[field], fieldEnd[field], airport);
+            graph.addNode(airport);
+        }
+        return airport;
+    }
+
+    /**
+     * Splits a line at commas outside double quotes and records the field ranges,
+     * with surrounding quotes removed.
+     *
+     * @return the number of fields found, at most {@link #MAX_FIELDS}
+     */
+    private int split(byte[] b, int from, int to) {
+        int count = 0;
+        int i = from;
+        while (count < MAX_FIELDS) {
+            if (i < to && b[i] == '"') {
+                int start = ++i;
+                // A doubled quote inside a quoted field is an escaped quote.
+                while (i < to && (b[i] != '"' || (i + 1 < to && b[i + 1] == '"'))) {
+                    i += b[i] == '"' ? 2 : 1;
+                }
+                fieldStart[count] = start;
+                fieldEnd[count++] = i;
+                while (i < to && b[i] != ',') {
+                    i++;
+                }
+            } else {
+                int start = i;
+                while (i < to && b[i] != ',') {
+                    i++;
+                }
+                fieldStart[count] = start;
+                fieldEnd[count++] = i;
+            }
+            if (i >= to) {
+                break;
+            }
+            i++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if the field is neither empty nor the OpenFlights null marker {@code \N}.
+     */
+    private boolean present(byte[] b, int field) {
+        int start = fieldStart[field];
+        int length = fieldEnd[field] - start;
+        return length > 0 && !(length == 2 && b[start] == '\\' && b[start + 1] == 'N');
+    }
+
+    /**
+     * Decodes a field as UTF-8, turning escaped double quotes back into single ones.
+     */
+    private String text(byte[] b, int field) {
+        String s = new String(b, fieldStart[field], fieldEnd[field] - fieldStart[field], StandardCharsets.UTF_8);
+        return s.indexOf("\"\"") >= 0 ? s.replace("\"\"", "\"") : s;
+    }
+
+    /**
+     * Parses a decimal number from a byte range, or returns NaN if it is not one. Numbers
+     * with at most 15 significant digits and a small exponent are converted exactly
+     * without allocating; others fall back to {@link Double#parseDouble}.
+     */
+    static double parseDouble(byte[] b, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i++] == '-';
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        int start = i;
+        for (; i < to; i++) {
+            byte c = b[i];
+            if (c >= '0' && c <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    if (point) {
+                        scale--;
+                    }
+                } else if (!point) {
+                    scale++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (i == start || (point && i == start + 1)) {
+            return Double.NaN;
+        }
+        if (i < to) {
+            if (b[i] != 'e' && b[i] != 'E') {
+                return Double.NaN;
+            }
+            return slowParse(b, from, to);
+        }
+        double value;
+        if (digits <= 15 && -scale < POWERS_OF_TEN.length && scale < POWERS_OF_TEN.length) {
+            // Both operands are exact, so a single rounding gives the correctly rounded result.
+            value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+        } else {
+            return slowParse(b, from, to);
+        }
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(byte[] b, int from, int to) {
+        try {
+            return Double.parseDouble(new String(b, from, to - from, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * An open-addressing hash table from airport codes, given as byte ranges, to airports.
+     */
+    private static final class CodeTable {
+        private byte[][] keys = new byte[1024][];
+        private Airport[] values = new Airport[1024];
+        private int size;
+
+        Airport get(byte[] b, int from, int to) {
+            int mask = keys.length - 1;
+            for (int slot = hash(b, from, to) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+                if (matches(keys[slot], b, from, to)) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        void put(byte[] b, int from, int to, Airport airport) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(b, from, to) & mask;
+            while (keys[slot] != null) {
+                if (matches(keys[slot], b, from, to)) {
+                    values[slot] = airport;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            byte[] key = new byte[to - from];
+            System.arraycopy(b, from, key, 0, key.length);
+            keys[slot] = key;
+            values[slot] = airport;
+            size++;
+        }
+
+        private void grow() {
+            byte[][] oldKeys = keys;
+            Airport[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new Airport[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                byte[] key = oldKeys[i];
+                if (key != null) {
+                    int slot = hash(key, 0, key.length) & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = key;
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(byte[] b, int from, int to) {
+            // FNV-1a, with the high bits folded in because the table masks the low ones.
+            int h = 0x811c9dc5;
+            for (int i = from; i < to; i++) {
+                h = (h ^ b[i]) * 0x01000193;
+            }
+            return h ^ (h >>> 16);
+        }
+
+        private static boolean matches(byte[] key, byte[] b, int from, int to) {
+            if (key.length != to - from) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != b[from + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
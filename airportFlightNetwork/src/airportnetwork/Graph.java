@@ -10,11 +10,51 @@ import java.util.*;
  */
 public class Graph<T> {
 
+    /** Adjacency lists longer than this get a hashed neighbour index. */
+    static final int HUB_DEGREE = 32;
+
     /**
      * Internal map representing the adjacency list of the graph.
      * Each key is a vertex, and the value is a list of outgoing edges.
      */
-    private final Map<T, List<Edge<T>>> adjacencyList = new HashMap<>();
+    private final Map<T, EdgeList<T>> adjacencyList;
+
+    /**
+     * Reverse index of the adjacency list: each vertex maps to its incoming edges,
+     * holding the same edge objects as the outgoing lists.
+     */
+    private final Map<T, EdgeList<T>> incomingList;
+
+    /** Number of edges in the graph, kept in sync by every mutation. */
+    private int edgeCount;
+
+    /** Number of structural changes made to the graph, used to detect a stale snapshot. */
+    private int modCount;
+
+    /**
+     * The most recent compressed snapshot together with the {@code modCount} it was built at,
+     * published as one immutable holder so that no reader sees one without the other.
+     */
+    private volatile Snapshot<T> snapshot;
+
+    /** Listeners told about every structural change, or null if there are none. */
+    private List<GraphListener<T>> listeners;
+
+    /**
+     * Constructs an empty graph.
+     */
+    public Graph() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty graph with room for the given number of vertices.
+     */
+    Graph(int expectedVertices) {
+        int capacity = Math.max(16, (int) (expectedVertices / 0.75f) + 1);
+        adjacencyList = new HashMap<>(capacity);
+        incomingList = new HashMap<>(capacity);
+    }
 
     /**
      * Returns the number of vertices in the graph.
@@ -40,7 +80,7 @@ public class Graph<T> {
      * @return total number of edges
      */
     public int numEdges() {
-        return edges().size();
+        return edgeCount;
     }
 
     /**
@@ -50,7 +90,7 @@ public class Graph<T> {
      */
     public List<Edge<T>> edges() {
         List<Edge<T>> allEdges = new ArrayList<>();
-        for (List<Edge<T>> edgeList : adjacencyList.values()) {
+        for (EdgeList<T> edgeList : adjacencyList.values()) {
             allEdges.addAll(edgeList);
         }
         return allEdges;
@@ -58,19 +98,17 @@ public class Graph<T> {
 
     /**
      * Retrieves the edge from vertex {@code u} to vertex {@code v}, if it exists.
+     * Takes expected constant time when {@code u} is a hub with more than
+     * {@link #HUB_DEGREE} outgoing edges, and a scan of its edges otherwise.
+     * If there are parallel edges from u to v, any one of them is returned.
      *
      * @param u the source vertex
      * @param v the destination vertex
      * @return the edge from u to v, or null if not found
      */
     public Edge<T> getEdge(T u, T v) {
-        List<Edge<T>> edges = adjacencyList.getOrDefault(u, Collections.emptyList());
-        for (Edge<T> edge : edges) {
-            if (edge.getDestination().equals(v)) {
-                return edge;
-            }
-        }
-        return null;
+        EdgeList<T> edges = adjacencyList.get(u);
+        return edges == null ? null : edges.find(v);
     }
 
     /**
@@ -109,7 +147,8 @@ public class Graph<T> {
      * @return number of outgoing edges
      */
     public int outDegree(T v) {
-        return adjacencyList.getOrDefault(v, Collections.emptyList()).size();
+        EdgeList<T> edges = adjacencyList.get(v);
+        return edges == null ? 0 : edges.size();
     }
 
     /**
@@ -119,15 +158,8 @@ public class Graph<T> {
      * @return number of incoming edges
      */
     public int inDegree(T v) {
-        int inCount = 0;
-        for (T u : adjacencyList.keySet()) {
-            for (Edge<T> e : adjacencyList.get(u)) {
-                if (e.getDestination().equals(v)) {
-                    inCount++;
-                }
-            }
-        }
-        return inCount;
+        EdgeList<T> edges = incomingList.get(v);
+        return edges == null ? 0 : edges.size();
     }
 
     /**
@@ -137,7 +169,7 @@ public class Graph<T> {
      * @return iterable of outgoing edges
      */
     public Iterable<Edge<T>> outgoingEdges(T v) {
-        return adjacencyList.getOrDefault(v, Collections.emptyList());
+        return getEdges(v);
     }
 
     /**
@@ -147,15 +179,8 @@ public class Graph<T> {
      * @return iterable of incoming edges
      */
     public Iterable<Edge<T>> incomingEdges(T v) {
-        List<Edge<T>> incoming = new ArrayList<>();
-        for (T u : adjacencyList.keySet()) {
-            for (Edge<T> e : adjacencyList.get(u)) {
-                if (e.getDestination().equals(v)) {
-                    incoming.add(e);
-                }
-            }
-        }
-        return incoming;
+        EdgeList<T> edges = incomingList.get(v);
+        return edges == null ? new ArrayList<>() : new ArrayList<>(edges);
     }
 
     /**
@@ -188,32 +213,89 @@ public class Graph<T> {
      * @param v the vertex to remove
      */
     public void removeVertex(T v) {
-        adjacencyList.remove(v);
-        for (T u : adjacencyList.keySet()) {
-            adjacencyList.get(u).removeIf(e -> e.getDestination().equals(v));
+        modCount++;
+        EdgeList<T> outgoing = adjacencyList.remove(v);
+        EdgeList<T> incoming = incomingList.remove(v);
+        if (outgoing == null) {
+            return;
+        }
+        // Only the lists of v's neighbours refer to its edges.
+        for (Edge<T> e : outgoing) {
+            EdgeList<T> reverse = incomingList.get(e.getDestination());
+            if (reverse != null) {
+                reverse.delete(e);
+            }
+            edgeCount--;
+            fireEdgeRemoved(e);
+        }
+        for (Edge<T> e : incoming) {
+            EdgeList<T> forward = adjacencyList.get(e.getSource());
+            if (forward != null) {
+                forward.delete(e);
+                edgeCount--;
+                fireEdgeRemoved(e);
+            }
+        }
+        if (listeners != null) {
+            for (GraphListener<T> listener : listeners) {
+                listener.vertexRemoved(v);
+            }
         }
     }
 
     /**
-     * Removes the specified edge from the graph.
+     * Removes the specified edge from the graph. Takes expected constant time at hubs;
+     * removing an edge of a hub may change the order of its remaining edges.
      *
      * @param e the edge to remove
      */
     public void removeEdge(Edge<T> e) {
         T u = e.getSource();
-        List<Edge<T>> edges = adjacencyList.get(u);
-        if (edges != null) {
-            edges.remove(e);
+        EdgeList<T> edges = adjacencyList.get(u);
+        if (edges != null && edges.delete(e)) {
+            incomingList.get(e.getDestination()).delete(e);
+            edgeCount--;
+            modCount++;
+            fireEdgeRemoved(e);
         }
     }
 
+    /**
+     * Changes the weight of an edge. Edges are immutable, so the edge is replaced by a
+     * new one with the same endpoints, which keeps its place in both adjacency lists.
+     *
+     * @param e      the edge to change
+     * @param weight the new weight
+     * @return the replacing edge
+     * @throws IllegalArgumentException if the edge is not in the graph
+     */
+    public Edge<T> setEdgeWeight(Edge<T> e, double weight) {
+        Edge<T> replacement = new Edge<>(e.getSource(), e.getDestination(), weight);
+        EdgeList<T> edges = adjacencyList.get(e.getSource());
+        if (edges == null || !edges.replace(e, replacement)) {
+            throw new IllegalArgumentException("Edge is not in the graph: " + e.getSource() + " -> "
+                    + e.getDestination());
+        }
+        incomingList.get(e.getDestination()).replace(e, replacement);
+        modCount++;
+        if (listeners != null) {
+            for (GraphListener<T> listener : listeners) {
+                listener.edgeReweighted(e, replacement);
+            }
+        }
+        return replacement;
+    }
+
     /**
      * Adds a new node to the graph if it does not already exist.
      *
      * @param node the vertex to add
      */
     public void addNode(T node) {
-        adjacencyList.putIfAbsent(node, new ArrayList<>());
+        if (adjacencyList.putIfAbsent(node, new EdgeList<>(true)) == null) {
+            incomingList.put(node, new EdgeList<>(false));
+            modCount++;
+        }
     }
 
     /**
@@ -227,17 +309,29 @@ public class Graph<T> {
     public void addEdge(T source, T destination, double weight) {
         addNode(source);
         addNode(destination);
-        adjacencyList.get(source).add(new Edge<>(source, destination, weight));
+        Edge<T> edge = new Edge<>(source, destination, weight);
+        adjacencyList.get(source).append(edge);
+        incomingList.get(destination).append(edge);
+        edgeCount++;
+        modCount++;
+        if (listeners != null) {
+            for (GraphListener<T> listener : listeners) {
+                listener.edgeAdded(edge);
+            }
+        }
     }
 
     /**
-     * Returns the list of edges originating from the specified node.
+     * Returns the list of edges originating from the specified node. The list is a
+     * read-only view; change the graph through {@link #addEdge} and {@link #removeEdge}
+     * so that its snapshots and listeners stay in step.
      *
      * @param node the source vertex
-     * @return list of outgoing edges
+     * @return unmodifiable list of outgoing edges
      */
     public List<Edge<T>> getEdges(T node) {
-        return adjacencyList.getOrDefault(node, Collections.emptyList());
+        EdgeList<T> edges = adjacencyList.get(node);
+        return edges == null ? Collections.emptyList() : Collections.unmodifiableList(edges);
     }
 
     /**
@@ -248,4 +342,250 @@ public class Graph<T> {
     public Set<T> getAllNodes() {
         return adjacencyList.keySet();
     }
+
+    /**
+     * Registers a listener to be told about every edge added or removed and every
+     * vertex removed from now on. Bulk loading by {@link GraphBuilder} is not reported.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(GraphListener<T> listener) {
+        if (listeners == null) {
+            listeners = new ArrayList<>(2);
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener added by {@link #addListener}.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(GraphListener<T> listener) {
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    private void fireEdgeRemoved(Edge<T> e) {
+        if (listeners != null) {
+            for (GraphListener<T> listener : listeners) {
+                listener.edgeRemoved(e);
+            }
+        }
+    }
+
+    /**
+     * Fills this empty graph with the vertices and edges of a compressed graph, allocating
+     * every adjacency list at its final size, and keeps {@code compact} as the cached
+     * snapshot returned by {@link #freeze()}.
+     */
+    void load(CompactGraph<T> compact) {
+        int n = compact.numVertices();
+        int[] inDegree = new int[n];
+        for (int e = 0; e < compact.numEdges(); e++) {
+            inDegree[compact.target(e)]++;
+        }
+        @SuppressWarnings("unchecked")
+        EdgeList<T>[] incoming = (EdgeList<T>[]) new EdgeList<?>[n];
+        for (int v = 0; v < n; v++) {
+            T vertex = compact.vertex(v);
+            adjacencyList.put(vertex, new EdgeList<>(true, compact.outDegree(v)));
+            incoming[v] = new EdgeList<>(false, inDegree[v]);
+            incomingList.put(vertex, incoming[v]);
+        }
+        for (int v = 0; v < n; v++) {
+            T source = compact.vertex(v);
+            EdgeList<T> outgoing = adjacencyList.get(source);
+            for (int e = compact.edgeStart(v), end = compact.edgeEnd(v); e < end; e++) {
+                int t = compact.target(e);
+                Edge<T> edge = new Edge<>(source, compact.vertex(t), compact.weight(e));
+                outgoing.append(edge);
+                incoming[t].append(edge);
+            }
+        }
+        edgeCount += compact.numEdges();
+        modCount++;
+        snapshot = new Snapshot<>(compact, modCount);
+    }
+
+    /**
+     * Returns an immutable compressed (CSR) snapshot of this graph for read-only
+     * routing. The snapshot is cached and only rebuilt after the graph changes;
+     * later changes to this graph are not reflected in a snapshot already handed out.
+     * The {@code Graph} entry points of {@link Dijkstra} and {@link AStar} route on the
+     * snapshot while it is current and search the adjacency lists otherwise, so call this
+     * once after a batch of changes rather than leaving the rebuild to a query.
+     *
+     * @return the compressed snapshot
+     */
+    public CompactGraph<T> freeze() {
+        Snapshot<T> current = snapshot;
+        if (current == null || current.modCount != modCount) {
+            current = new Snapshot<>(CompactGraph.of(this), modCount);
+            snapshot = current;
+        }
+        return current.graph;
+    }
+
+    /**
+     * Returns the cached snapshot if the graph has not changed since it was built, or
+     * null if there is none or it is stale. Unlike {@link #freeze()}, never rebuilds.
+     */
+    CompactGraph<T> currentSnapshot() {
+        Snapshot<T> current = snapshot;
+        return current != null && current.modCount == modCount ? current.graph : null;
+    }
+
+    /**
+     * A compressed snapshot and the {@code modCount} of the graph it was built from.
+     */
+    private static final class Snapshot<T> {
+        final CompactGraph<T> graph;
+        final int modCount;
+
+        Snapshot(CompactGraph<T> graph, int modCount) {
+            this.graph = graph;
+            this.modCount = modCount;
+        }
+    }
+
+    /**
+     * An adjacency list that builds a hashed index once it grows past
+     * {@link #HUB_DEGREE} edges. The index maps every neighbour to one edge
+     * connecting it and every edge to its position in the list, so neighbour
+     * lookups and removals at hub airports take expected constant time, while
+     * ordinary airports keep just the list.
+     */
+    private static final class EdgeList<T> extends ArrayList<Edge<T>> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** True if the list holds outgoing edges, keyed by destination; false for incoming edges, keyed by source. */
+        private final boolean outgoing;
+
+        /** One edge per neighbour, or null while the list is short. */
+        private Map<T, Edge<T>> byNeighbour;
+
+        /** Position of every edge in the list, or null while the list is short. */
+        private Map<Edge<T>, Integer> positions;
+
+        /** True once some neighbour has been connected by more than one edge. */
+        private boolean parallel;
+
+        EdgeList(boolean outgoing) {
+            this.outgoing = outgoing;
+        }
+
+        EdgeList(boolean outgoing, int capacity) {
+            super(capacity);
+            this.outgoing = outgoing;
+        }
+
+        /**
+         * Returns the vertex at the other end of an edge in this list.
+         */
+        private T neighbour(Edge<T> e) {
+            return outgoing ? e.getDestination() : e.getSource();
+        }
+
+        /**
+         * Appends an edge, indexing it if the list is a hub.
+         */
+        void append(Edge<T> e) {
+            add(e);
+            if (byNeighbour != null) {
+                positions.put(e, size() - 1);
+                if (byNeighbour.putIfAbsent(neighbour(e), e) != null) {
+                    parallel = true;
+                }
+            } else if (size() > HUB_DEGREE) {
+                byNeighbour = new HashMap<>();
+                positions = new IdentityHashMap<>();
+                for (int i = 0; i < size(); i++) {
+                    Edge<T> edge = get(i);
+                    positions.put(edge, i);
+                    if (byNeighbour.putIfAbsent(neighbour(edge), edge) != null) {
+                        parallel = true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns an edge connecting the given neighbour, or null if there is none.
+         */
+        Edge<T> find(T v) {
+            if (byNeighbour != null) {
+                return byNeighbour.get(v);
+            }
+            for (Edge<T> edge : this) {
+                if (neighbour(edge).equals(v)) {
+                    return edge;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Puts an edge in the place of the given edge object, which must connect the same neighbour.
+         *
+         * @return true if the edge was in the list
+         */
+        boolean replace(Edge<T> e, Edge<T> replacement) {
+            if (byNeighbour == null) {
+                // Edges compare by identity, so this finds exactly e.
+                int position = indexOf(e);
+                if (position < 0) {
+                    return false;
+                }
+                set(position, replacement);
+                return true;
+            }
+            Integer position = positions.remove(e);
+            if (position == null) {
+                return false;
+            }
+            set(position, replacement);
+            positions.put(replacement, position);
+            byNeighbour.replace(neighbour(e), e, replacement);
+            return true;
+        }
+
+        /**
+         * Removes the given edge object. A hub moves its last edge into the gap
+         * instead of shifting the rest of the list.
+         *
+         * @return true if the edge was in the list
+         */
+        boolean delete(Edge<T> e) {
+            if (byNeighbour == null) {
+                // Edges compare by identity, so this removes exactly e.
+                return remove(e);
+            }
+            Integer position = positions.remove(e);
+            if (position == null) {
+                return false;
+            }
+            Edge<T> last = remove(size() - 1);
+            if (last != e) {
+                set(position, last);
+                positions.put(last, position);
+            }
+            T v = neighbour(e);
+            if (byNeighbour.get(v) == e) {
+                byNeighbour.remove(v);
+                if (parallel) {
+                    // Another edge may still connect v; parallel edges are rare, so scan for it.
+                    for (Edge<T> edge : this) {
+                        if (neighbour(edge).equals(v)) {
+                            byNeighbour.put(v, edge);
+                            break;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+    }
 }
\ No newline at end of file
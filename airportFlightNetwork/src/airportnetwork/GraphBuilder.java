@@ -0,0 +1,326 @@
+package airportnetwork;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Bulk construction of a {@link Graph} or {@link CompactGraph} from edge batches.
+ * Vertices are fixed up front and referred to by their index; edges are collected
+ * in primitive arrays and only turned into a graph by {@link #build()} or
+ * {@link #buildCompact()}. Building counts the out-degree of every vertex,
+ * buckets the edges by source in one pass into exactly sized arrays, then sorts
+ * every bucket by destination and removes duplicate edges (keeping the smallest
+ * weight) in parallel on the fork/join common pool. Compared with calling
+ * {@link Graph#addEdge} once per edge, nothing is hashed or grown per edge.
+ * A builder is not thread-safe.
+ *
+ * @param <T> The type representing the vertices in the graph.
+ */
+public final class GraphBuilder<T> {
+
+    /** Buckets up to this size are sorted by insertion sort. */
+    private static final int INSERTION_SORT_LIMIT = 16;
+
+    /** Vertices indexed by their id. */
+    private final Object[] vertices;
+
+    /** Maps vertices to ids, built on first use by {@link #addEdges(Stream)}. */
+    private Map<T, Integer> ids;
+
+    /** Source id of every collected edge. */
+    private int[] sources = new int[16];
+
+    /** Destination id of every collected edge. */
+    private int[] targets = new int[16];
+
+    /** Weight of every collected edge. */
+    private double[] weights = new double[16];
+
+    /** Number of collected edges. */
+    private int size;
+
+    /** Whether parallel edges between the same vertices are merged. */
+    private boolean dedupe = true;
+
+    /**
+     * Constructs a builder over the given vertices; vertex {@code i} gets id {@code i}.
+     *
+     * @param vertices the vertices of the graph, without duplicates
+     */
+    public GraphBuilder(List<T> vertices) {
+        this.vertices = vertices.toArray();
+    }
+
+    /**
+     * Sets whether parallel edges from one vertex to another are merged into a single
+     * edge with the smallest weight. Enabled by default.
+     *
+     * @param dedupe true to merge parallel edges
+     * @return this builder
+     */
+    public GraphBuilder<T> dedupe(boolean dedupe) {
+        this.dedupe = dedupe;
+        return this;
+    }
+
+    /**
+     * Pre-sizes the edge arrays for the given total number of edges.
+     *
+     * @param expectedEdges the number of edges that will be added
+     * @return this builder
+     */
+    public GraphBuilder<T> expectEdges(int expectedEdges) {
+        ensureCapacity(expectedEdges);
+        return this;
+    }
+
+    /**
+     * Returns the number of vertices.
+     *
+     * @return the number of vertices
+     */
+    public int numVertices() {
+        return vertices.length;
+    }
+
+    /**
+     * Returns the number of edges added so far, before duplicates are removed.
+     *
+     * @return the number of edges
+     */
+    public int numEdges() {
+        return size;
+    }
+
+    /**
+     * Adds a directed edge between two vertex ids.
+     *
+     * @param source the source vertex id
+     * @param target the destination vertex id
+     * @param weight the weight of the edge
+     * @return this builder
+     */
+    public GraphBuilder<T> addEdge(int source, int target, double weight) {
+        checkId(source);
+        checkId(target);
+        ensureCapacity(size + 1);
+        sources[size] = source;
+        targets[size] = target;
+        weights[size] = weight;
+        size++;
+        return this;
+    }
+
+    /**
+     * Adds a batch of directed edges given as parallel arrays of vertex ids and weights.
+     *
+     * @param batchSources the source vertex ids
+     * @param batchTargets the destination vertex ids
+     * @param batchWeights the weights
+     * @return this builder
+     * @throws IllegalArgumentException if the arrays differ in length or hold an unknown id
+     */
+    public GraphBuilder<T> addEdges(int[] batchSources, int[] batchTargets, double[] batchWeights) {
+        int count = batchSources.length;
+        if (batchTargets.length != count || batchWeights.length != count) {
+            throw new IllegalArgumentException("Edge arrays differ in length");
+        }
+        for (int i = 0; i < count; i++) {
+            checkId(batchSources[i]);
+            checkId(batchTargets[i]);
+        }
+        ensureCapacity(size + count);
+        System.arraycopy(batchSources, 0, sources, size, count);
+        System.arraycopy(batchTargets, 0, targets, size, count);
+        System.arraycopy(batchWeights, 0, weights, size, count);
+        size += count;
+        return this;
+    }
+
+    /**
+     * Adds a stream of edges between vertices given to the constructor.
+     *
+     * @param edges the edges to add
+     * @return this builder
+     * @throws IllegalArgumentException if an edge refers to an unknown vertex
+     */
+    public GraphBuilder<T> addEdges(Stream<Edge<T>> edges) {
+        if (ids == null) {
+            ids = idMap();
+        }
+        edges.forEachOrdered(e -> addEdge(idOf(e.getSource()), idOf(e.getDestination()), e.getWeight()));
+        return this;
+    }
+
+    /**
+     * Builds an immutable compressed graph from the collected edges.
+     *
+     * @return the compressed graph
+     */
+    public CompactGraph<T> buildCompact() {
+        int n = vertices.length;
+
+        // 1. Count out-degrees and turn them into bucket offsets.
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[sources[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        // 2. Scatter the edges into their source's bucket.
+        int[] sortedTargets = new int[size];
+        double[] sortedWeights = new double[size];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < size; i++) {
+            int e = cursor[sources[i]]++;
+            sortedTargets[e] = targets[i];
+            sortedWeights[e] = weights[i];
+        }
+
+        // 3. Sort every bucket by destination and merge duplicates, in parallel.
+        int[] kept = new int[n];
+        IntStream.range(0, n).parallel().forEach(v -> {
+            int from = offsets[v];
+            int to = offsets[v + 1];
+            sortBucket(sortedTargets, sortedWeights, from, to);
+            kept[v] = dedupe ? mergeBucket(sortedTargets, sortedWeights, from, to) : to - from;
+        });
+        if (!dedupe) {
+            return new CompactGraph<>(vertices.clone(), idMap(), offsets, sortedTargets, sortedWeights);
+        }
+
+        // 4. Close the gaps left by merged duplicates.
+        int[] compactOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            compactOffsets[v + 1] = compactOffsets[v] + kept[v];
+        }
+        int edges = compactOffsets[n];
+        if (edges == size) {
+            return new CompactGraph<>(vertices.clone(), idMap(), offsets, sortedTargets, sortedWeights);
+        }
+        int[] finalTargets = new int[edges];
+        double[] finalWeights = new double[edges];
+        IntStream.range(0, n).parallel().forEach(v -> {
+            System.arraycopy(sortedTargets, offsets[v], finalTargets, compactOffsets[v], kept[v]);
+            System.arraycopy(sortedWeights, offsets[v], finalWeights, compactOffsets[v], kept[v]);
+        });
+        return new CompactGraph<>(vertices.clone(), idMap(), compactOffsets, finalTargets, finalWeights);
+    }
+
+    /**
+     * Builds a mutable graph from the collected edges. Its adjacency lists are allocated
+     * at their final size, and the compressed form built along the way is kept as the
+     * graph's cached {@link Graph#freeze()} snapshot.
+     *
+     * @return the graph
+     */
+    public Graph<T> build() {
+        CompactGraph<T> compact = buildCompact();
+        Graph<T> graph = new Graph<>(compact.numVertices());
+        graph.load(compact);
+        return graph;
+    }
+
+    /**
+     * Stably sorts the edges in {@code [from, to)} by destination.
+     */
+    private static void sortBucket(int[] targets, double[] weights, int from, int to) {
+        int count = to - from;
+        if (count <= INSERTION_SORT_LIMIT) {
+            for (int i = from + 1; i < to; i++) {
+                int t = targets[i];
+                double w = weights[i];
+                int j = i - 1;
+                while (j >= from && targets[j] > t) {
+                    targets[j + 1] = targets[j];
+                    weights[j + 1] = weights[j];
+                    j--;
+                }
+                targets[j + 1] = t;
+                weights[j + 1] = w;
+            }
+            return;
+        }
+        // Sort (destination, position) pairs packed into longs, then permute the weights.
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) targets[from + i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        double[] original = Arrays.copyOfRange(weights, from, to);
+        for (int i = 0; i < count; i++) {
+            targets[from + i] = (int) (keys[i] >>> 32);
+            weights[from + i] = original[(int) keys[i]];
+        }
+    }
+
+    /**
+     * Merges runs of equal destinations in a sorted bucket to their smallest weight,
+     * packing the survivors at the start of the bucket.
+     *
+     * @return the number of edges left in the bucket
+     */
+    private static int mergeBucket(int[] targets, double[] weights, int from, int to) {
+        if (from == to) {
+            return 0;
+        }
+        int last = from;
+        for (int i = from + 1; i < to; i++) {
+            if (targets[i] == targets[last]) {
+                weights[last] = Math.min(weights[last], weights[i]);
+            } else {
+                last++;
+                targets[last] = targets[i];
+                weights[last] = weights[i];
+            }
+        }
+        return last - from + 1;
+    }
+
+    /**
+     * Builds the vertex-to-id map, or returns the one already built for stream input.
+     */
+    private Map<T, Integer> idMap() {
+        if (ids != null) {
+            return ids;
+        }
+        Map<T, Integer> map = new HashMap<>(Math.max(16, (int) (vertices.length / 0.75f) + 1));
+        for (int i = 0; i < vertices.length; i++) {
+            @SuppressWarnings("unchecked")
+            T vertex = (T) vertices[i];
+            if (map.put(vertex, i) != null) {
+                throw new IllegalArgumentException("Duplicate vertex " + vertex);
+            }
+        }
+        return map;
+    }
+
+    private int idOf(T vertex) {
+        Integer id = ids.get(vertex);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown vertex " + vertex);
+        }
+        return id;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= vertices.length) {
+            throw new IllegalArgumentException("Vertex id out of range: " + id);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > sources.length) {
+            int newCapacity = Math.max(capacity, sources.length * 2);
+            sources = Arrays.copyOf(sources, newCapacity);
+            targets = Arrays.copyOf(targets, newCapacity);
+            weights = Arrays.copyOf(weights, newCapacity);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package airportnetwork;
+
+/**
+ * Receives the structural changes made to a {@link Graph}, so that results derived
+ * from it can be invalidated. Callbacks run on the mutating thread after the change
+ * has been applied.
+ *
+ * @param <T> The type representing the vertices in the graph.
+ */
+public interface GraphListener<T> {
+
+    /**
+     * Called after an edge has been added.
+     *
+     * @param edge the new edge
+     */
+    void edgeAdded(Edge<T> edge);
+
+    /**
+     * Called after an edge has been removed, including every edge removed along with a vertex.
+     *
+     * @param edge the removed edge
+     */
+    void edgeRemoved(Edge<T> edge);
+
+    /**
+     * Called after {@link Graph#setEdgeWeight} has replaced an edge by one with a new
+     * weight. By default this is reported as a removal followed by an addition.
+     *
+     * @param edge        the replaced edge
+     * @param replacement the edge with the new weight
+     */
+    default void edgeReweighted(Edge<T> edge, Edge<T> replacement) {
+        edgeRemoved(edge);
+        edgeAdded(replacement);
+    }
+
+    /**
+     * Called after a vertex has been removed, once {@link #edgeRemoved} has been called
+     * for each of its edges.
+     *
+     * @param vertex the removed vertex
+     */
+    default void vertexRemoved(T vertex) {
+    }
+}
@@ -0,0 +1,481 @@
+package airportnetwork;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes a {@link CompactGraph} of airports to a versioned binary file, and opens
+ * such files as read-only graphs backed by a memory mapping.
+ * The file holds the CSR arrays of the graph and of its reverse, the airport
+ * coordinates, an index of vertex ids sorted by airport code, and the codes and
+ * names as UTF-8. Opening a snapshot validates the header and maps each section
+ * with {@link FileChannel#map}; nothing is parsed or copied, so startup takes
+ * milliseconds whatever the graph size, and the operating system pages the
+ * sections in as queries touch them. The engines and the static
+ * {@link Dijkstra} and {@link AStar} adapters work on the opened graph unchanged.
+ * Airports are decoded from the mapping the first time they are looked up by id
+ * and then kept.
+ * <p>
+ * All values are little-endian and every section starts on an 8-byte boundary:
+ * <pre>
+ *   header           magic "AFNGRAPH", version, flags, vertex count n,
+ *                    edge count m, string bytes, padded to 64 bytes
+ *   offsets          int[n + 1]
+ *   targets          int[m]
+ *   weights          double[m]
+ *   reverse offsets  int[n + 1]
+ *   reverse targets  int[m]
+ *   reverse weights  double[m]
+ *   coordinates      double[2n], latitude and longitude per vertex
+ *   code index       int[n], vertex ids in unsigned byte order of their codes
+ *   string offsets   int[2n + 1], code of v at [2v, 2v + 1), name at [2v + 1, 2v + 2)
+ *   strings          byte[string bytes]
+ * </pre>
+ */
+public final class GraphSnapshot {
+
+    /** The bytes "AFNGRAPH" read as a little-endian long. */
+    private static final long MAGIC = 0x48504152474e4641L;
+
+    /** Version of the format written by this class. */
+    public static final int VERSION = 1;
+
+    /** Size of the header in bytes. */
+    private static final int HEADER_BYTES = 64;
+
+    /** Size of the buffer used to write snapshots. */
+    private static final int WRITE_BUFFER = 1 << 20;
+
+    private GraphSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the given graph. See {@link #write(CompactGraph, Path)}.
+     *
+     * @param graph the graph
+     * @param file  the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Graph<Airport> graph, Path file) throws IOException {
+        write(graph.freeze(), file);
+    }
+
+    /**
+     * Writes a snapshot of the given graph. The snapshot is written to a temporary file
+     * next to {@code file} and then moved over it, so a reader never sees a partial file.
+     *
+     * @param graph the graph
+     * @param file  the file to write
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException if a section of the graph would exceed 2 GB
+     */
+    public static void write(CompactGraph<Airport> graph, Path file) throws IOException {
+        int n = graph.numVertices();
+        int m = graph.numEdges();
+        if ((long) m * Double.BYTES > Integer.MAX_VALUE || (long) n * 2 * Double.BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Graph too large for a snapshot: " + n + " vertices, " + m + " edges");
+        }
+
+        byte[][] codes = new byte[n][];
+        byte[][] names = new byte[n][];
+        long stringBytes = 0;
+        for (int v = 0; v < n; v++) {
+            Airport airport = graph.vertex(v);
+            codes[v] = airport.getCode().getBytes(StandardCharsets.UTF_8);
+            names[v] = airport.getName() == null ? new byte[0] : airport.getName().getBytes(StandardCharsets.UTF_8);
+            stringBytes += codes[v].length + names[v].length;
+        }
+        if (stringBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Airport names too large for a snapshot: " + stringBytes + " bytes");
+        }
+        Integer[] byCode = new Integer[n];
+        for (int v = 0; v < n; v++) {
+            byCode[v] = v;
+        }
+        Arrays.sort(byCode, (a, b) -> Arrays.compareUnsigned(codes[a], codes[b]));
+
+        Layout layout = new Layout(n, m, stringBytes);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.putLong(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(0);
+            out.putInt(n);
+            out.putInt(m);
+            out.putLong(stringBytes);
+
+            out.padTo(layout.offsets);
+            writeEdges(out, layout.offsets, layout.targets, layout.weights, graph);
+            writeEdges(out, layout.reverseOffsets, layout.reverseTargets, layout.reverseWeights, graph.reversed());
+
+            out.padTo(layout.coordinates);
+            for (int v = 0; v < n; v++) {
+                Airport airport = graph.vertex(v);
+                out.putDouble(airport.getLatitude());
+                out.putDouble(airport.getLongitude());
+            }
+            out.padTo(layout.codeIndex);
+            for (int v : byCode) {
+                out.putInt(v);
+            }
+            out.padTo(layout.stringOffsets);
+            int position = 0;
+            for (int v = 0; v < n; v++) {
+                out.putInt(position);
+                position += codes[v].length;
+                out.putInt(position);
+                position += names[v].length;
+            }
+            out.putInt(position);
+            out.padTo(layout.strings);
+            for (int v = 0; v < n; v++) {
+                out.putBytes(codes[v]);
+                out.putBytes(names[v]);
+            }
+            out.flush();
+            channel.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens a snapshot as a read-only graph. The file can be closed, moved or replaced
+     * afterwards; the mapping stays valid until the graph is garbage collected.
+     *
+     * @param file the snapshot file
+     * @return the graph
+     * @throws IOException if the file cannot be read, is not a snapshot, has an
+     *                     unsupported version or is truncated
+     */
+    public static CompactGraph<Airport> open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Not a graph snapshot: " + file);
+            }
+            ByteBuffer header = map(channel, 0, HEADER_BYTES);
+            if (header.getLong(0) != MAGIC) {
+                throw new IOException("Not a graph snapshot: " + file);
+            }
+            int version = header.getInt(8);
+            if (version != VERSION) {
+                throw new IOException("Unsupported graph snapshot version " + version + ": " + file);
+            }
+            int n = header.getInt(16);
+            int m = header.getInt(20);
+            long stringBytes = header.getLong(24);
+            if (n < 0 || m < 0 || stringBytes < 0 || stringBytes > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt graph snapshot header: " + file);
+            }
+            Layout layout = new Layout(n, m, stringBytes);
+            if (size != layout.end) {
+                throw new IOException("Graph snapshot has " + size + " bytes, expected " + layout.end + ": " + file);
+            }
+
+            MappedVertexTable table = new MappedVertexTable(n,
+                    map(channel, layout.coordinates, 16L * n).asDoubleBuffer(),
+                    map(channel, layout.codeIndex, 4L * n).asIntBuffer(),
+                    map(channel, layout.stringOffsets, 4L * (2L * n + 1)).asIntBuffer(),
+                    map(channel, layout.strings, stringBytes));
+            MappedGraph forward = new MappedGraph(table, m,
+                    map(channel, layout.offsets, 4L * (n + 1)).asIntBuffer(),
+                    map(channel, layout.targets, 4L * m).asIntBuffer(),
+                    map(channel, layout.weights, 8L * m).asDoubleBuffer());
+            MappedGraph backward = new MappedGraph(table, m,
+                    map(channel, layout.reverseOffsets, 4L * (n + 1)).asIntBuffer(),
+                    map(channel, layout.reverseTargets, 4L * m).asIntBuffer(),
+                    map(channel, layout.reverseWeights, 8L * m).asDoubleBuffer());
+            forward.reverse = backward;
+            backward.reverse = forward;
+            return forward;
+        }
+    }
+
+    /**
+     * Writes the CSR sections of a graph, renumbering the offsets from zero.
+     */
+    private static void writeEdges(Output out, long offsetsAt, long targetsAt, long weightsAt,
+            CompactGraph<Airport> graph) throws IOException {
+        int n = graph.numVertices();
+        out.padTo(offsetsAt);
+        int offset = 0;
+        for (int v = 0; v < n; v++) {
+            out.putInt(offset);
+            offset += graph.outDegree(v);
+        }
+        out.putInt(offset);
+        out.padTo(targetsAt);
+        for (int v = 0; v < n; v++) {
+            for (int e = graph.edgeStart(v), end = graph.edgeEnd(v); e < end; e++) {
+                out.putInt(graph.target(e));
+            }
+        }
+        out.padTo(weightsAt);
+        for (int v = 0; v < n; v++) {
+            for (int e = graph.edgeStart(v), end = graph.edgeEnd(v); e < end; e++) {
+                out.putDouble(graph.weight(e));
+            }
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Byte positions of the sections of a snapshot.
+     */
+    private static final class Layout {
+        final long offsets;
+        final long targets;
+        final long weights;
+        final long reverseOffsets;
+        final long reverseTargets;
+        final long reverseWeights;
+        final long coordinates;
+        final long codeIndex;
+        final long stringOffsets;
+        final long strings;
+        final long end;
+
+        Layout(int n, int m, long stringBytes) {
+            offsets = HEADER_BYTES;
+            targets = align(offsets + 4L * (n + 1));
+            weights = align(targets + 4L * m);
+            reverseOffsets = weights + 8L * m;
+            reverseTargets = align(reverseOffsets + 4L * (n + 1));
+            reverseWeights = align(reverseTargets + 4L * m);
+            coordinates = reverseWeights + 8L * m;
+            codeIndex = coordinates + 16L * n;
+            stringOffsets = align(codeIndex + 4L * n);
+            strings = align(stringOffsets + 4L * (2L * n + 1));
+            end = strings + stringBytes;
+        }
+
+        private static long align(long position) {
+            return (position + 7) & ~7L;
+        }
+    }
+
+    /**
+     * Buffered little-endian output that tracks its position in the file.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+            position += Integer.BYTES;
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+            position += Long.BYTES;
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(Double.BYTES);
+            buffer.putDouble(value);
+            position += Double.BYTES;
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            int from = 0;
+            while (from < bytes.length) {
+                ensure(1);
+                int count = Math.min(bytes.length - from, buffer.remaining());
+                buffer.put(bytes, from, count);
+                from += count;
+                position += count;
+            }
+        }
+
+        /**
+         * Writes zeros up to the given position.
+         */
+        void padTo(long target) throws IOException {
+            while (position < target) {
+                ensure(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * A compressed graph whose edge arrays are views of a mapped file.
+     */
+    private static final class MappedGraph extends CompactGraph<Airport> {
+        private final int numEdges;
+        private final IntBuffer offsets;
+        private final IntBuffer targets;
+        private final DoubleBuffer weights;
+        private MappedGraph reverse;
+
+        MappedGraph(MappedVertexTable vertices, int numEdges, IntBuffer offsets, IntBuffer targets,
+                DoubleBuffer weights) {
+            super(vertices);
+            this.numEdges = numEdges;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        @Override
+        public int numEdges() {
+            return numEdges;
+        }
+
+        @Override
+        public int edgeStart(int v) {
+            return offsets.get(v);
+        }
+
+        @Override
+        public int edgeEnd(int v) {
+            return offsets.get(v + 1);
+        }
+
+        @Override
+        public int target(int e) {
+            return targets.get(e);
+        }
+
+        @Override
+        public double weight(int e) {
+            return weights.get(e);
+        }
+
+        @Override
+        public int outDegree(int v) {
+            return offsets.get(v + 1) - offsets.get(v);
+        }
+
+        @Override
+        public CompactGraph<Airport> reversed() {
+            return reverse;
+        }
+    }
+
+    /**
+     * Airports decoded on demand from the mapped coordinates and strings, and found
+     * by binary search over the code index.
+     */
+    private static final class MappedVertexTable implements VertexTable<Airport> {
+        private final int size;
+        private final DoubleBuffer coordinates;
+        private final IntBuffer codeIndex;
+        private final IntBuffer stringOffsets;
+        private final ByteBuffer strings;
+
+        /**
+         * Airports decoded so far. Airport is immutable, so racing threads at worst
+         * decode the same airport twice.
+         */
+        private final Airport[] decoded;
+
+        MappedVertexTable(int size, DoubleBuffer coordinates, IntBuffer codeIndex, IntBuffer stringOffsets,
+                ByteBuffer strings) {
+            this.size = size;
+            this.coordinates = coordinates;
+            this.codeIndex = codeIndex;
+            this.stringOffsets = stringOffsets;
+            this.strings = strings;
+            this.decoded = new Airport[size];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Airport vertex(int id) {
+            Airport airport = decoded[id];
+            if (airport == null) {
+                airport = new Airport(string(2 * id), string(2 * id + 1),
+                        coordinates.get(2 * id), coordinates.get(2 * id + 1));
+                decoded[id] = airport;
+            }
+            return airport;
+        }
+
+        @Override
+        public int idOf(Airport v) {
+            if (v == null) {
+                return -1;
+            }
+            byte[] code = v.getCode().getBytes(StandardCharsets.UTF_8);
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int id = codeIndex.get(mid);
+                int cmp = compare(code, stringOffsets.get(2 * id), stringOffsets.get(2 * id + 1));
+                if (cmp > 0) {
+                    low = mid + 1;
+                } else if (cmp < 0) {
+                    high = mid - 1;
+                } else {
+                    return id;
+                }
+            }
+            return -1;
+        }
+
+        private String string(int index) {
+            int from = stringOffsets.get(index);
+            byte[] bytes = new byte[stringOffsets.get(index + 1) - from];
+            strings.get(from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Compares a code with the mapped bytes in {@code [from, to)}, as unsigned bytes.
+         */
+        private int compare(byte[] code, int from, int to) {
+            int length = Math.min(code.length, to - from);
+            for (int i = 0; i < length; i++) {
+                int cmp = Byte.compareUnsigned(code[i], strings.get(from + i));
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return code.length - (to - from);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package airportnetwork;
+
+import java.util.Arrays;
+
+/**
+ * An addressable d-ary min-heap of int keys in {@code [0, capacity)}, such as
+ * the dense vertex ids of a {@link CompactGraph}.
+ * It offers the same operations as {@link MiniHeap}, but keys and priorities are
+ * kept in parallel primitive arrays and the position of every key is tracked in an
+ * {@code int[]} indexed by the key, so no operation boxes or allocates. Each key
+ * may be in the heap at most once. With an arity of 4 or 8 the tree is shallower
+ * and the children of a node share a cache line, which usually beats a binary heap
+ * on large graphs.
+ */
+public final class IntMiniHeap implements IntPriorityQueue {
+
+    /** Arity used by {@link #IntMiniHeap(int)}. */
+    public static final int DEFAULT_ARITY = 4;
+
+    /** Number of children per node. */
+    private final int arity;
+
+    /** Keys in heap order. */
+    private final int[] keys;
+
+    /** Priorities in heap order, parallel to {@link #keys}. */
+    private final double[] priorities;
+
+    /** Heap index of every key, or -1 if the key is not in the heap. */
+    private final int[] positions;
+
+    /** Number of keys in the heap. */
+    private int size;
+
+    /**
+     * Constructs an empty heap for keys in {@code [0, capacity)} with the default arity.
+     *
+     * @param capacity one more than the largest key
+     */
+    public IntMiniHeap(int capacity) {
+        this(capacity, DEFAULT_ARITY);
+    }
+
+    /**
+     * Constructs an empty heap for keys in {@code [0, capacity)}.
+     *
+     * @param capacity one more than the largest key
+     * @param arity    the number of children per node, e.g. 2, 4 or 8
+     */
+    public IntMiniHeap(int capacity, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Arity must be at least 2: " + arity);
+        }
+        this.arity = arity;
+        this.keys = new int[capacity];
+        this.priorities = new double[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Checks if the heap is empty.
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of keys in the heap.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the given key is in the heap.
+     */
+    public boolean contains(int key) {
+        return positions[key] >= 0;
+    }
+
+    /**
+     * Returns the priority of a key in the heap.
+     */
+    public double priority(int key) {
+        return priorities[positions[key]];
+    }
+
+    /**
+     * Inserts a key that is not yet in the heap with the given priority.
+     */
+    public void insert(int key, double priority) {
+        siftUp(size++, key, priority);
+    }
+
+    /**
+     * Inserts the key, or decreases its priority if it is already in the heap.
+     */
+    @Override
+    public void offer(int key, double priority) {
+        int index = positions[key];
+        if (index < 0) {
+            siftUp(size++, key, priority);
+        } else if (priority < priorities[index]) {
+            siftUp(index, key, priority);
+        }
+    }
+
+    /**
+     * Returns the key with the minimum priority without removing it, or -1 if the heap is empty.
+     */
+    @Override
+    public int minKey() {
+        return size == 0 ? -1 : keys[0];
+    }
+
+    /**
+     * Returns the minimum priority in the heap without removing it,
+     * or infinity if the heap is empty.
+     */
+    @Override
+    public double minPriority() {
+        return size == 0 ? Double.POSITIVE_INFINITY : priorities[0];
+    }
+
+    /**
+     * Extracts and removes the key with the minimum priority, or returns -1 if the heap is empty.
+     */
+    @Override
+    public int extractMin() {
+        if (size == 0) {
+            return -1;
+        }
+        int min = keys[0];
+        positions[min] = -1;
+        if (--size > 0) {
+            siftDown(0, keys[size], priorities[size]);
+        }
+        return min;
+    }
+
+    /**
+     * Decreases the priority of the given key. Does nothing if the key is not in the
+     * heap or the new priority is not smaller.
+     */
+    public void decreaseKey(int key, double newPriority) {
+        int index = positions[key];
+        if (index >= 0 && newPriority < priorities[index]) {
+            siftUp(index, key, newPriority);
+        }
+    }
+
+    /**
+     * Changes the priority of the given key, which may move it either up or down the heap.
+     * Does nothing if the key is not in the heap.
+     */
+    public void changeKey(int key, double newPriority) {
+        int index = positions[key];
+        if (index < 0) {
+            return;
+        }
+        if (newPriority < priorities[index]) {
+            siftUp(index, key, newPriority);
+        } else {
+            siftDown(index, key, newPriority);
+        }
+    }
+
+    /**
+     * Removes every key, in time proportional to the number of keys still in the heap.
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[keys[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Places {@code key} into the hole at {@code index}, moving larger parents down
+     * into the hole until the heap property holds.
+     */
+    private void siftUp(int index, int key, double priority) {
+        while (index > 0) {
+            int parent = (index - 1) / arity;
+            if (priority >= priorities[parent]) {
+                break;
+            }
+            move(parent, index);
+            index = parent;
+        }
+        place(index, key, priority);
+    }
+
+    /**
+     * Places {@code key} into the hole at {@code index}, moving the smallest child up
+     * into the hole until the heap property holds.
+     */
+    private void siftDown(int index, int key, double priority) {
+        while (true) {
+            int first = index * arity + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + arity, size);
+            int smallest = first;
+            double smallestPriority = priorities[first];
+            for (int child = first + 1; child < last; child++) {
+                if (priorities[child] < smallestPriority) {
+                    smallest = child;
+                    smallestPriority = priorities[child];
+                }
+            }
+            if (smallestPriority >= priority) {
+                break;
+            }
+            move(smallest, index);
+            index = smallest;
+        }
+        place(index, key, priority);
+    }
+
+    /**
+     * Moves the entry at {@code from} to {@code to}.
+     */
+    private void move(int from, int to) {
+        int key = keys[from];
+        keys[to] = key;
+        priorities[to] = priorities[from];
+        positions[key] = to;
+    }
+
+    /**
+     * Stores a key and its priority at the given index.
+     */
+    private void place(int index, int key, double priority) {
+        keys[index] = key;
+        priorities[index] = priority;
+        positions[key] = index;
+    }
+}
@@ -0,0 +1,45 @@
+package airportnetwork;
+
+/**
+ * A min-priority queue of int keys in {@code [0, capacity)}, used as the frontier
+ * of the shortest-path engines.
+ * Implementations differ in how they handle a key that is offered again with a
+ * lower priority: addressable queues lower the priority in place, while lazy
+ * queues keep the older, now stale, copy and may return the key again later.
+ * Callers must therefore skip keys they have already settled. Choose an
+ * implementation through {@link QueueType}.
+ */
+public interface IntPriorityQueue {
+
+    /**
+     * Checks if the queue is empty.
+     */
+    boolean isEmpty();
+
+    /**
+     * Queues a key with the given priority. If the key is already queued with a higher
+     * priority, the priority is lowered or a second copy of the key is queued.
+     */
+    void offer(int key, double priority);
+
+    /**
+     * Returns the key with the minimum priority without removing it, or -1 if the queue is empty.
+     */
+    int minKey();
+
+    /**
+     * Returns the minimum priority in the queue without removing it,
+     * or infinity if the queue is empty.
+     */
+    double minPriority();
+
+    /**
+     * Extracts and removes the key with the minimum priority, or returns -1 if the queue is empty.
+     */
+    int extractMin();
+
+    /**
+     * Removes every key so the queue can be reused for the next query.
+     */
+    void clear();
+}
@@ -0,0 +1,327 @@
+package airportnetwork;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The loopless paths between two vertices of a {@link CompactGraph} in order of
+ * increasing cost (Yen's algorithm, with Lawler's refinement), produced lazily: the
+ * k-th path is only searched for when it is asked for, so a caller that stops after
+ * three routes pays for three.
+ * <p>
+ * Each new path is found among candidates that deviate from an earlier path at one
+ * of its vertices, the spur: the candidate keeps the earlier path up to the spur and
+ * continues with a shortest path from the spur that avoids the vertices before it and
+ * the edges already taken from there by paths sharing the same prefix. The spur
+ * searches are A* searches guided by the exact distances to the target in the whole
+ * graph, computed once by a backward search; removing edges only lengthens distances,
+ * so these stay admissible. The spur searches for one path are independent of each
+ * other; they run on the worker threads of a {@link ForkJoinPool}, each reusing its
+ * thread's {@link AStarEngine}. A path
+ * is a sequence of vertices; of several parallel edges between two of them only the
+ * cheapest counts. An iterator is not thread-safe.
+ */
+public final class KShortestPaths implements Iterator<int[]> {
+
+    /** Paths with fewer spurs than this are searched on the calling thread. */
+    private static final int PARALLEL_SPURS = 4;
+
+    /** The graph this iterator searches. */
+    private final CompactGraph<?> graph;
+
+    /** The end vertices of every path. */
+    private final int source;
+    private final int target;
+
+    /** The pool the spur searches run on. */
+    private final ForkJoinPool pool;
+
+    /** The paths returned so far, in order. */
+    private final List<Path> accepted = new ArrayList<>();
+
+    /** Candidates for the next path, cheapest first. */
+    private final PriorityQueue<Path> candidates = new PriorityQueue<>();
+
+    /** Every path ever queued as a candidate, so that none is queued twice. */
+    private final Set<Path> seen = new HashSet<>();
+
+    /** Distance from every vertex to the target, computed before the first spur search. */
+    private double[] toTarget;
+
+    /** Position of every vertex on the path whose spurs are being searched, or -1. */
+    private final int[] position;
+
+    /** The next path to return, or null if it has not been searched for yet. */
+    private Path next;
+
+    /** True once no further path exists. */
+    private boolean exhausted;
+
+    /** Cost of the path last returned by {@link #next()}. */
+    private double cost = Double.NaN;
+
+    /** Number of spur searches run so far. */
+    private int spurSearches;
+
+    /**
+     * Constructs an iterator whose spur searches run on the common fork/join pool.
+     *
+     * @param graph  the graph to search
+     * @param source the source vertex id
+     * @param target the target vertex id
+     */
+    public KShortestPaths(CompactGraph<?> graph, int source, int target) {
+        this(graph, source, target, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs an iterator. Nothing is searched until the first path is asked for.
+     *
+     * @param graph  the graph to search
+     * @param source the source vertex id
+     * @param target the target vertex id
+     * @param pool   the pool the spur searches run on
+     */
+    public KShortestPaths(CompactGraph<?> graph, int source, int target, ForkJoinPool pool) {
+        this.graph = graph;
+        this.source = source;
+        this.target = target;
+        this.pool = pool;
+        this.position = new int[graph.numVertices()];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Returns the loopless paths between two airports, cheapest first, as a lazy stream.
+     *
+     * @param graph the graph to search
+     * @param start the start airport
+     * @param goal  the goal airport
+     * @return the paths; empty if either airport is not in the graph or no path exists
+     */
+    public static Stream<List<Airport>> stream(Graph<Airport> graph, Airport start, Airport goal) {
+        return stream(graph.freeze(), start, goal);
+    }
+
+    /**
+     * Returns the loopless paths between two airports of a compressed graph, cheapest
+     * first, as a lazy stream.
+     *
+     * @param graph the graph to search
+     * @param start the start airport
+     * @param goal  the goal airport
+     * @return the paths; empty if either airport is not in the graph or no path exists
+     */
+    public static Stream<List<Airport>> stream(CompactGraph<Airport> graph, Airport start, Airport goal) {
+        int source = graph.idOf(start);
+        int target = graph.idOf(goal);
+        if (source < 0 || target < 0) {
+            return Stream.empty();
+        }
+        Iterator<int[]> paths = new KShortestPaths(graph, source, target);
+        Spliterator<int[]> spliterator = Spliterators.spliteratorUnknownSize(paths,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT);
+        return StreamSupport.stream(spliterator, false).map(graph::toVertices);
+    }
+
+    /**
+     * Tells whether there is another path, searching for it if needed.
+     *
+     * @return true if {@link #next()} will return a path
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null && !exhausted) {
+            next = accepted.isEmpty() ? shortest() : following();
+            exhausted = next == null;
+        }
+        return next != null;
+    }
+
+    /**
+     * Returns the next cheapest path.
+     *
+     * @return the vertex ids along the path
+     * @throws NoSuchElementException if there are no more paths
+     */
+    @Override
+    public int[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Path path = next;
+        next = null;
+        accepted.add(path);
+        cost = path.cost;
+        return path.vertices.clone();
+    }
+
+    /**
+     * Returns the cost of the path last returned by {@link #next()}.
+     *
+     * @return the cost, or NaN before the first path
+     */
+    public double cost() {
+        return cost;
+    }
+
+    /**
+     * Returns the number of spur searches run so far, a measure of the work done.
+     *
+     * @return the spur search count
+     */
+    public int spurSearches() {
+        return spurSearches;
+    }
+
+    /**
+     * Finds the shortest path, or null if the target cannot be reached.
+     */
+    private Path shortest() {
+        DijkstraEngine engine = Dijkstra.engineFor(graph);
+        if (!engine.run(source, target)) {
+            return null;
+        }
+        int[] vertices = engine.path(target);
+        double[] prefix = new double[vertices.length];
+        for (int i = 0; i < vertices.length; i++) {
+            prefix[i] = engine.distance(vertices[i]);
+        }
+        Path path = new Path(vertices, prefix, 0);
+        seen.add(path);
+        return path;
+    }
+
+    /**
+     * Queues the deviations of the last returned path and takes the cheapest candidate.
+     */
+    private Path following() {
+        if (toTarget == null) {
+            DijkstraEngine backward = new DijkstraEngine(graph.reversed());
+            backward.run(target);
+            toTarget = new double[graph.numVertices()];
+            for (int v = 0; v < toTarget.length; v++) {
+                toTarget[v] = backward.distance(v);
+            }
+        }
+        Path last = accepted.get(accepted.size() - 1);
+        int[] vertices = last.vertices;
+        for (int i = 0; i < vertices.length; i++) {
+            position[vertices[i]] = i;
+        }
+        // Spurs before the deviation point were searched when last's parent was returned.
+        int spurs = vertices.length - 1 - last.deviation;
+        Path[] found = new Path[Math.max(0, spurs)];
+        if (spurs >= PARALLEL_SPURS && pool.getParallelism() > 1) {
+            pool.submit(() -> IntStream.range(0, spurs).parallel()
+                    .forEach(s -> found[s] = spur(last, last.deviation + s))).join();
+        } else {
+            for (int s = 0; s < spurs; s++) {
+                found[s] = spur(last, last.deviation + s);
+            }
+        }
+        for (int i = 0; i < vertices.length; i++) {
+            position[vertices[i]] = -1;
+        }
+        spurSearches += found.length;
+        for (Path candidate : found) {
+            if (candidate != null && seen.add(candidate)) {
+                candidates.add(candidate);
+            }
+        }
+        return candidates.poll();
+    }
+
+    /**
+     * Searches for the cheapest path that follows {@code last} up to its i-th vertex
+     * and then leaves it. Runs on a worker thread; reads only state fixed for the round.
+     */
+    private Path spur(Path last, int i) {
+        int[] root = last.vertices;
+        int spur = root[i];
+        // Next vertices already taken from the spur by returned paths with the same root.
+        int[] banned = new int[accepted.size()];
+        int bannedCount = 0;
+        for (Path p : accepted) {
+            if (p.vertices.length > i + 1 && Arrays.equals(p.vertices, 0, i + 1, root, 0, i + 1)) {
+                banned[bannedCount++] = p.vertices[i + 1];
+            }
+        }
+        int spurStart = graph.edgeStart(spur);
+        int spurEnd = graph.edgeEnd(spur);
+        int bannedEnd = bannedCount;
+        IntPredicate allowed = e -> {
+            int v = graph.target(e);
+            int at = position[v];
+            if ((at >= 0 && at < i) || toTarget[v] == Double.POSITIVE_INFINITY) {
+                return false;
+            }
+            if (e >= spurStart && e < spurEnd) {
+                for (int b = 0; b < bannedEnd; b++) {
+                    if (banned[b] == v) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        };
+        AStarEngine engine = AStar.engineFor(graph);
+        if (!engine.findPath(spur, target, v -> toTarget[v], allowed)) {
+            return null;
+        }
+        int[] tail = engine.path(target);
+        int length = i + tail.length;
+        int[] vertices = Arrays.copyOf(root, length);
+        double[] prefix = Arrays.copyOf(last.prefix, length);
+        for (int k = 1; k < tail.length; k++) {
+            vertices[i + k] = tail[k];
+            prefix[i + k] = last.prefix[i] + engine.distance(tail[k]);
+        }
+        return new Path(vertices, prefix, i);
+    }
+
+    /**
+     * A path with the cost of each of its prefixes and the index of the vertex where it
+     * left the path it was derived from. Paths are equal if their vertices are.
+     */
+    private static final class Path implements Comparable<Path> {
+        final int[] vertices;
+        final double[] prefix;
+        final double cost;
+        final int deviation;
+        final int hash;
+
+        Path(int[] vertices, double[] prefix, int deviation) {
+            this.vertices = vertices;
+            this.prefix = prefix;
+            this.cost = prefix[prefix.length - 1];
+            this.deviation = deviation;
+            this.hash = Arrays.hashCode(vertices);
+        }
+
+        @Override
+        public int compareTo(Path other) {
+            int order = Double.compare(cost, other.cost);
+            if (order != 0) {
+                return order;
+            }
+            // Fewer legs first among equal costs, then a fixed order, so results are repeatable.
+            order = Integer.compare(vertices.length, other.vertices.length);
+            return order != 0 ? order : Arrays.compare(vertices, other.vertices);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Path && Arrays.equals(vertices, ((Path) o).vertices);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package airportnetwork;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Landmark ("ALT") lower bounds for A* search.
+ * For every landmark L the distances d(L, v) and d(v, L) to and from every
+ * vertex are precomputed. By the triangle inequality
+ * d(v, t) &gt;= d(L, t) - d(L, v) and d(v, t) &gt;= d(v, L) - d(t, L), and the
+ * largest of these bounds over all landmarks is an admissible and consistent
+ * A* heuristic that needs no coordinates. Instances are immutable and may be
+ * shared between threads.
+ */
+public final class Landmarks {
+
+    /** The graph the distances were computed on. */
+    private final CompactGraph<?> graph;
+
+    /** Vertex ids of the landmarks. */
+    private final int[] landmarks;
+
+    /** d(L_i, v) stored at [v * k + i], so the bounds of one vertex are adjacent. */
+    private final double[] fromLandmark;
+
+    /** d(v, L_i) stored at [v * k + i]. */
+    private final double[] toLandmark;
+
+    private Landmarks(CompactGraph<?> graph, int[] landmarks, double[] fromLandmark, double[] toLandmark) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    /**
+     * Selects landmarks for the current snapshot of a graph, as returned by {@link Graph#freeze()}.
+     *
+     * @param graph the graph to compute landmarks for
+     * @param count the number of landmarks to select
+     * @return the landmark bounds
+     */
+    public static Landmarks select(Graph<?> graph, int count) {
+        return select(graph.freeze(), count);
+    }
+
+    /**
+     * Selects {@code count} landmarks with farthest-point selection and precomputes their distances.
+     * The first landmark is the vertex farthest from an arbitrary start vertex; each
+     * further landmark is the reachable vertex farthest from all landmarks chosen so far,
+     * which places landmarks on the periphery where their bounds are tightest.
+     *
+     * @param graph the graph to compute landmarks for
+     * @param count the number of landmarks to select
+     * @return the landmark bounds
+     */
+    public static Landmarks select(CompactGraph<?> graph, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("At least one landmark is required");
+        }
+        int n = graph.numVertices();
+        if (n == 0) {
+            return of(graph, new int[0]);
+        }
+
+        DijkstraEngine engine = new DijkstraEngine(graph);
+        engine.run(0);
+        int next = farthest(engine::distance, n);
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        int[] chosen = new int[Math.min(count, n)];
+        // The forward distances of every chosen landmark, kept so that they are not searched again.
+        double[][] fromChosen = new double[chosen.length][];
+        int selected = 0;
+        while (selected < chosen.length && next >= 0) {
+            engine.run(next);
+            double[] row = new double[n];
+            for (int v = 0; v < n; v++) {
+                row[v] = engine.distance(v);
+                nearest[v] = Math.min(nearest[v], row[v]);
+            }
+            chosen[selected] = next;
+            fromChosen[selected++] = row;
+            next = farthest(v -> nearest[v], n);
+        }
+        if (selected == 0) {
+            // No vertex is reachable from vertex 0, whose search is still in the engine.
+            double[] row = new double[n];
+            for (int v = 0; v < n; v++) {
+                row[v] = engine.distance(v);
+            }
+            chosen[0] = 0;
+            fromChosen[selected++] = row;
+        }
+        return of(graph, Arrays.copyOf(chosen, selected), fromChosen);
+    }
+
+    /**
+     * Returns the vertex with the largest finite positive distance, or -1 if there is none.
+     */
+    private static int farthest(IntToDoubleFunction distance, int n) {
+        int best = -1;
+        double bestDist = 0.0;
+        for (int v = 0; v < n; v++) {
+            double d = distance.applyAsDouble(v);
+            if (d > bestDist && d != Double.POSITIVE_INFINITY) {
+                best = v;
+                bestDist = d;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Precomputes the distances of the given landmarks. The forward and backward
+     * single-source searches are independent and run in parallel, one
+     * {@link DijkstraEngine} per task.
+     *
+     * @param graph     the graph to compute distances on
+     * @param landmarks the vertex ids to use as landmarks
+     * @return the landmark bounds
+     */
+    public static Landmarks of(CompactGraph<?> graph, int[] landmarks) {
+        return of(graph, landmarks.clone(), null);
+    }
+
+    /**
+     * Precomputes the distances of the given landmarks, taking d(L_i, v) from
+     * {@code fromLandmarks[i]} when those rows are given and searching only
+     * the reversed graph.
+     */
+    private static Landmarks of(CompactGraph<?> graph, int[] landmarks, double[][] fromLandmarks) {
+        int n = graph.numVertices();
+        int k = landmarks.length;
+        double[] fromLandmark = new double[n * k];
+        double[] toLandmark = new double[n * k];
+        CompactGraph<?> reverse = graph.reversed();
+        if (fromLandmarks != null) {
+            for (int i = 0; i < k; i++) {
+                double[] row = fromLandmarks[i];
+                for (int v = 0; v < n; v++) {
+                    fromLandmark[v * k + i] = row[v];
+                }
+            }
+        }
+
+        // Task 2i searches landmark i forwards, task 2i + 1 searches it on the reversed graph.
+        IntStream.range(0, 2 * k).parallel().forEach(task -> {
+            int i = task >> 1;
+            boolean forward = (task & 1) == 0;
+            if (forward && fromLandmarks != null) {
+                return;
+            }
+            DijkstraEngine engine = new DijkstraEngine(forward ? graph : reverse);
+            engine.run(landmarks[i]);
+            double[] out = forward ? fromLandmark : toLandmark;
+            for (int v = 0; v < n; v++) {
+                out[v * k + i] = engine.distance(v);
+            }
+        });
+        return new Landmarks(graph, landmarks, fromLandmark, toLandmark);
+    }
+
+    /**
+     * Returns the graph the distances were computed on.
+     *
+     * @return the graph
+     */
+    public CompactGraph<?> graph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of landmarks.
+     *
+     * @return the landmark count
+     */
+    public int size() {
+        return landmarks.length;
+    }
+
+    /**
+     * Returns the vertex id of a landmark.
+     *
+     * @param i the landmark index
+     * @return the vertex id
+     */
+    public int landmark(int i) {
+        return landmarks[i];
+    }
+
+    /**
+     * Returns a lower bound on the shortest-path distance from {@code u} to {@code v}.
+     * Landmarks that cannot reach, or cannot be reached from, the vertices involved
+     * contribute no bound.
+     *
+     * @param u the source vertex id
+     * @param v the target vertex id
+     * @return a lower bound on d(u, v), at least 0
+     */
+    public double lowerBound(int u, int v) {
+        int k = landmarks.length;
+        int bu = u * k;
+        int bv = v * k;
+        double bound = 0.0;
+        for (int i = 0; i < k; i++) {
+            // d(L, v) - d(L, u) <= d(u, v)
+            double fu = fromLandmark[bu + i];
+            double fv = fromLandmark[bv + i];
+            if (fv != Double.POSITIVE_INFINITY && fu != Double.POSITIVE_INFINITY && fv - fu > bound) {
+                bound = fv - fu;
+            }
+            // d(u, L) - d(v, L) <= d(u, v)
+            double tu = toLandmark[bu + i];
+            double tv = toLandmark[bv + i];
+            if (tu != Double.POSITIVE_INFINITY && tv != Double.POSITIVE_INFINITY && tu - tv > bound) {
+                bound = tu - tv;
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Returns an A* heuristic estimating the remaining distance to {@code target}.
+     *
+     * @param target the target vertex id
+     * @return lower bound on the distance from a vertex id to the target
+     */
+    public IntToDoubleFunction toward(int target) {
+        return v -> lowerBound(v, target);
+    }
+
+    /**
+     * Returns a lower bound on the distance travelled from {@code source}, as needed by
+     * the backward direction of {@link BidirectionalAStar}.
+     *
+     * @param source the source vertex id
+     * @return lower bound on the distance from the source to a vertex id
+     */
+    public IntToDoubleFunction awayFrom(int source) {
+        return v -> lowerBound(source, v);
+    }
+}
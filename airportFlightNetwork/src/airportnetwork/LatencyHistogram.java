@@ -0,0 +1,113 @@
+package airportnetwork;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative durations in nanoseconds with log-linear buckets, in
+ * the manner of HdrHistogram: values are grouped by their highest set bit, and each
+ * group is split into 64 equal sub-buckets, so a recorded value is known to within
+ * 1/64 (about 1.6%) of itself whatever its magnitude. The buckets are a fixed array
+ * of about 3700 counters updated atomically, so several threads can record at once
+ * without locking and nothing is allocated per value.
+ */
+final class LatencyHistogram {
+
+    /** Bits of precision kept below the highest set bit of a value. */
+    private static final int SUB_BITS = 6;
+
+    /** Number of buckets covering every non-negative long. */
+    private static final int BUCKETS = ((62 - SUB_BITS) << SUB_BITS) + (2 << SUB_BITS);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Records a value; negative values count as 0.
+     */
+    void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+    }
+
+    /**
+     * Returns the number of values recorded.
+     */
+    long count() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the sum of the values recorded.
+     */
+    long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * Returns the value below or at which the given fraction of the recorded values lie,
+     * rounded up to the top of its bucket, or 0 if nothing was recorded.
+     *
+     * @param fraction the quantile, from 0 to 1
+     */
+    long quantile(double fraction) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) {
+                return highestValue(b);
+            }
+        }
+        // Values recorded during the scan may have moved the total past the buckets read.
+        return max();
+    }
+
+    /**
+     * Returns the largest value recorded, to within its bucket, or 0.
+     */
+    long max() {
+        for (int b = BUCKETS - 1; b >= 0; b--) {
+            if (counts.get(b) != 0) {
+                return highestValue(b);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Forgets every recorded value. Values recorded concurrently may survive in part.
+     */
+    void reset() {
+        for (int b = 0; b < BUCKETS; b++) {
+            counts.set(b, 0);
+        }
+        count.reset();
+        sum.reset();
+    }
+
+    /**
+     * Returns the bucket of a value: values below 2^(SUB_BITS+1) have one bucket each;
+     * larger ones keep their SUB_BITS + 1 highest bits.
+     */
+    static int bucket(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the largest value that falls in a bucket.
+     */
+    static long highestValue(int bucket) {
+        int shift = Math.max(0, (bucket >>> SUB_BITS) - 1);
+        long lowest = (long) (bucket - (shift << SUB_BITS)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
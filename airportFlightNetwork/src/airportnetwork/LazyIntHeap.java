@@ -0,0 +1,95 @@
+package airportnetwork;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of (key, priority) entries with no position index.
+ * Offering a key that is already queued simply adds another entry, so the heap
+ * may return a key more than once; the older copies are stale and must be
+ * skipped by the caller. Without the index the heap does less work per
+ * operation, at the cost of holding more entries.
+ */
+final class LazyIntHeap implements IntPriorityQueue {
+
+    /** Keys in heap order. */
+    private int[] keys = new int[16];
+
+    /** Priorities in heap order, parallel to {@link #keys}. */
+    private double[] priorities = new double[16];
+
+    /** Number of entries in the heap, stale copies included. */
+    private int size;
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void offer(int key, double priority) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        // Sift the new entry up from the end.
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (priority >= priorities[parent]) {
+                break;
+            }
+            keys[index] = keys[parent];
+            priorities[index] = priorities[parent];
+            index = parent;
+        }
+        keys[index] = key;
+        priorities[index] = priority;
+    }
+
+    @Override
+    public int minKey() {
+        return size == 0 ? -1 : keys[0];
+    }
+
+    @Override
+    public double minPriority() {
+        return size == 0 ? Double.POSITIVE_INFINITY : priorities[0];
+    }
+
+    @Override
+    public int extractMin() {
+        if (size == 0) {
+            return -1;
+        }
+        int min = keys[0];
+        if (--size > 0) {
+            // Sift the last entry down from the root.
+            int key = keys[size];
+            double priority = priorities[size];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                    child++;
+                }
+                if (priorities[child] >= priority) {
+                    break;
+                }
+                keys[index] = keys[child];
+                priorities[index] = priorities[child];
+                index = child;
+            }
+            keys[index] = key;
+            priorities[index] = priority;
+        }
+        return min;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,272 @@
+package airportnetwork;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Shortest-path search under a leg limit, shared by {@link DijkstraEngine} and
+ * {@link AStarEngine} for constraints with {@link RouteConstraints#maxLegs()}.
+ * <p>
+ * With a leg limit, the cheapest route to a vertex may be useless for reaching the
+ * target in time, and a dearer route with fewer legs may be the one to extend. The
+ * search therefore settles labels (vertex, legs, cost) in order of cost plus the
+ * heuristic: a vertex is settled again each time it is reached with fewer legs than
+ * before, so at most {@code maxLegs + 1} times. A label is not queued if a settled
+ * label of its vertex has no more legs, nor if the cheapest label queued for its
+ * vertex has no more legs either. Labels live in primitive arrays that grow as needed
+ * and are reused between queries.
+ */
+final class LegSearch {
+
+    /** The graph this search runs on. */
+    private final CompactGraph<?> graph;
+
+    /** Fewest legs among the settled labels of every vertex, or {@link Integer#MAX_VALUE}; valid where stamped. */
+    private final int[] settledLegs;
+
+    /** First (cheapest) settled label of every vertex, or -1; valid where stamped. */
+    private final int[] firstLabel;
+
+    /** Cost and legs of the cheapest label queued for every vertex; valid where stamped. */
+    private final double[] queuedCost;
+    private final int[] queuedLegs;
+
+    /** Heuristic estimate of every reached vertex, evaluated once per query; valid where stamped. */
+    private final double[] estimate;
+
+    /** Marks the vertices reached by the current query. */
+    private final int[] stamp;
+
+    /** Generation of the current query in {@link #stamp}. */
+    private int generation;
+
+    /** Vertex, legs, parent label and cost of every label. */
+    private int[] labelVertex = new int[64];
+    private int[] labelLegs = new int[64];
+    private int[] labelParent = new int[64];
+    private double[] labelCost = new double[64];
+    private int labels;
+
+    /** Unsettled labels in a binary heap on their priorities, kept alongside so sifting reads one array. */
+    private int[] heap = new int[64];
+    private double[] heapPriority = new double[64];
+    private int heapSize;
+
+    /** Number of labels settled by the last query. */
+    private int settled;
+
+    /** Work of the current query, counted only if {@link SearchMetrics#ENABLED}. */
+    private final SearchMetrics.Counters counters = new SearchMetrics.Counters();
+
+    LegSearch(CompactGraph<?> graph) {
+        this.graph = graph;
+        int n = graph.numVertices();
+        settledLegs = new int[n];
+        firstLabel = new int[n];
+        queuedCost = new double[n];
+        queuedLegs = new int[n];
+        estimate = new double[n];
+        stamp = new int[n];
+    }
+
+    /**
+     * Searches for the cheapest route from source to target within the constraints, or
+     * settles every vertex reachable within them if target is -1.
+     *
+     * @param heuristic estimated remaining cost to the target, or null for none
+     * @return true if the target was reached
+     */
+    boolean search(int source, int target, RouteConstraints constraints, IntToDoubleFunction heuristic) {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        labels = 0;
+        heapSize = 0;
+        settled = 0;
+        if (SearchMetrics.ENABLED) {
+            counters.reset();
+        }
+        int maxLegs = constraints.maxLegs();
+        double maxCost = constraints.maxCost();
+        reach(source, heuristic);
+        push(newLabel(source, 0, -1, 0.0), estimate[source]);
+
+        while (heapSize > 0) {
+            int l = pop();
+            int u = labelVertex[l];
+            int legs = labelLegs[l];
+            // Settled labels are cheaper, so this one only helps if it has fewer legs.
+            if (legs >= settledLegs[u]) {
+                continue;
+            }
+            if (settledLegs[u] == Integer.MAX_VALUE) {
+                firstLabel[u] = l;
+            }
+            settledLegs[u] = legs;
+            settled++;
+            if (u == target) {
+                return true;
+            }
+            if (legs == maxLegs) {
+                continue;
+            }
+            double cost = labelCost[l];
+            int next = legs + 1;
+            for (int e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                int v = graph.target(e);
+                double c = cost + graph.weight(e);
+                if (c > maxCost || !constraints.allows(e, v)) {
+                    continue;
+                }
+                if (SearchMetrics.ENABLED) {
+                    counters.relaxed++;
+                }
+                if (stamp[v] != generation) {
+                    reach(v, heuristic);
+                } else if (next >= settledLegs[v] || (c >= queuedCost[v] && next >= queuedLegs[v])) {
+                    continue;
+                }
+                if (c < queuedCost[v]) {
+                    queuedCost[v] = c;
+                    queuedLegs[v] = next;
+                }
+                push(newLabel(v, next, l, c), c + estimate[v]);
+            }
+        }
+        return target < 0 || isReached(target);
+    }
+
+    /**
+     * Returns true if the last query settled the vertex.
+     */
+    boolean isReached(int v) {
+        return stamp[v] == generation && firstLabel[v] >= 0;
+    }
+
+    /**
+     * Returns the cost of the cheapest route to the vertex within the constraints, or infinity.
+     */
+    double distance(int v) {
+        return isReached(v) ? labelCost[firstLabel[v]] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the vertex before v on its cheapest route, or -1.
+     */
+    int predecessor(int v) {
+        if (!isReached(v)) {
+            return -1;
+        }
+        int parent = labelParent[firstLabel[v]];
+        return parent < 0 ? -1 : labelVertex[parent];
+    }
+
+    /**
+     * Returns the vertex ids on the cheapest route to v, or an empty array.
+     */
+    int[] path(int v) {
+        if (!isReached(v)) {
+            return new int[0];
+        }
+        int l = firstLabel[v];
+        int[] path = new int[labelLegs[l] + 1];
+        for (int k = path.length - 1; l >= 0; l = labelParent[l]) {
+            path[k--] = labelVertex[l];
+        }
+        return path;
+    }
+
+    /**
+     * Adds the counts and latency of the query just finished, started at {@code started}
+     * by {@link System#nanoTime()}, to the given metrics.
+     */
+    void record(SearchMetrics metrics, long started) {
+        metrics.record(System.nanoTime() - started, settled, counters);
+    }
+
+    /**
+     * Returns the number of labels settled by the last query.
+     */
+    int settledCount() {
+        return settled;
+    }
+
+    /** Stamps a vertex reached for the first time in this query. */
+    private void reach(int v, IntToDoubleFunction heuristic) {
+        stamp[v] = generation;
+        settledLegs[v] = Integer.MAX_VALUE;
+        firstLabel[v] = -1;
+        queuedCost[v] = Double.POSITIVE_INFINITY;
+        queuedLegs[v] = Integer.MAX_VALUE;
+        estimate[v] = heuristic == null ? 0.0 : heuristic.applyAsDouble(v);
+    }
+
+    private int newLabel(int v, int legs, int parent, double cost) {
+        if (labels == labelVertex.length) {
+            int capacity = labels * 2;
+            labelVertex = Arrays.copyOf(labelVertex, capacity);
+            labelLegs = Arrays.copyOf(labelLegs, capacity);
+            labelParent = Arrays.copyOf(labelParent, capacity);
+            labelCost = Arrays.copyOf(labelCost, capacity);
+        }
+        int l = labels++;
+        labelVertex[l] = v;
+        labelLegs[l] = legs;
+        labelParent[l] = parent;
+        labelCost[l] = cost;
+        return l;
+    }
+
+    private void push(int l, double priority) {
+        if (SearchMetrics.ENABLED) {
+            counters.insert();
+        }
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+            heapPriority = Arrays.copyOf(heapPriority, heapSize * 2);
+        }
+        int index = heapSize++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heapPriority[parent] <= priority) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heapPriority[index] = heapPriority[parent];
+            index = parent;
+        }
+        heap[index] = l;
+        heapPriority[index] = priority;
+    }
+
+    private int pop() {
+        if (SearchMetrics.ENABLED) {
+            counters.extractMin();
+        }
+        int top = heap[0];
+        int last = heap[--heapSize];
+        double lastPriority = heapPriority[heapSize];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapPriority[child + 1] < heapPriority[child]) {
+                child++;
+            }
+            if (heapPriority[child] >= lastPriority) {
+                break;
+            }
+            heap[index] = heap[child];
+            heapPriority[index] = heapPriority[child];
+            index = child;
+        }
+        if (heapSize > 0) {
+            heap[index] = last;
+            heapPriority[index] = lastPriority;
+        }
+        return top;
+    }
+}
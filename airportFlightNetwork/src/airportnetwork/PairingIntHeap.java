@@ -0,0 +1,159 @@
+package airportnetwork;
+
+import java.util.Arrays;
+
+/**
+ * An addressable pairing heap of int keys in {@code [0, capacity)}.
+ * Insert and decrease-key only link trees in O(1); the restructuring is deferred
+ * to extract-min, which pairs up the children of the removed root. The tree is
+ * stored in primitive arrays indexed by key (leftmost child, next sibling, and
+ * the previous sibling or parent), so no operation allocates.
+ */
+final class PairingIntHeap implements IntPriorityQueue {
+
+    /** Marks an absent link. */
+    private static final int NONE = -1;
+
+    /** Priority of every queued key. */
+    private final double[] priority;
+
+    /** Leftmost child of every key, or NONE. */
+    private final int[] child;
+
+    /** Next sibling of every key, or NONE. */
+    private final int[] next;
+
+    /** Previous sibling of every key, or its parent if it is the leftmost child; NONE for the root. */
+    private final int[] prev;
+
+    /** Equals {@link #generation} for every key currently in the heap. */
+    private final int[] stamp;
+
+    /** Generation of the current contents; bumped by clear() so it costs O(1). */
+    private int generation = 1;
+
+    /** Scratch list of subtrees during the pairing passes. */
+    private int[] pairs = new int[16];
+
+    /** The root, or NONE if the heap is empty. */
+    private int root = NONE;
+
+    PairingIntHeap(int capacity) {
+        priority = new double[capacity];
+        child = new int[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        stamp = new int[capacity];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return root == NONE;
+    }
+
+    @Override
+    public void offer(int key, double newPriority) {
+        if (stamp[key] != generation) {
+            stamp[key] = generation;
+            priority[key] = newPriority;
+            child[key] = NONE;
+            next[key] = NONE;
+            prev[key] = NONE;
+            root = root == NONE ? key : link(root, key);
+            return;
+        }
+        if (newPriority >= priority[key]) {
+            return;
+        }
+        priority[key] = newPriority;
+        if (key != root) {
+            // Cut the subtree of key out of its sibling list and link it with the root.
+            int before = prev[key];
+            int after = next[key];
+            if (child[before] == key) {
+                child[before] = after;
+            } else {
+                next[before] = after;
+            }
+            if (after != NONE) {
+                prev[after] = before;
+            }
+            next[key] = NONE;
+            prev[key] = NONE;
+            root = link(root, key);
+        }
+    }
+
+    @Override
+    public int minKey() {
+        return root;
+    }
+
+    @Override
+    public double minPriority() {
+        return root == NONE ? Double.POSITIVE_INFINITY : priority[root];
+    }
+
+    @Override
+    public int extractMin() {
+        int min = root;
+        if (min == NONE) {
+            return NONE;
+        }
+        stamp[min] = 0;
+
+        // First pass: link the children pairwise from left to right.
+        int count = 0;
+        for (int c = child[min]; c != NONE; ) {
+            int a = c;
+            int b = next[a];
+            c = b == NONE ? NONE : next[b];
+            next[a] = NONE;
+            prev[a] = NONE;
+            if (b != NONE) {
+                next[b] = NONE;
+                prev[b] = NONE;
+                a = link(a, b);
+            }
+            if (count == pairs.length) {
+                pairs = Arrays.copyOf(pairs, count * 2);
+            }
+            pairs[count++] = a;
+        }
+        // Second pass: link the pairs from right to left into a single tree.
+        int tree = NONE;
+        for (int i = count - 1; i >= 0; i--) {
+            tree = tree == NONE ? pairs[i] : link(pairs[i], tree);
+        }
+        root = tree;
+        return min;
+    }
+
+    @Override
+    public void clear() {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        root = NONE;
+    }
+
+    /**
+     * Links two roots and returns the new root; the other becomes its leftmost child.
+     */
+    private int link(int a, int b) {
+        if (priority[b] < priority[a]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        int first = child[a];
+        next[b] = first;
+        if (first != NONE) {
+            prev[first] = b;
+        }
+        prev[b] = a;
+        child[a] = b;
+        return a;
+    }
+}
@@ -0,0 +1,413 @@
+package airportnetwork;
+
+import java.util.Arrays;
+
+/**
+ * Multi-criteria shortest paths over a {@link CompactGraph}: finds every route between
+ * two vertices that no other route beats on cost, duration and number of legs at once.
+ * <p>
+ * The cost of an edge is its weight; its duration comes from a separate array indexed
+ * like the edges. The search is label-setting (Martins): a label is a partial route
+ * (cost, duration, legs) ending at a vertex, and labels are settled in lexicographic
+ * order of their criteria, so a settled label is never dominated by a later one. Each
+ * vertex keeps its live labels in a linked list; a new label is dropped if a label of
+ * its vertex, or one already at the target, is at least as good on every criterion,
+ * and it removes the unsettled labels of its vertex that it beats. Labels live in
+ * parallel primitive arrays that are reused between queries.
+ * <p>
+ * The front can grow quickly with the size of the graph; bounds on cost, duration and
+ * legs, and on the number of labels created, keep a query in check. An engine is not
+ * thread-safe; use one per thread.
+ */
+public final class ParetoEngine {
+
+    /** The graph this engine searches. */
+    private final CompactGraph<?> graph;
+
+    /** Duration of every edge, indexed like its weight. */
+    private final double[] duration;
+
+    /** Routes costing more, lasting longer or with more legs than these are not considered. */
+    private double maxCost = Double.POSITIVE_INFINITY;
+    private double maxDuration = Double.POSITIVE_INFINITY;
+    private int maxLegs = Integer.MAX_VALUE;
+
+    /** Labels a query may create before it gives up on the rest of the front. */
+    private int maxLabels = Integer.MAX_VALUE;
+
+    /** Criteria, vertex, parent label and next label in the vertex's list, of every label. */
+    private double[] labelCost = new double[64];
+    private double[] labelDuration = new double[64];
+    private int[] labelLegs = new int[64];
+    private int[] labelVertex = new int[64];
+    private int[] labelParent = new int[64];
+    private int[] labelNext = new int[64];
+
+    /** Whether every label has been settled, or removed as dominated. */
+    private boolean[] labelSettled = new boolean[64];
+    private boolean[] labelDead = new boolean[64];
+
+    /** Number of labels created by the last query. */
+    private int labels;
+
+    /** First live label of every vertex, valid where stamped. */
+    private final int[] head;
+
+    /** Marks the vertices given labels by the current query. */
+    private final int[] stamp;
+
+    /** Generation of the current query in {@link #stamp}. */
+    private int generation;
+
+    /** Unsettled labels in lexicographic order of their criteria; removed labels are skipped. */
+    private int[] heap = new int[64];
+    private int heapSize;
+
+    /** Settled labels at the target, in the order found. */
+    private int[] front = new int[16];
+    private int frontSize;
+
+    /** Whether the last query stopped at {@link #maxLabels}. */
+    private boolean truncated;
+
+    /**
+     * Constructs an engine.
+     *
+     * @param graph    the graph to search; its weights are the costs of the edges
+     * @param duration the duration of every edge, indexed like {@link CompactGraph#weight(int)}
+     * @throws IllegalArgumentException if there is not one duration per edge
+     */
+    public ParetoEngine(CompactGraph<?> graph, double[] duration) {
+        if (duration.length != graph.numEdges()) {
+            throw new IllegalArgumentException("Expected " + graph.numEdges() + " durations, got " + duration.length);
+        }
+        this.graph = graph;
+        this.duration = duration;
+        int n = graph.numVertices();
+        this.head = new int[n];
+        this.stamp = new int[n];
+    }
+
+    /**
+     * Returns the durations of the edges of a graph of airports flown at a constant
+     * speed, with a fixed time per leg for taxiing, take-off and landing.
+     *
+     * @param graph        the graph
+     * @param kmPerHour    the cruising speed
+     * @param hoursPerLeg  the fixed time per leg
+     * @return the duration of every edge in hours
+     * @throws IllegalArgumentException if an airport has no coordinates
+     */
+    public static double[] flightHours(CompactGraph<Airport> graph, double kmPerHour, double hoursPerLeg) {
+        double[] hours = new double[graph.numEdges()];
+        for (int v = 0; v < graph.numVertices(); v++) {
+            Airport from = graph.vertex(v);
+            for (int e = graph.edgeStart(v), end = graph.edgeEnd(v); e < end; e++) {
+                Airport to = graph.vertex(graph.target(e));
+                if (!from.hasCoordinates() || !to.hasCoordinates()) {
+                    throw new IllegalArgumentException("No coordinates for " + from + " or " + to);
+                }
+                hours[e] = from.distanceTo(to) / kmPerHour + hoursPerLeg;
+            }
+        }
+        return hours;
+    }
+
+    /**
+     * Sets the bounds of the following queries: routes exceeding any of them are not
+     * part of the front. Tight bounds shrink both the front and the search.
+     *
+     * @param maxCost     the largest cost
+     * @param maxDuration the largest duration
+     * @param maxLegs     the largest number of legs
+     */
+    public void setBounds(double maxCost, double maxDuration, int maxLegs) {
+        this.maxCost = maxCost;
+        this.maxDuration = maxDuration;
+        this.maxLegs = maxLegs;
+    }
+
+    /**
+     * Limits the number of labels a query may create. A query that reaches the limit
+     * stops and returns the routes found so far, which are Pareto-optimal but may not
+     * be the whole front.
+     *
+     * @param maxLabels the label limit
+     * @throws IllegalArgumentException if maxLabels is negative
+     */
+    public void setMaxLabels(int maxLabels) {
+        if (maxLabels < 0) {
+            throw new IllegalArgumentException("Negative label limit: " + maxLabels);
+        }
+        this.maxLabels = maxLabels;
+    }
+
+    /**
+     * Returns the graph this engine searches.
+     *
+     * @return the graph
+     */
+    public CompactGraph<?> graph() {
+        return graph;
+    }
+
+    /**
+     * Computes the Pareto front of routes from {@code source} to {@code target}.
+     *
+     * @param source the source vertex id
+     * @param target the target vertex id
+     * @return the number of routes in the front
+     */
+    public int run(int source, int target) {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        labels = 0;
+        heapSize = 0;
+        frontSize = 0;
+        truncated = false;
+        push(newLabel(source, 0.0, 0.0, 0, -1));
+
+        while (heapSize > 0) {
+            int l = pop();
+            if (labelDead[l]) {
+                continue;
+            }
+            labelSettled[l] = true;
+            int u = labelVertex[l];
+            if (u == target) {
+                if (frontSize == front.length) {
+                    front = Arrays.copyOf(front, frontSize * 2);
+                }
+                front[frontSize++] = l;
+                continue;
+            }
+            double cost = labelCost[l];
+            double time = labelDuration[l];
+            int legs = labelLegs[l] + 1;
+            // The target may have been reached more cheaply since this label was queued.
+            if (legs > maxLegs || dominated(target, cost, time, legs)) {
+                continue;
+            }
+            for (int e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                double c = cost + graph.weight(e);
+                double d = time + duration[e];
+                if (c > maxCost || d > maxDuration) {
+                    continue;
+                }
+                int v = graph.target(e);
+                // A route that the target already matches can only get worse from here.
+                if (dominated(v, c, d, legs) || (v != target && dominated(target, c, d, legs))) {
+                    continue;
+                }
+                if (labels >= maxLabels) {
+                    truncated = true;
+                    heapSize = 0;
+                    break;
+                }
+                removeDominated(v, c, d, legs);
+                push(newLabel(v, c, d, legs, l));
+            }
+        }
+        return frontSize;
+    }
+
+    /**
+     * Returns the number of routes in the front of the last query.
+     *
+     * @return the front size
+     */
+    public int frontSize() {
+        return frontSize;
+    }
+
+    /**
+     * Returns the cost of a route of the front, which is ordered by increasing cost.
+     *
+     * @param i the route index
+     * @return its cost
+     */
+    public double cost(int i) {
+        return labelCost[frontLabel(i)];
+    }
+
+    /**
+     * Returns the duration of a route of the front.
+     *
+     * @param i the route index
+     * @return its duration
+     */
+    public double duration(int i) {
+        return labelDuration[frontLabel(i)];
+    }
+
+    /**
+     * Returns the number of legs of a route of the front.
+     *
+     * @param i the route index
+     * @return its number of edges
+     */
+    public int legs(int i) {
+        return labelLegs[frontLabel(i)];
+    }
+
+    /**
+     * Returns the vertices of a route of the front.
+     *
+     * @param i the route index
+     * @return the vertex ids along the route
+     */
+    public int[] path(int i) {
+        int l = frontLabel(i);
+        int[] path = new int[labelLegs[l] + 1];
+        for (int k = path.length - 1; l >= 0; l = labelParent[l]) {
+            path[k--] = labelVertex[l];
+        }
+        return path;
+    }
+
+    /**
+     * Returns the number of labels created by the last query, a measure of its work.
+     *
+     * @return the label count
+     */
+    public int labelCount() {
+        return labels;
+    }
+
+    /**
+     * Tells whether the last query stopped at the label limit, so its front may be incomplete.
+     *
+     * @return true if the query was cut short
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    private int frontLabel(int i) {
+        if (i < 0 || i >= frontSize) {
+            throw new IndexOutOfBoundsException("Route " + i + " of " + frontSize);
+        }
+        return front[i];
+    }
+
+    /**
+     * Tells whether a live label of v is at least as good as (c, d, legs) on every criterion.
+     */
+    private boolean dominated(int v, double c, double d, int legs) {
+        if (stamp[v] != generation) {
+            return false;
+        }
+        for (int l = head[v]; l >= 0; l = labelNext[l]) {
+            if (labelCost[l] <= c && labelDuration[l] <= d && labelLegs[l] <= legs) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unlinks the unsettled labels of v that (c, d, legs) beats; they stay in the heap
+     * marked dead. A settled label precedes every new one in lexicographic order, so it
+     * cannot be beaten.
+     */
+    private void removeDominated(int v, double c, double d, int legs) {
+        if (stamp[v] != generation) {
+            return;
+        }
+        int previous = -1;
+        for (int l = head[v]; l >= 0; l = labelNext[l]) {
+            if (!labelSettled[l] && c <= labelCost[l] && d <= labelDuration[l] && legs <= labelLegs[l]) {
+                labelDead[l] = true;
+                if (previous < 0) {
+                    head[v] = labelNext[l];
+                } else {
+                    labelNext[previous] = labelNext[l];
+                }
+            } else {
+                previous = l;
+            }
+        }
+    }
+
+    private int newLabel(int v, double cost, double time, int legs, int parent) {
+        if (labels == labelCost.length) {
+            int capacity = labels * 2;
+            labelCost = Arrays.copyOf(labelCost, capacity);
+            labelDuration = Arrays.copyOf(labelDuration, capacity);
+            labelLegs = Arrays.copyOf(labelLegs, capacity);
+            labelVertex = Arrays.copyOf(labelVertex, capacity);
+            labelParent = Arrays.copyOf(labelParent, capacity);
+            labelNext = Arrays.copyOf(labelNext, capacity);
+            labelSettled = Arrays.copyOf(labelSettled, capacity);
+            labelDead = Arrays.copyOf(labelDead, capacity);
+        }
+        int l = labels++;
+        labelCost[l] = cost;
+        labelDuration[l] = time;
+        labelLegs[l] = legs;
+        labelVertex[l] = v;
+        labelParent[l] = parent;
+        labelSettled[l] = false;
+        labelDead[l] = false;
+        if (stamp[v] != generation) {
+            stamp[v] = generation;
+            head[v] = -1;
+        }
+        labelNext[l] = head[v];
+        head[v] = l;
+        return l;
+    }
+
+    /** Lexicographic order of the criteria: cost, then duration, then legs. */
+    private boolean less(int a, int b) {
+        if (labelCost[a] != labelCost[b]) {
+            return labelCost[a] < labelCost[b];
+        }
+        if (labelDuration[a] != labelDuration[b]) {
+            return labelDuration[a] < labelDuration[b];
+        }
+        return labelLegs[a] < labelLegs[b];
+    }
+
+    private void push(int l) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        int index = heapSize++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!less(l, heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = l;
+    }
+
+    private int pop() {
+        int top = heap[0];
+        int last = heap[--heapSize];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], last)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        if (heapSize > 0) {
+            heap[index] = last;
+        }
+        return top;
+    }
+}
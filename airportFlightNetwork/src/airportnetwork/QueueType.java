@@ -0,0 +1,59 @@
+package airportnetwork;
+
+/**
+ * The priority-queue implementations available to the shortest-path engines.
+ * Which one is fastest depends on the graph and the query; compare them with
+ * {@code testing.QueuePerformanceTest}.
+ */
+public enum QueueType {
+
+    /** Binary {@link IntMiniHeap} with decrease-key. */
+    BINARY_HEAP,
+
+    /** 4-ary {@link IntMiniHeap} with decrease-key; the default. */
+    FOUR_ARY_HEAP,
+
+    /** Binary heap without a position index that queues duplicates instead of decreasing keys. */
+    LAZY_HEAP,
+
+    /** Pairing heap with O(1) insert and decrease-key. */
+    PAIRING_HEAP,
+
+    /**
+     * Radix heap over the bit patterns of the priorities. It requires monotone
+     * priorities, never below the last extracted minimum, as produced by Dijkstra
+     * and by A* with a consistent heuristic.
+     */
+    RADIX_HEAP;
+
+    /**
+     * Creates an empty queue of this type for keys in {@code [0, capacity)}.
+     *
+     * @param capacity one more than the largest key
+     * @return the queue
+     */
+    public IntPriorityQueue create(int capacity) {
+        switch (this) {
+            case BINARY_HEAP:
+                return new IntMiniHeap(capacity, 2);
+            case FOUR_ARY_HEAP:
+                return new IntMiniHeap(capacity, 4);
+            case LAZY_HEAP:
+                return new LazyIntHeap();
+            case PAIRING_HEAP:
+                return new PairingIntHeap(capacity);
+            case RADIX_HEAP:
+                return new RadixIntHeap();
+            default:
+                throw new AssertionError(this);
+        }
+    }
+
+    /**
+     * Tells whether a queue of this type holds a new copy of a key whose priority is
+     * lowered, rather than moving the key already queued.
+     */
+    boolean queuesDuplicates() {
+        return this == LAZY_HEAP || this == RADIX_HEAP;
+    }
+}
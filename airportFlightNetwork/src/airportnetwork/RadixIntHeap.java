@@ -0,0 +1,154 @@
+package airportnetwork;
+
+import java.util.Arrays;
+
+/**
+ * A radix heap of int keys with monotone double priorities.
+ * Priorities are mapped to 64-bit codes that sort like the doubles, and an entry
+ * lives in the bucket given by the highest bit in which its code differs from the
+ * last extracted minimum. Extract-min only rescans the first non-empty bucket and
+ * redistributes it into lower buckets, so each entry moves at most 64 times.
+ * Priorities must never be smaller than the last extracted minimum, which holds
+ * for Dijkstra and for A* with a consistent heuristic; an offered priority that
+ * falls below it by rounding is queued as equal to it. Offering a queued key again
+ * adds a second entry, so stale copies must be skipped by the caller.
+ */
+final class RadixIntHeap implements IntPriorityQueue {
+
+    /** One bucket for equal codes plus one per differing bit. */
+    private static final int BUCKETS = 65;
+
+    /** Keys of every bucket. */
+    private final int[][] keys = new int[BUCKETS][];
+
+    /** Priority codes of every bucket, parallel to {@link #keys}. */
+    private final long[][] codes = new long[BUCKETS][];
+
+    /** Number of entries in every bucket. */
+    private final int[] sizes = new int[BUCKETS];
+
+    /** Code of the last extracted minimum; every queued code is at least this. */
+    private long last = Long.MIN_VALUE;
+
+    /** Number of entries in all buckets. */
+    private int size;
+
+    RadixIntHeap() {
+        for (int b = 0; b < BUCKETS; b++) {
+            keys[b] = new int[4];
+            codes[b] = new long[4];
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void offer(int key, double priority) {
+        long code = encode(priority);
+        if (code < last) {
+            code = last;
+        }
+        add(bucket(code), key, code);
+        size++;
+    }
+
+    @Override
+    public int minKey() {
+        if (size == 0) {
+            return -1;
+        }
+        settleMinimum();
+        return keys[0][sizes[0] - 1];
+    }
+
+    @Override
+    public double minPriority() {
+        if (size == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        settleMinimum();
+        return decode(last);
+    }
+
+    @Override
+    public int extractMin() {
+        if (size == 0) {
+            return -1;
+        }
+        settleMinimum();
+        size--;
+        return keys[0][--sizes[0]];
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(sizes, 0);
+        size = 0;
+        last = Long.MIN_VALUE;
+    }
+
+    /**
+     * Makes bucket 0 non-empty by advancing {@link #last} to the smallest code of the
+     * first non-empty bucket and redistributing that bucket.
+     */
+    private void settleMinimum() {
+        if (sizes[0] > 0) {
+            return;
+        }
+        int b = 1;
+        while (sizes[b] == 0) {
+            b++;
+        }
+        int[] bucketKeys = keys[b];
+        long[] bucketCodes = codes[b];
+        int count = sizes[b];
+        long min = bucketCodes[0];
+        for (int i = 1; i < count; i++) {
+            if (bucketCodes[i] < min) {
+                min = bucketCodes[i];
+            }
+        }
+        last = min;
+        sizes[b] = 0;
+        // Every entry now differs from last in a lower bit, so it lands in a lower bucket.
+        for (int i = 0; i < count; i++) {
+            add(bucket(bucketCodes[i]), bucketKeys[i], bucketCodes[i]);
+        }
+    }
+
+    /**
+     * Returns the bucket of a code relative to the last extracted minimum.
+     */
+    private int bucket(long code) {
+        return 64 - Long.numberOfLeadingZeros(code ^ last);
+    }
+
+    private void add(int b, int key, long code) {
+        int n = sizes[b];
+        if (n == keys[b].length) {
+            keys[b] = Arrays.copyOf(keys[b], n * 2);
+            codes[b] = Arrays.copyOf(codes[b], n * 2);
+        }
+        keys[b][n] = key;
+        codes[b][n] = code;
+        sizes[b] = n + 1;
+    }
+
+    /**
+     * Maps a double to a long that orders the same way under signed comparison.
+     */
+    private static long encode(double priority) {
+        long bits = Double.doubleToLongBits(priority);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Inverts {@link #encode}.
+     */
+    private static double decode(long code) {
+        return Double.longBitsToDouble(code ^ ((code >> 63) & Long.MAX_VALUE));
+    }
+}
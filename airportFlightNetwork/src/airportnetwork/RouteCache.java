@@ -0,0 +1,490 @@
+package airportnetwork;
+
+import java.util.*;
+
+/**
+ * A bounded cache of shortest routes in front of {@link Dijkstra}, for workloads that
+ * ask for the same (origin, destination) pairs again and again.
+ * <p>
+ * Routes are kept in least-recently-used order up to a configurable number. Origins
+ * that keep missing the cache are considered hot and get their whole shortest path
+ * tree cached, up to a second limit, so that any destination from them is answered
+ * without a search. The cache listens to its {@link Graph} and invalidates only the
+ * entries a change can affect:
+ * <ul>
+ *   <li>removing an edge drops the routes that use it and the trees it belongs to;</li>
+ *   <li>adding an edge u-&gt;v of weight w drops a tree from s if it improves the distance
+ *       of v, and a route s-&gt;t of cost c if w (plus the distance of u from s, when a
+ *       tree from s is cached) is less than c;</li>
+ *   <li>removing a vertex also drops the entries starting or ending there.</li>
+ * </ul>
+ * Results are those of {@link Dijkstra#getPath(Graph, Airport, Airport)} and
+ * {@link Dijkstra#findShortestDistance(Graph, Airport, Airport)}; with an admissible
+ * heuristic {@link AStar} finds routes of the same cost. Queries may come from several
+ * threads, but the graph must not be modified while one is running, as for the graph itself.
+ */
+public final class RouteCache implements GraphListener<Airport> {
+
+    /** Default maximum number of cached routes. */
+    public static final int DEFAULT_MAX_ROUTES = 10_000;
+
+    /** Default maximum number of cached shortest path trees. */
+    public static final int DEFAULT_MAX_TREES = 16;
+
+    /** Misses from one origin after which its whole tree is cached. */
+    private static final int HOT_MISSES = 8;
+
+    /** Origins whose misses are counted, per cached tree. */
+    private static final int TRACKED_ORIGINS_PER_TREE = 64;
+
+    /** The graph whose routes are cached. */
+    private final Graph<Airport> graph;
+
+    /** Maximum number of cached trees. */
+    private final int maxTrees;
+
+    /** Cached routes in access order, least recently used first. */
+    private final LinkedHashMap<Key, Route> routes;
+
+    /** Cached routes indexed by every airport they leave from, for edge removals. */
+    private final Map<Airport, Set<Route>> routesLeaving = new HashMap<>();
+
+    /** Cached shortest path trees by origin, least recently used first. */
+    private final LinkedHashMap<Airport, Tree> trees;
+
+    /** Recent misses per origin, least recently missed first. */
+    private final LinkedHashMap<Airport, int[]> originMisses;
+
+    private long hits;
+    private long treeHits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Constructs a cache with the default limits and registers it with the graph.
+     *
+     * @param graph the graph whose routes are cached
+     */
+    public RouteCache(Graph<Airport> graph) {
+        this(graph, DEFAULT_MAX_ROUTES, DEFAULT_MAX_TREES);
+    }
+
+    /**
+     * Constructs a cache and registers it with the graph. Every cached tree holds two
+     * arrays the size of the graph, so {@code maxTrees} should stay small for large graphs.
+     *
+     * @param graph     the graph whose routes are cached
+     * @param maxRoutes the maximum number of cached routes
+     * @param maxTrees  the maximum number of cached shortest path trees; 0 disables them
+     * @throws IllegalArgumentException if a limit is negative
+     */
+    public RouteCache(Graph<Airport> graph, int maxRoutes, int maxTrees) {
+        if (maxRoutes < 0 || maxTrees < 0) {
+            throw new IllegalArgumentException("Cache limits must not be negative: " + maxRoutes + ", " + maxTrees);
+        }
+        this.graph = graph;
+        this.maxTrees = maxTrees;
+        this.routes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Route> eldest) {
+                if (size() <= maxRoutes) {
+                    return false;
+                }
+                unindex(eldest.getValue());
+                evictions++;
+                return true;
+            }
+        };
+        this.trees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Airport, Tree> eldest) {
+                if (size() <= maxTrees) {
+                    return false;
+                }
+                evictions++;
+                return true;
+            }
+        };
+        int trackedOrigins = Math.max(1, maxTrees) * TRACKED_ORIGINS_PER_TREE;
+        this.originMisses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Airport, int[]> eldest) {
+                return size() > trackedOrigins;
+            }
+        };
+        graph.addListener(this);
+    }
+
+    /**
+     * Retrieves the shortest path from a start airport to a goal airport.
+     *
+     * @param start the start airport
+     * @param goal  the goal airport
+     * @return an unmodifiable list of the airports along the path, or an empty list if
+     * there is none
+     */
+    public synchronized List<Airport> getPath(Airport start, Airport goal) {
+        Tree tree = trees.get(start);
+        if (tree != null) {
+            hits++;
+            treeHits++;
+            return tree.path(goal);
+        }
+        return lookup(start, goal).path;
+    }
+
+    /**
+     * Finds the shortest distance between a start and end airport.
+     *
+     * @param start the start airport
+     * @param end   the end airport
+     * @return the distance, or infinity if there is no route
+     */
+    public synchronized double findShortestDistance(Airport start, Airport end) {
+        Tree tree = trees.get(start);
+        if (tree != null) {
+            hits++;
+            treeHits++;
+            return tree.distance(end);
+        }
+        return lookup(start, end).cost;
+    }
+
+    /**
+     * Drops every cached route and tree. The statistics are kept.
+     */
+    public synchronized void clear() {
+        routes.clear();
+        routesLeaving.clear();
+        trees.clear();
+        originMisses.clear();
+    }
+
+    /**
+     * Unregisters this cache from its graph and drops its entries. A closed cache must
+     * not be queried again.
+     */
+    public synchronized void close() {
+        graph.removeListener(this);
+        clear();
+    }
+
+    /**
+     * Returns the number of queries answered from the cache, including those answered
+     * from a cached tree.
+     *
+     * @return the hit count
+     */
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of queries answered from a cached shortest path tree.
+     *
+     * @return the tree hit count
+     */
+    public synchronized long treeHitCount() {
+        return treeHits;
+    }
+
+    /**
+     * Returns the number of queries that needed a search.
+     *
+     * @return the miss count
+     */
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of routes and trees dropped to stay within the limits.
+     *
+     * @return the eviction count
+     */
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of routes and trees dropped because the graph changed.
+     *
+     * @return the invalidation count
+     */
+    public synchronized long invalidationCount() {
+        return invalidations;
+    }
+
+    /**
+     * Returns the number of cached routes.
+     *
+     * @return the route count
+     */
+    public synchronized int routeCount() {
+        return routes.size();
+    }
+
+    /**
+     * Returns the number of cached shortest path trees.
+     *
+     * @return the tree count
+     */
+    public synchronized int treeCount() {
+        return trees.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        long total = hits + misses;
+        return String.format(Locale.US, "RouteCache[routes=%d, trees=%d, hits=%d (%.1f%%), treeHits=%d, misses=%d, "
+                        + "evictions=%d, invalidations=%d]", routes.size(), trees.size(), hits,
+                total == 0 ? 0.0 : 100.0 * hits / total, treeHits, misses, evictions, invalidations);
+    }
+
+    @Override
+    public synchronized void edgeAdded(Edge<Airport> edge) {
+        Airport u = edge.getSource();
+        Airport v = edge.getDestination();
+        double w = edge.getWeight();
+        // The distance of u from an origin does not change, since a shorter route to u
+        // through the new edge would have to leave u first; keep it for the routes below.
+        Map<Airport, Double> fromOrigin = new HashMap<>();
+        for (Iterator<Tree> it = trees.values().iterator(); it.hasNext(); ) {
+            Tree tree = it.next();
+            double du = tree.distance(u);
+            fromOrigin.put(tree.source, du);
+            if (du + w < tree.distance(v)) {
+                it.remove();
+                invalidations++;
+            }
+        }
+        for (Iterator<Route> it = routes.values().iterator(); it.hasNext(); ) {
+            Route route = it.next();
+            // Any route through the new edge costs at least the distance of u plus w.
+            double bound = fromOrigin.getOrDefault(route.key.start, 0.0) + w;
+            if (bound < route.cost) {
+                it.remove();
+                unindex(route);
+                invalidations++;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void edgeRemoved(Edge<Airport> edge) {
+        Airport u = edge.getSource();
+        Airport v = edge.getDestination();
+        for (Iterator<Tree> it = trees.values().iterator(); it.hasNext(); ) {
+            if (it.next().usesEdge(u, v, edge.getWeight())) {
+                it.remove();
+                invalidations++;
+            }
+        }
+        Set<Route> leaving = routesLeaving.get(u);
+        if (leaving == null) {
+            return;
+        }
+        for (Route route : new ArrayList<>(leaving)) {
+            if (route.usesEdge(u, v)) {
+                routes.remove(route.key);
+                unindex(route);
+                invalidations++;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void vertexRemoved(Airport vertex) {
+        if (trees.remove(vertex) != null) {
+            invalidations++;
+        }
+        originMisses.remove(vertex);
+        for (Iterator<Route> it = routes.values().iterator(); it.hasNext(); ) {
+            Route route = it.next();
+            if (route.key.start.equals(vertex) || route.key.goal.equals(vertex)) {
+                it.remove();
+                unindex(route);
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Returns the cached route between two airports, searching for it on a miss. Origins
+     * that miss often get their tree cached instead.
+     */
+    private Route lookup(Airport start, Airport goal) {
+        Key key = new Key(start, goal);
+        Route route = routes.get(key);
+        if (route != null) {
+            hits++;
+            return route;
+        }
+        misses++;
+        CompactGraph<Airport> compact = graph.freeze();
+        int source = compact.idOf(start);
+        int target = compact.idOf(goal);
+        if (source < 0 || target < 0) {
+            // Not cached: adding the airports later must not leave a stale answer behind.
+            return start.equals(goal)
+                    ? new Route(key, List.of(start), 0.0)
+                    : new Route(key, Collections.emptyList(), Double.POSITIVE_INFINITY);
+        }
+        if (isHot(start)) {
+            Tree tree = new Tree(compact, start, source);
+            trees.put(start, tree);
+            return new Route(key, tree.path(goal), tree.distance(goal));
+        }
+        DijkstraEngine engine = Dijkstra.engineFor(compact);
+        if (engine.run(source, target)) {
+            List<Airport> path = Collections.unmodifiableList(compact.toVertices(engine.path(target)));
+            route = new Route(key, path, engine.distance(target));
+        } else {
+            route = new Route(key, Collections.emptyList(), Double.POSITIVE_INFINITY);
+        }
+        routes.put(key, route);
+        index(route);
+        return route;
+    }
+
+    /**
+     * Counts a miss from an origin and tells whether it has become hot.
+     */
+    private boolean isHot(Airport start) {
+        if (maxTrees == 0) {
+            return false;
+        }
+        int[] count = originMisses.computeIfAbsent(start, a -> new int[1]);
+        if (++count[0] < HOT_MISSES) {
+            return false;
+        }
+        originMisses.remove(start);
+        return true;
+    }
+
+    private void index(Route route) {
+        List<Airport> path = route.path;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            routesLeaving.computeIfAbsent(path.get(i), a -> new HashSet<>()).add(route);
+        }
+    }
+
+    private void unindex(Route route) {
+        List<Airport> path = route.path;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            Set<Route> leaving = routesLeaving.get(path.get(i));
+            if (leaving != null && leaving.remove(route) && leaving.isEmpty()) {
+                routesLeaving.remove(path.get(i));
+            }
+        }
+    }
+
+    /**
+     * An (origin, destination) pair.
+     */
+    private static final class Key {
+        final Airport start;
+        final Airport goal;
+
+        Key(Airport start, Airport goal) {
+            this.start = start;
+            this.goal = goal;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return start.equals(other.start) && goal.equals(other.goal);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * start.hashCode() + goal.hashCode();
+        }
+    }
+
+    /**
+     * A cached shortest route and its cost.
+     */
+    private static final class Route {
+        final Key key;
+        final List<Airport> path;
+        final double cost;
+
+        Route(Key key, List<Airport> path, double cost) {
+            this.key = key;
+            this.path = path;
+            this.cost = cost;
+        }
+
+        boolean usesEdge(Airport u, Airport v) {
+            for (int i = 0; i + 1 < path.size(); i++) {
+                if (path.get(i).equals(u) && path.get(i + 1).equals(v)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The distances and predecessors of every airport from one origin, indexed by the
+     * vertex ids of the snapshot they were computed on. Airports added to the graph
+     * later are not in the snapshot and count as unreached, which stays correct until
+     * an edge to them is added.
+     */
+    private static final class Tree {
+        final CompactGraph<Airport> graph;
+        final Airport source;
+        final double[] dist;
+        final int[] pred;
+
+        Tree(CompactGraph<Airport> graph, Airport source, int sourceId) {
+            this.graph = graph;
+            this.source = source;
+            DijkstraEngine engine = Dijkstra.engineFor(graph);
+            engine.run(sourceId);
+            int n = graph.numVertices();
+            dist = new double[n];
+            pred = new int[n];
+            for (int v = 0; v < n; v++) {
+                dist[v] = engine.distance(v);
+                pred[v] = engine.predecessor(v);
+            }
+        }
+
+        double distance(Airport airport) {
+            int id = graph.idOf(airport);
+            return id >= 0 ? dist[id] : Double.POSITIVE_INFINITY;
+        }
+
+        List<Airport> path(Airport goal) {
+            int id = graph.idOf(goal);
+            if (id < 0 || dist[id] == Double.POSITIVE_INFINITY) {
+                return Collections.emptyList();
+            }
+            int length = 1;
+            for (int v = pred[id]; v >= 0; v = pred[v]) {
+                length++;
+            }
+            Airport[] path = new Airport[length];
+            for (int v = id; v >= 0; v = pred[v]) {
+                path[--length] = graph.vertex(v);
+            }
+            return Collections.unmodifiableList(Arrays.asList(path));
+        }
+
+        /**
+         * Tells whether an edge of the given weight from u to v is the tree edge into v.
+         */
+        boolean usesEdge(Airport u, Airport v, double weight) {
+            int from = graph.idOf(u);
+            int to = graph.idOf(v);
+            return from >= 0 && to >= 0 && pred[to] == from && dist[from] + weight == dist[to];
+        }
+    }
+}
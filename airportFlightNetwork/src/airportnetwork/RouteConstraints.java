@@ -0,0 +1,185 @@
+package airportnetwork;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Query-time restrictions on the routes a {@link DijkstraEngine} or {@link AStarEngine}
+ * may return, so that closed airports, excluded flights or a cap on the number of legs
+ * need no modified copy of the graph.
+ * <p>
+ * Banned vertices and edges are kept in bitsets over the ids of one {@link CompactGraph},
+ * allocated by the first ban and cleared in place by {@link #clear()}, so a set of
+ * constraints can be reused from query to query without allocating. A banned vertex is
+ * never entered; the source of a query is not checked. A route may further be limited
+ * to a number of legs and a total cost; a leg limit makes the engines switch to a
+ * search over (vertex, legs) labels, because the cheapest route with few legs need not
+ * extend the cheapest route to each of its stops. Constraints are not thread-safe, but
+ * several threads may read the same constraints while none changes them.
+ */
+public final class RouteConstraints {
+
+    /** The graph whose vertex and edge ids the constraints use. */
+    private final CompactGraph<?> graph;
+
+    /** One bit per banned vertex and per banned edge, or null before the first ban. */
+    private long[] bannedVertices;
+    private long[] bannedEdges;
+
+    /** Further test on edge indices, or null. */
+    private IntPredicate edgeFilter;
+
+    /** Largest number of legs and largest total cost of a route. */
+    private int maxLegs = Integer.MAX_VALUE;
+    private double maxCost = Double.POSITIVE_INFINITY;
+
+    /**
+     * Constructs constraints that allow every route of a graph.
+     *
+     * @param graph the graph whose vertex and edge ids the constraints use
+     */
+    public RouteConstraints(CompactGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Returns the graph whose ids the constraints use.
+     *
+     * @return the graph
+     */
+    public CompactGraph<?> graph() {
+        return graph;
+    }
+
+    /**
+     * Bans a vertex: no route passes through it or ends there.
+     *
+     * @param v the vertex id
+     */
+    public void banVertex(int v) {
+        if (bannedVertices == null) {
+            bannedVertices = new long[(graph.numVertices() + 63) >>> 6];
+        }
+        bannedVertices[v >>> 6] |= 1L << v;
+    }
+
+    /**
+     * Lifts the ban on a vertex.
+     *
+     * @param v the vertex id
+     */
+    public void allowVertex(int v) {
+        if (bannedVertices != null) {
+            bannedVertices[v >>> 6] &= ~(1L << v);
+        }
+    }
+
+    /**
+     * Bans an edge, such as one flight between two airports that other flights still serve.
+     *
+     * @param e the edge index, as in {@link CompactGraph#target(int)}
+     */
+    public void banEdge(int e) {
+        if (bannedEdges == null) {
+            bannedEdges = new long[(graph.numEdges() + 63) >>> 6];
+        }
+        bannedEdges[e >>> 6] |= 1L << e;
+    }
+
+    /**
+     * Lifts the ban on an edge.
+     *
+     * @param e the edge index
+     */
+    public void allowEdge(int e) {
+        if (bannedEdges != null) {
+            bannedEdges[e >>> 6] &= ~(1L << e);
+        }
+    }
+
+    /**
+     * Sets a test that every edge of a route must pass, in addition to the bans. The
+     * bitsets are faster for fixed sets of edges; a filter suits rules computed from
+     * the edge, such as a weight limit.
+     *
+     * @param edgeFilter tells, by edge index, whether an edge may be used; null allows all
+     */
+    public void setEdgeFilter(IntPredicate edgeFilter) {
+        this.edgeFilter = edgeFilter;
+    }
+
+    /**
+     * Limits the number of legs of a route.
+     *
+     * @param maxLegs the largest number of edges, or {@link Integer#MAX_VALUE} for no limit
+     * @throws IllegalArgumentException if maxLegs is negative
+     */
+    public void setMaxLegs(int maxLegs) {
+        if (maxLegs < 0) {
+            throw new IllegalArgumentException("Negative leg limit: " + maxLegs);
+        }
+        this.maxLegs = maxLegs;
+    }
+
+    /**
+     * Limits the total cost of a route. Vertices beyond the limit are never queued.
+     *
+     * @param maxCost the largest cost, or infinity for no limit
+     */
+    public void setMaxCost(double maxCost) {
+        this.maxCost = maxCost;
+    }
+
+    /**
+     * Returns the largest number of legs of a route.
+     *
+     * @return the leg limit, or {@link Integer#MAX_VALUE}
+     */
+    public int maxLegs() {
+        return maxLegs;
+    }
+
+    /**
+     * Returns the largest total cost of a route.
+     *
+     * @return the cost limit, or infinity
+     */
+    public double maxCost() {
+        return maxCost;
+    }
+
+    /**
+     * Lifts every ban and limit, keeping the bitsets for reuse.
+     */
+    public void clear() {
+        if (bannedVertices != null) {
+            Arrays.fill(bannedVertices, 0L);
+        }
+        if (bannedEdges != null) {
+            Arrays.fill(bannedEdges, 0L);
+        }
+        edgeFilter = null;
+        maxLegs = Integer.MAX_VALUE;
+        maxCost = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Tells whether a route may take edge e to vertex v.
+     */
+    boolean allows(int e, int v) {
+        if (bannedVertices != null && (bannedVertices[v >>> 6] & (1L << v)) != 0) {
+            return false;
+        }
+        if (bannedEdges != null && (bannedEdges[e >>> 6] & (1L << e)) != 0) {
+            return false;
+        }
+        return edgeFilter == null || edgeFilter.test(e);
+    }
+
+    /**
+     * Tells whether the leg limit can matter, which calls for a search over labels.
+     */
+    boolean limitsLegs() {
+        return maxLegs < graph.numVertices() - 1;
+    }
+}
@@ -0,0 +1,313 @@
+package airportnetwork;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Opt-in counters and latency histograms of the shortest-path engines.
+ * <p>
+ * Metrics are collected only when the JVM is started with
+ * {@code -Dairportnetwork.metrics=true}. The switch is read once into the constant
+ * {@link #ENABLED}, and every counting site in the engines is guarded by it, so with
+ * metrics off the JIT compiler removes the counting altogether. With metrics on, each
+ * query counts its work in plain fields of the engine's search state and adds them
+ * to the totals of its kind of engine once, when it ends, together with its latency.
+ * <p>
+ * One instance aggregates the queries of every {@link DijkstraEngine} and one those
+ * of every {@link AStarEngine}, on all threads. The searches that the {@link Graph}
+ * methods of {@link Dijkstra} and {@link AStar} run over the adjacency lists, while
+ * the graph has no current snapshot, are counted with them. Leg-limited queries count
+ * labels where the other queries count vertices. Totals are exported as JSON by
+ * {@link #toJson()} or in the Prometheus text format by {@link #toPrometheus()}.
+ */
+public final class SearchMetrics {
+
+    /** Whether metrics are collected, from the system property {@code airportnetwork.metrics}. */
+    public static final boolean ENABLED = Boolean.getBoolean("airportnetwork.metrics");
+
+    /** Metrics of the {@link DijkstraEngine} queries. */
+    public static final SearchMetrics DIJKSTRA = new SearchMetrics("dijkstra");
+
+    /** Metrics of the {@link AStarEngine} queries. */
+    public static final SearchMetrics A_STAR = new SearchMetrics("astar");
+
+    /** Every engine's metrics, in export order. */
+    private static final List<SearchMetrics> ALL = List.of(DIJKSTRA, A_STAR);
+
+    /** The quantiles exported. */
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    /** Name of the engine, used as a JSON key and a Prometheus label. */
+    private final String engine;
+
+    /** Totals over all queries. */
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder settled = new LongAdder();
+    private final LongAdder relaxed = new LongAdder();
+    private final LongAdder inserts = new LongAdder();
+    private final LongAdder decreaseKeys = new LongAdder();
+    private final LongAdder extractMins = new LongAdder();
+
+    /** Largest frontier of any query. */
+    private final LongAccumulator maxHeapSize = new LongAccumulator(Math::max, 0);
+
+    /** Latency of the queries in nanoseconds. */
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private SearchMetrics(String engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Returns the metrics of every engine.
+     *
+     * @return the metrics, Dijkstra first
+     */
+    public static List<SearchMetrics> all() {
+        return ALL;
+    }
+
+    /**
+     * Returns the name of the engine.
+     *
+     * @return the engine name
+     */
+    public String engine() {
+        return engine;
+    }
+
+    /**
+     * Returns the number of queries recorded.
+     *
+     * @return the query count
+     */
+    public long queries() {
+        return queries.sum();
+    }
+
+    /**
+     * Returns the number of vertices settled, over all queries.
+     *
+     * @return the settled count
+     */
+    public long settled() {
+        return settled.sum();
+    }
+
+    /**
+     * Returns the number of edges relaxed, that is, examined after the query's
+     * constraints let them through, over all queries.
+     *
+     * @return the relaxed count
+     */
+    public long relaxed() {
+        return relaxed.sum();
+    }
+
+    /**
+     * Returns the number of vertices inserted into the frontier, over all queries.
+     *
+     * @return the insert count
+     */
+    public long heapInserts() {
+        return inserts.sum();
+    }
+
+    /**
+     * Returns the number of priorities lowered for vertices already on the frontier, over
+     * all queries. Queues without decrease-key queue another copy of the vertex instead.
+     *
+     * @return the decrease-key count
+     */
+    public long decreaseKeys() {
+        return decreaseKeys.sum();
+    }
+
+    /**
+     * Returns the number of entries removed from the top of the frontier, including
+     * stale copies, over all queries.
+     *
+     * @return the extract-min count
+     */
+    public long extractMins() {
+        return extractMins.sum();
+    }
+
+    /**
+     * Returns the largest number of entries on the frontier of any query.
+     *
+     * @return the largest heap size
+     */
+    public long maxHeapSize() {
+        return maxHeapSize.get();
+    }
+
+    /**
+     * Returns a latency quantile of the queries, accurate to about 1.6%.
+     *
+     * @param fraction the quantile, from 0 to 1, such as 0.99
+     * @return the latency in nanoseconds, or 0 if no query was recorded
+     */
+    public long latencyNanos(double fraction) {
+        return latency.quantile(fraction);
+    }
+
+    /**
+     * Forgets every recorded query. Queries ending meanwhile may be recorded in part.
+     */
+    public void reset() {
+        queries.reset();
+        settled.reset();
+        relaxed.reset();
+        inserts.reset();
+        decreaseKeys.reset();
+        extractMins.reset();
+        maxHeapSize.reset();
+        latency.reset();
+    }
+
+    /**
+     * Adds the counts of one query.
+     */
+    void record(long nanos, long settledCount, Counters counters) {
+        queries.increment();
+        settled.add(settledCount);
+        relaxed.add(counters.relaxed);
+        inserts.add(counters.inserts);
+        decreaseKeys.add(counters.decreaseKeys);
+        extractMins.add(counters.extractMins);
+        maxHeapSize.accumulate(counters.maxSize);
+        latency.record(nanos);
+    }
+
+    /**
+     * Returns the metrics of every engine as a JSON object keyed by engine name, with
+     * latencies in nanoseconds.
+     *
+     * @return the JSON text
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        for (SearchMetrics m : ALL) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(m.engine).append("\":{")
+                    .append("\"queries\":").append(m.queries())
+                    .append(",\"settled\":").append(m.settled())
+                    .append(",\"relaxed\":").append(m.relaxed())
+                    .append(",\"heap_inserts\":").append(m.heapInserts())
+                    .append(",\"decrease_keys\":").append(m.decreaseKeys())
+                    .append(",\"extract_mins\":").append(m.extractMins())
+                    .append(",\"max_heap_size\":").append(m.maxHeapSize())
+                    .append(",\"latency_ns\":{\"count\":").append(m.latency.count())
+                    .append(",\"sum\":").append(m.latency.sum())
+                    .append(",\"p50\":").append(m.latencyNanos(0.5))
+                    .append(",\"p99\":").append(m.latencyNanos(0.99))
+                    .append(",\"p999\":").append(m.latencyNanos(0.999))
+                    .append(",\"max\":").append(m.latency.max())
+                    .append("}}");
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Returns the metrics of every engine in the Prometheus text exposition format,
+     * labelled by engine, with latencies in seconds as a summary.
+     *
+     * @return the exposition text
+     */
+    public static String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        counter(text, "queries", "Shortest-path queries run.", SearchMetrics::queries);
+        counter(text, "settled", "Vertices settled.", SearchMetrics::settled);
+        counter(text, "relaxed", "Edges relaxed.", SearchMetrics::relaxed);
+        counter(text, "heap_inserts", "Vertices inserted into the frontier.", SearchMetrics::heapInserts);
+        counter(text, "decrease_keys", "Frontier priorities lowered.", SearchMetrics::decreaseKeys);
+        counter(text, "extract_mins", "Entries removed from the top of the frontier.", SearchMetrics::extractMins);
+
+        String name = "airportnetwork_search_max_heap_size";
+        text.append("# HELP ").append(name).append(" Largest frontier of any query.\n");
+        text.append("# TYPE ").append(name).append(" gauge\n");
+        for (SearchMetrics m : ALL) {
+            text.append(name).append("{engine=\"").append(m.engine).append("\"} ").append(m.maxHeapSize()).append('\n');
+        }
+
+        name = "airportnetwork_search_latency_seconds";
+        text.append("# HELP ").append(name).append(" Query latency.\n");
+        text.append("# TYPE ").append(name).append(" summary\n");
+        for (SearchMetrics m : ALL) {
+            String label = "engine=\"" + m.engine + "\"";
+            for (double q : QUANTILES) {
+                text.append(name).append('{').append(label).append(",quantile=\"").append(q).append("\"} ")
+                        .append(seconds(m.latencyNanos(q))).append('\n');
+            }
+            text.append(name).append("_sum{").append(label).append("} ").append(seconds(m.latency.sum())).append('\n');
+            text.append(name).append("_count{").append(label).append("} ").append(m.latency.count()).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void counter(StringBuilder text, String metric, String help, ToLongFunction<SearchMetrics> value) {
+        String name = "airportnetwork_search_" + metric + "_total";
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(" counter\n");
+        for (SearchMetrics m : ALL) {
+            text.append(name).append("{engine=\"").append(m.engine).append("\"} ")
+                    .append(value.applyAsLong(m)).append('\n');
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    /**
+     * Counts of the query in progress, kept by the search state of one engine and
+     * reset at the start of every query.
+     */
+    static final class Counters {
+        long relaxed;
+        long inserts;
+        long decreaseKeys;
+        long extractMins;
+
+        /** Entries on the frontier, and the most there have been in this query. */
+        int size;
+        int maxSize;
+
+        void reset() {
+            relaxed = 0;
+            inserts = 0;
+            decreaseKeys = 0;
+            extractMins = 0;
+            size = 0;
+            maxSize = 0;
+        }
+
+        /** Counts a vertex queued for the first time. */
+        void insert() {
+            inserts++;
+            if (++size > maxSize) {
+                maxSize = size;
+            }
+        }
+
+        /** Counts a lower priority for a queued vertex, which queues a copy if {@code copies}. */
+        void decreaseKey(boolean copies) {
+            decreaseKeys++;
+            if (copies && ++size > maxSize) {
+                maxSize = size;
+            }
+        }
+
+        /** Counts an entry removed from the frontier. */
+        void extractMin() {
+            extractMins++;
+            size--;
+        }
+    }
+}
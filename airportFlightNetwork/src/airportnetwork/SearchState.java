@@ -0,0 +1,244 @@
+package airportnetwork;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Reusable per-query state of a shortest-path search over dense vertex ids.
+ * Distances and predecessors live in primitive arrays that are sized for the
+ * graph and only reallocated when a larger graph comes along. Instead of
+ * resetting them before every query, each entry carries the generation it was
+ * written in; entries from older generations read as unreached, so starting a
+ * new query costs O(1) rather than O(V).
+ */
+final class SearchState {
+
+    /** Tentative distance of every vertex, valid only when stamped with the current generation. */
+    private double[] dist;
+
+    /** Predecessor of every vertex on its tentative shortest path, or -1. */
+    private int[] pred;
+
+    /** Heuristic estimate of every reached vertex, allocated by the first A* query. */
+    private double[] estimate;
+
+    /** Generation in which each vertex was last written. */
+    private int[] stamp;
+
+    /** Generation of the current query; never 0 while a query is running. */
+    private int generation;
+
+    /** Generation in which each vertex was last extracted from the frontier, or 0 if queued again since. */
+    private int[] closed;
+
+    /** Priority queue of the vertices on the search frontier. */
+    private IntPriorityQueue heap;
+
+    /** The kind of {@link #heap}. */
+    private QueueType queueType;
+
+    /** Number of vertices extracted from the frontier in the current query. */
+    private int settled;
+
+    /** Work of the current query, counted only if {@link SearchMetrics#ENABLED}. */
+    final SearchMetrics.Counters counters = new SearchMetrics.Counters();
+
+    /**
+     * Constructs search state for a graph with {@code n} vertices.
+     */
+    SearchState(int n) {
+        dist = new double[n];
+        pred = new int[n];
+        stamp = new int[n];
+        closed = new int[n];
+        useQueue(QueueType.FOUR_ARY_HEAP);
+    }
+
+    /**
+     * Makes room for a graph with {@code n} vertices, keeping the arrays if they are
+     * large enough. Grown arrays get some headroom, so that a graph gaining vertices
+     * one version at a time does not reallocate them on every version.
+     */
+    void ensureCapacity(int n) {
+        if (n <= dist.length) {
+            return;
+        }
+        int capacity = Math.max(n, dist.length + (dist.length >> 1));
+        // Fresh stamps of 0 read as unreached, since a running query's generation is never 0.
+        dist = new double[capacity];
+        pred = new int[capacity];
+        stamp = new int[capacity];
+        closed = new int[capacity];
+        estimate = null;
+        heap = queueType.create(capacity);
+    }
+
+    /**
+     * Switches the frontier to the given kind of priority queue, taking effect from the next query.
+     */
+    void useQueue(QueueType type) {
+        if (type != queueType) {
+            heap = type.create(dist.length);
+            queueType = type;
+        }
+    }
+
+    /**
+     * Returns the kind of priority queue used for the frontier.
+     */
+    QueueType queueType() {
+        return queueType;
+    }
+
+    /**
+     * Starts a new query, invalidating every distance and predecessor in O(1).
+     */
+    void reset() {
+        if (++generation == Integer.MAX_VALUE) {
+            // The stamps wrapped around, so clear them once and start over.
+            Arrays.fill(stamp, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+        heap.clear();
+        settled = 0;
+        if (SearchMetrics.ENABLED) {
+            counters.reset();
+        }
+    }
+
+    /**
+     * Returns true if the vertex has been reached in the current query.
+     */
+    boolean isReached(int v) {
+        return stamp[v] == generation;
+    }
+
+    /**
+     * Returns the tentative distance of the vertex, or infinity if it has not been reached.
+     */
+    double distance(int v) {
+        return stamp[v] == generation ? dist[v] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the predecessor of the vertex, or -1 if it has none.
+     */
+    int predecessor(int v) {
+        return stamp[v] == generation ? pred[v] : -1;
+    }
+
+    /**
+     * Records a tentative distance and predecessor for the vertex and queues it with the given priority.
+     */
+    void update(int v, double distance, int predecessor, double priority) {
+        if (SearchMetrics.ENABLED) {
+            if (stamp[v] == generation && closed[v] != generation) {
+                counters.decreaseKey(queueType.queuesDuplicates());
+            } else {
+                counters.insert();
+            }
+        }
+        stamp[v] = generation;
+        dist[v] = distance;
+        pred[v] = predecessor;
+        closed[v] = 0;
+        heap.offer(v, priority);
+    }
+
+    /**
+     * Records a tentative distance and predecessor for the vertex and queues it with its
+     * distance plus the heuristic estimate as priority. The estimate is evaluated only
+     * the first time a vertex is reached in a query and reused on later improvements.
+     */
+    void update(int v, double distance, int predecessor, IntToDoubleFunction heuristic) {
+        double h;
+        if (stamp[v] == generation) {
+            h = estimate[v];
+        } else {
+            if (estimate == null) {
+                estimate = new double[dist.length];
+            }
+            h = heuristic.applyAsDouble(v);
+            estimate[v] = h;
+        }
+        update(v, distance, predecessor, distance + h);
+    }
+
+    /**
+     * Returns true if no vertex is waiting on the frontier.
+     */
+    boolean isEmpty() {
+        skipStale();
+        return heap.isEmpty();
+    }
+
+    /**
+     * Removes and returns the frontier vertex with the smallest priority.
+     */
+    int extractMin() {
+        skipStale();
+        int v = heap.extractMin();
+        if (SearchMetrics.ENABLED) {
+            counters.extractMin();
+        }
+        closed[v] = generation;
+        settled++;
+        return v;
+    }
+
+    /**
+     * Returns the smallest priority on the frontier, or infinity if it is empty.
+     */
+    double minPriority() {
+        skipStale();
+        return heap.minPriority();
+    }
+
+    /**
+     * Drops stale copies of already extracted vertices from the top of the frontier,
+     * which queues without decrease-key leave behind.
+     */
+    private void skipStale() {
+        while (!heap.isEmpty() && closed[heap.minKey()] == generation) {
+            heap.extractMin();
+            if (SearchMetrics.ENABLED) {
+                counters.extractMin();
+            }
+        }
+    }
+
+    /**
+     * Adds the counts and latency of the query just finished, started at {@code started}
+     * by {@link System#nanoTime()}, to the given metrics.
+     */
+    void record(SearchMetrics metrics, long started) {
+        metrics.record(System.nanoTime() - started, settled, counters);
+    }
+
+    /**
+     * Returns the number of vertices extracted from the frontier in the current query.
+     */
+    int settledCount() {
+        return settled;
+    }
+
+    /**
+     * Returns the vertex ids on the shortest path from the source to {@code target},
+     * or an empty array if the target has not been reached.
+     */
+    int[] path(int target) {
+        if (!isReached(target)) {
+            return new int[0];
+        }
+        int length = 0;
+        for (int v = target; v >= 0; v = pred[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = target; v >= 0; v = pred[v]) {
+            path[--length] = v;
+        }
+        return path;
+    }
+}
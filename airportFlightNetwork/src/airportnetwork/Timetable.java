@@ -0,0 +1,304 @@
+package airportnetwork;
+
+import java.lang.ref.SoftReference;
+import java.util.*;
+
+/**
+ * An immutable schedule of {@link Flight}s for time-dependent routing, queried by a
+ * {@link TimetableEngine}.
+ * <p>
+ * Airports get dense ids, as in a {@link CompactGraph}. The flights are stored twice:
+ * <ul>
+ *   <li>as one array of connections sorted by departure time, scanned in order by
+ *       the Connection Scan Algorithm;</li>
+ *   <li>grouped by route (origin and destination airport), each route's departures
+ *       sorted by time, so that a time-dependent Dijkstra search finds the next
+ *       departure on a route by binary search. Every departure also records the
+ *       earliest-arriving flight among it and the later ones, so an overtaken slow
+ *       flight is never chosen.</li>
+ * </ul>
+ * A passenger changing planes at an airport needs at least its minimum connection
+ * time between arriving and departing; none is needed at the origin of a journey.
+ * Times are whole numbers in one unit, such as minutes since the start of the first day.
+ */
+public final class Timetable {
+
+    /** Engine of the calling thread for the last timetable it queried; held softly. */
+    private static final ThreadLocal<SoftReference<TimetableEngine>> ENGINES = new ThreadLocal<>();
+
+    /** Airports by id. */
+    private final Airport[] airports;
+
+    /** Id of every airport. */
+    private final Map<Airport, Integer> ids;
+
+    /** Minimum connection time of every airport. */
+    final int[] connectionTime;
+
+    /** Flights by connection index, sorted by departure and then arrival time. */
+    private final Flight[] flights;
+
+    /**
+     * Departure time, departure airport, arrival airport and arrival time of every
+     * connection, interleaved so that a scan reads one array sequentially. The other
+     * queries read single fields through {@link #depTime(int)} and its siblings.
+     */
+    final int[] connections;
+
+    /** First route of every airport; the routes of airport a are {@code routeStart[a]..routeStart[a + 1]}. */
+    final int[] routeStart;
+
+    /** Destination airport of every route. */
+    final int[] routeTarget;
+
+    /** First departure of every route in {@link #departureTime} and {@link #bestConnection}. */
+    final int[] departureStart;
+
+    /** Departure times, sorted within each route. */
+    final int[] departureTime;
+
+    /** Connection arriving earliest among a departure and the later ones on its route. */
+    final int[] bestConnection;
+
+    /**
+     * Constructs a timetable without connection times.
+     *
+     * @param flights the scheduled flights
+     * @throws IllegalArgumentException if a flight is not scheduled
+     */
+    public Timetable(Collection<Flight> flights) {
+        this(flights, 0, Collections.emptyMap());
+    }
+
+    /**
+     * Constructs a timetable.
+     *
+     * @param flights               the scheduled flights
+     * @param defaultConnectionTime the minimum connection time of airports not in {@code connectionTimes}
+     * @param connectionTimes       the minimum connection time of particular airports
+     * @throws IllegalArgumentException if a flight is not scheduled or a connection time is negative
+     */
+    public Timetable(Collection<Flight> flights, int defaultConnectionTime, Map<Airport, Integer> connectionTimes) {
+        if (defaultConnectionTime < 0) {
+            throw new IllegalArgumentException("Negative connection time: " + defaultConnectionTime);
+        }
+        // 1. Dense airport ids and connection times
+        ids = new HashMap<>();
+        List<Airport> byId = new ArrayList<>();
+        for (Flight flight : flights) {
+            if (!flight.isScheduled()) {
+                throw new IllegalArgumentException("Flight has no schedule: " + flight);
+            }
+            for (Airport airport : new Airport[]{flight.getSource(), flight.getDestination()}) {
+                if (ids.putIfAbsent(airport, byId.size()) == null) {
+                    byId.add(airport);
+                }
+            }
+        }
+        airports = byId.toArray(new Airport[0]);
+        int n = airports.length;
+        connectionTime = new int[n];
+        for (int a = 0; a < n; a++) {
+            int time = connectionTimes.getOrDefault(airports[a], defaultConnectionTime);
+            if (time < 0) {
+                throw new IllegalArgumentException("Negative connection time at " + airports[a] + ": " + time);
+            }
+            connectionTime[a] = time;
+        }
+
+        // 2. Connections sorted by departure, then arrival, so that a flight arriving at the
+        //    moment another departs comes first
+        this.flights = flights.toArray(new Flight[0]);
+        Arrays.sort(this.flights, Comparator.comparingInt(Flight::getDeparture).thenComparingInt(Flight::getArrival));
+        int m = this.flights.length;
+        connections = new int[4 * m];
+        for (int c = 0; c < m; c++) {
+            Flight flight = this.flights[c];
+            connections[4 * c] = flight.getDeparture();
+            connections[4 * c + 1] = ids.get(flight.getSource());
+            connections[4 * c + 2] = ids.get(flight.getDestination());
+            connections[4 * c + 3] = flight.getArrival();
+        }
+
+        // 3. Routes: connections grouped by origin and destination, in departure order. The
+        //    sort is stable, so each route keeps the order of step 2.
+        Integer[] order = new Integer[m];
+        for (int c = 0; c < m; c++) {
+            order[c] = c;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(this::depStop).thenComparingInt(this::arrStop));
+        routeStart = new int[n + 1];
+        int[] targets = new int[m];
+        int[] starts = new int[m + 1];
+        int routes = 0;
+        for (int i = 0; i < m; i++) {
+            int c = order[i];
+            if (i == 0 || depStop(c) != depStop(order[i - 1]) || arrStop(c) != arrStop(order[i - 1])) {
+                targets[routes] = arrStop(c);
+                starts[routes++] = i;
+                routeStart[depStop(c) + 1]++;
+            }
+        }
+        starts[routes] = m;
+        for (int a = 0; a < n; a++) {
+            routeStart[a + 1] += routeStart[a];
+        }
+        routeTarget = Arrays.copyOf(targets, routes);
+        departureStart = Arrays.copyOf(starts, routes + 1);
+        departureTime = new int[m];
+        bestConnection = new int[m];
+        for (int r = 0; r < routes; r++) {
+            int best = -1;
+            for (int i = departureStart[r + 1] - 1; i >= departureStart[r]; i--) {
+                int c = order[i];
+                departureTime[i] = depTime(c);
+                if (best < 0 || arrTime(c) < arrTime(best)) {
+                    best = c;
+                }
+                bestConnection[i] = best;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of airports.
+     *
+     * @return the airport count
+     */
+    public int numAirports() {
+        return airports.length;
+    }
+
+    /**
+     * Returns the number of flights.
+     *
+     * @return the flight count
+     */
+    public int numFlights() {
+        return flights.length;
+    }
+
+    /**
+     * Returns the id of an airport.
+     *
+     * @param airport the airport
+     * @return its id, or -1 if no flight serves it
+     */
+    public int idOf(Airport airport) {
+        Integer id = ids.get(airport);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the airport with the given id.
+     *
+     * @param id the airport id
+     * @return the airport
+     */
+    public Airport airport(int id) {
+        return airports[id];
+    }
+
+    /**
+     * Returns the flight with the given connection index; connections are numbered in
+     * order of departure.
+     *
+     * @param connection the connection index
+     * @return the flight
+     */
+    public Flight flight(int connection) {
+        return flights[connection];
+    }
+
+    /** Departure time, departure airport, arrival airport and arrival time of a connection. */
+    int depTime(int c) {
+        return connections[4 * c];
+    }
+
+    int depStop(int c) {
+        return connections[4 * c + 1];
+    }
+
+    int arrStop(int c) {
+        return connections[4 * c + 2];
+    }
+
+    int arrTime(int c) {
+        return connections[4 * c + 3];
+    }
+
+    /**
+     * Returns the minimum connection time of an airport.
+     *
+     * @param id the airport id
+     * @return the connection time
+     */
+    public int connectionTime(int id) {
+        return connectionTime[id];
+    }
+
+    /**
+     * Finds the earliest arrival at a destination for a passenger at the origin from a given time.
+     *
+     * @param origin      the origin airport
+     * @param destination the destination airport
+     * @param departAfter the earliest departure time
+     * @return the arrival time, {@code departAfter} if origin and destination are the same,
+     * or {@link TimetableEngine#UNREACHABLE}
+     */
+    public int earliestArrival(Airport origin, Airport destination, int departAfter) {
+        int source = idOf(origin);
+        int target = idOf(destination);
+        if (source < 0 || target < 0) {
+            return origin.equals(destination) ? departAfter : TimetableEngine.UNREACHABLE;
+        }
+        return engine().scan(source, target, departAfter);
+    }
+
+    /**
+     * Finds the flights of an earliest-arriving journey from a given time.
+     *
+     * @param origin      the origin airport
+     * @param destination the destination airport
+     * @param departAfter the earliest departure time
+     * @return the flights in order, or an empty list if there is no journey or no flight is needed
+     */
+    public List<Flight> getJourney(Airport origin, Airport destination, int departAfter) {
+        int source = idOf(origin);
+        int target = idOf(destination);
+        if (source < 0 || target < 0) {
+            return Collections.emptyList();
+        }
+        TimetableEngine engine = engine();
+        engine.scan(source, target, departAfter);
+        return toFlights(engine.journey(target));
+    }
+
+    /**
+     * Maps connection indices to their flights.
+     *
+     * @param connections the connection indices
+     * @return the flights
+     */
+    public List<Flight> toFlights(int[] connections) {
+        List<Flight> result = new ArrayList<>(connections.length);
+        for (int c : connections) {
+            result.add(flights[c]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the calling thread's engine for this timetable, creating it on first use,
+     * when the thread last queried another timetable, or after the previous one was collected.
+     */
+    private TimetableEngine engine() {
+        SoftReference<TimetableEngine> cached = ENGINES.get();
+        TimetableEngine engine = cached == null ? null : cached.get();
+        if (engine == null || engine.timetable() != this) {
+            engine = new TimetableEngine(this);
+            ENGINES.set(new SoftReference<>(engine));
+        }
+        return engine;
+    }
+}
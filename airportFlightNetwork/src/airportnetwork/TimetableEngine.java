@@ -0,0 +1,314 @@
+package airportnetwork;
+
+import java.util.Arrays;
+
+/**
+ * Earliest-arrival and profile queries over a {@link Timetable}.
+ * <p>
+ * {@link #earliestArrival} is a time-dependent Dijkstra search over the airports: the
+ * cost of a route is found by binary search for its next departure once a passenger
+ * is ready to leave. {@link #scan} answers the same query with the Connection Scan
+ * Algorithm, one pass over the connections in departure order from the query time,
+ * which is usually faster on dense schedules. {@link #profile} scans the connections
+ * backwards once to find every useful departure from the origin with its earliest
+ * arrival. An engine keeps its arrays between queries and is not thread-safe; use
+ * one per thread.
+ */
+public final class TimetableEngine {
+
+    /** Arrival time of an airport that cannot be reached. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /** The timetable this engine searches. */
+    private final Timetable timetable;
+
+    /** Earliest arrival at every airport in the last query, or {@link #UNREACHABLE}. */
+    private final int[] arrival;
+
+    /**
+     * Time from which a passenger can board at every airport: the arrival plus the
+     * connection time, or the query time at the origin, or {@link #UNREACHABLE}.
+     */
+    private final int[] ready;
+
+    /** Connection by which every airport was reached, or -1 for the origin. */
+    private final int[] via;
+
+    /** Origin of the last query. */
+    private int origin;
+
+    /** Frontier of the time-dependent search. */
+    private final IntMiniHeap queue;
+
+    /** Profile of every airport for {@link #profile}, as departure and arrival times in decreasing order. */
+    private int[][] profileDep;
+    private int[][] profileArr;
+    private int[] profileSize;
+
+    /**
+     * Constructs an engine for the given timetable.
+     *
+     * @param timetable the timetable to search
+     */
+    public TimetableEngine(Timetable timetable) {
+        this.timetable = timetable;
+        int n = timetable.numAirports();
+        this.arrival = new int[n];
+        this.ready = new int[n];
+        this.via = new int[n];
+        this.queue = new IntMiniHeap(n);
+    }
+
+    /**
+     * Returns the timetable this engine searches.
+     *
+     * @return the timetable
+     */
+    public Timetable timetable() {
+        return timetable;
+    }
+
+    /**
+     * Finds the earliest arrival at every airport, or at {@code target}, by a
+     * time-dependent Dijkstra search.
+     *
+     * @param origin      the origin airport id
+     * @param target      the target airport id, or -1 to reach every airport
+     * @param departAfter the earliest departure time
+     * @return the arrival time at target, or {@link #UNREACHABLE}; with no target, also {@link #UNREACHABLE}
+     */
+    public int earliestArrival(int origin, int target, int departAfter) {
+        start(origin, departAfter);
+        Timetable t = timetable;
+        queue.clear();
+        queue.insert(origin, departAfter);
+        while (!queue.isEmpty()) {
+            int u = queue.extractMin();
+            if (u == target) {
+                return arrival[u];
+            }
+            for (int r = t.routeStart[u], end = t.routeStart[u + 1]; r < end; r++) {
+                int i = nextDeparture(t.departureTime, t.departureStart[r], t.departureStart[r + 1], ready[u]);
+                if (i < 0) {
+                    continue;
+                }
+                int c = t.bestConnection[i];
+                int v = t.routeTarget[r];
+                int time = t.arrTime(c);
+                if (time < arrival[v]) {
+                    reach(v, time, c);
+                    queue.offer(v, time);
+                }
+            }
+        }
+        return UNREACHABLE;
+    }
+
+    /**
+     * Finds the earliest arrival at every airport, or at {@code target}, with the
+     * Connection Scan Algorithm.
+     *
+     * @param origin      the origin airport id
+     * @param target      the target airport id, or -1 to reach every airport
+     * @param departAfter the earliest departure time
+     * @return the arrival time at target, or {@link #UNREACHABLE}; with no target, also {@link #UNREACHABLE}
+     */
+    public int scan(int origin, int target, int departAfter) {
+        start(origin, departAfter);
+        int[] connections = timetable.connections;
+        int[] arrival = this.arrival;
+        int[] ready = this.ready;
+        for (int i = 4 * firstDeparture(connections, departAfter); i < connections.length; i += 4) {
+            int departure = connections[i];
+            // No later connection can arrive before one that is already at the target.
+            if (target >= 0 && departure >= arrival[target]) {
+                break;
+            }
+            // Unreached airports are never ready, so this also tells whether u was reached.
+            if (ready[connections[i + 1]] <= departure) {
+                int v = connections[i + 2];
+                int time = connections[i + 3];
+                if (time < arrival[v]) {
+                    reach(v, time, i >> 2);
+                }
+            }
+        }
+        return target >= 0 ? arrival[target] : UNREACHABLE;
+    }
+
+    /**
+     * Returns the arrival time at an airport found by the last query.
+     *
+     * @param v the airport id
+     * @return the arrival time, or {@link #UNREACHABLE}
+     */
+    public int arrival(int v) {
+        return arrival[v];
+    }
+
+    /**
+     * Returns the connections of the journey found by the last query from the origin
+     * to {@code target}.
+     *
+     * @param target the target airport id
+     * @return the connection indices in order, or an empty array if target was not reached
+     */
+    public int[] journey(int target) {
+        if (arrival(target) == UNREACHABLE) {
+            return new int[0];
+        }
+        int length = 0;
+        for (int v = target; v != origin; v = timetable.depStop(via[v])) {
+            length++;
+        }
+        int[] connections = new int[length];
+        for (int v = target; v != origin; v = timetable.depStop(via[v])) {
+            connections[--length] = via[v];
+        }
+        return connections;
+    }
+
+    /**
+     * Finds every useful departure from the origin to a target: the departures from
+     * {@code departAfter} on with the earliest arrival of each, keeping only those
+     * that arrive before every later departure does. One backward scan over the
+     * connections computes the profiles of all airports to the target at once.
+     *
+     * @param origin      the origin airport id
+     * @param target      the target airport id
+     * @param departAfter the earliest departure time
+     * @return departure and arrival times interleaved ({@code d0, a0, d1, a1, ...}), in
+     * increasing order of both
+     */
+    public int[] profile(int origin, int target, int departAfter) {
+        Timetable t = timetable;
+        int n = t.numAirports();
+        if (profileSize == null) {
+            profileDep = new int[n][];
+            profileArr = new int[n][];
+            profileSize = new int[n];
+        }
+        Arrays.fill(profileSize, 0);
+        int[] connections = t.connections;
+        for (int i = connections.length - 4; i >= 0 && connections[i] >= departAfter; i -= 4) {
+            int departure = connections[i];
+            int u = connections[i + 1];
+            int v = connections[i + 2];
+            if (u == target) {
+                continue;
+            }
+            int arrive = v == target ? connections[i + 3] : profileArrival(v, connections[i + 3] + t.connectionTime[v]);
+            if (arrive == UNREACHABLE) {
+                continue;
+            }
+            int size = profileSize[u];
+            if (size > 0 && arrive >= profileArr[u][size - 1]) {
+                continue;
+            }
+            if (size > 0 && profileDep[u][size - 1] == departure) {
+                // Same departure time, earlier arrival: replace the entry.
+                profileArr[u][size - 1] = arrive;
+                continue;
+            }
+            if (profileDep[u] == null || size == profileDep[u].length) {
+                int capacity = size == 0 ? 4 : size * 2;
+                profileDep[u] = profileDep[u] == null ? new int[capacity] : Arrays.copyOf(profileDep[u], capacity);
+                profileArr[u] = profileArr[u] == null ? new int[capacity] : Arrays.copyOf(profileArr[u], capacity);
+            }
+            profileDep[u][size] = departure;
+            profileArr[u][size] = arrive;
+            profileSize[u] = size + 1;
+        }
+        int size = profileSize[origin];
+        int[] result = new int[2 * size];
+        for (int i = 0; i < size; i++) {
+            result[2 * i] = profileDep[origin][size - 1 - i];
+            result[2 * i + 1] = profileArr[origin][size - 1 - i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the earliest arrival at the target from airport v for a passenger ready
+     * at {@code ready}, from the profile built so far.
+     */
+    private int profileArrival(int v, int ready) {
+        // Entries run from the latest departure to the earliest; find the last one still
+        // departing at or after ready, which arrives earliest.
+        int[] deps = profileDep[v];
+        int lo = 0;
+        int hi = profileSize[v] - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (deps[mid] >= ready) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found < 0 ? UNREACHABLE : profileArr[v][found];
+    }
+
+    /**
+     * Resets the arrays for a query. Timetables have few airports next to their flights,
+     * so clearing them costs less than stamping every access.
+     */
+    private void start(int origin, int departAfter) {
+        Arrays.fill(arrival, UNREACHABLE);
+        Arrays.fill(ready, UNREACHABLE);
+        this.origin = origin;
+        arrival[origin] = departAfter;
+        ready[origin] = departAfter;
+        via[origin] = -1;
+    }
+
+    /** Records an arrival at v; the passenger can board after changing planes. */
+    private void reach(int v, int time, int connection) {
+        arrival[v] = time;
+        ready[v] = time + timetable.connectionTime[v];
+        via[v] = connection;
+    }
+
+    /**
+     * Returns the index of the first departure in {@code times[from..to)} at or after
+     * {@code time}, or -1 if there is none.
+     */
+    private static int nextDeparture(int[] times, int from, int to, int time) {
+        int i = lowerBound(times, from, to, time);
+        return i < to ? i : -1;
+    }
+
+    /**
+     * Returns the index of the first connection departing at or after {@code time}, by
+     * binary search over the departure times in the interleaved connections array.
+     */
+    private static int firstDeparture(int[] connections, int time) {
+        int lo = 0;
+        int hi = connections.length / 4;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (connections[4 * mid] < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int lowerBound(int[] times, int from, int to, int time) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,24 @@
+package airportnetwork;
+
+/**
+ * The vertices of a {@link CompactGraph} and their dense ids.
+ *
+ * @param <T> The type representing the vertices in the graph.
+ */
+interface VertexTable<T> {
+
+    /**
+     * Returns the number of vertices.
+     */
+    int size();
+
+    /**
+     * Returns the vertex with the given id.
+     */
+    T vertex(int id);
+
+    /**
+     * Returns the id of the given vertex, or -1 if it is not in the table.
+     */
+    int idOf(T v);
+}
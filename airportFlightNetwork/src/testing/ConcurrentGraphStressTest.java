@@ -0,0 +1,150 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+public class ConcurrentGraphStressTest {
+    // Length of every measurement, in milliseconds.
+    private static final long DURATION_MS = 3_000;
+
+    // Update rates applied by the writer thread; 0 measures queries without updates.
+    private static final int[] UPDATES_PER_SECOND = {0, 100, 1_000, 10_000};
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        int readers = Math.max(2, Runtime.getRuntime().availableProcessors());
+        System.out.println("input_size,readers,target_updates_per_s,updates_per_s,versions,queries,"
+                + "p50_ms,p90_ms,p99_ms,max_ms,update_us");
+
+        int[] inputSizes = {
+                10_000,
+                100_000
+        };
+
+        for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
+            int EDGES_PER_NODE = 3;
+            Random rand = new Random(42);
+
+            // 1. Random graph, as in GraphPerformanceTest, loaded as one version
+            List<Airport> nodes = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                nodes.add(new Airport("CODE" + i, "City" + i));
+            }
+            ConcurrentGraph<Airport> graph = new ConcurrentGraph<>();
+            graph.update(g -> RandomGraphs.edges(size, EDGES_PER_NODE, rand,
+                    (source, target, weight) -> g.addEdge(nodes.get(source), nodes.get(target), weight)));
+
+            for (int rate : UPDATES_PER_SECOND) {
+                AtomicBoolean running = new AtomicBoolean(true);
+                long firstVersion = graph.version();
+
+                // 2. Reader threads run point-to-point queries against the latest version
+                List<long[]> latencies = new ArrayList<>();
+                List<Thread> threads = new ArrayList<>();
+                for (int t = 0; t < readers; t++) {
+                    long[] samples = new long[1 << 16];
+                    latencies.add(samples);
+                    Random queryRand = new Random(t);
+                    Thread reader = new Thread(() -> {
+                        int count = 0;
+                        while (running.get()) {
+                            Airport from = nodes.get(queryRand.nextInt(size));
+                            Airport to = nodes.get(queryRand.nextInt(size));
+                            CompactGraph<Airport> version = graph.snapshot();
+                            long start = System.nanoTime();
+                            List<Airport> path = Dijkstra.getPath(version, from, to);
+                            long end = System.nanoTime();
+                            checkPath(version, path);
+                            if (count < samples.length - 1) {
+                                samples[++count] = end - start;
+                            }
+                        }
+                        samples[0] = count;
+                    });
+                    threads.add(reader);
+                    reader.start();
+                }
+
+                // 3. The writer cancels a random flight and adds another at the target rate
+                long updates = 0;
+                long updateNanos = 0;
+                long begin = System.nanoTime();
+                long deadline = begin + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+                while (System.nanoTime() < deadline) {
+                    if (rate == 0) {
+                        LockSupport.parkNanos(deadline - System.nanoTime());
+                        continue;
+                    }
+                    Airport from = nodes.get(rand.nextInt(size));
+                    Airport to = nodes.get(rand.nextInt(size));
+                    long start = System.nanoTime();
+                    if (updates % 2 == 0) {
+                        graph.addEdge(from, to, 1 + rand.nextDouble() * 100);
+                    } else {
+                        CompactGraph<Airport> version = graph.snapshot();
+                        int id = version.idOf(from);
+                        if (id >= 0 && version.outDegree(id) > 0) {
+                            graph.removeEdge(from, version.vertex(version.target(version.edgeStart(id))));
+                        }
+                    }
+                    updateNanos += System.nanoTime() - start;
+                    updates++;
+                    long next = begin + updates * 1_000_000_000L / rate;
+                    LockSupport.parkNanos(next - System.nanoTime());
+                }
+                double seconds = (System.nanoTime() - begin) / 1e9;
+                running.set(false);
+                for (Thread reader : threads) {
+                    reader.join();
+                }
+
+                // 4. Latency percentiles over all readers
+                int total = 0;
+                for (long[] samples : latencies) {
+                    total += (int) samples[0];
+                }
+                long[] all = new long[total];
+                int k = 0;
+                for (long[] samples : latencies) {
+                    System.arraycopy(samples, 1, all, k, (int) samples[0]);
+                    k += (int) samples[0];
+                }
+                Arrays.sort(all);
+
+                // 5. Output CSV row
+                System.out.printf(Locale.US, "%d,%d,%d,%.0f,%d,%d,%.3f,%.3f,%.3f,%.3f,%.1f%n",
+                        size, readers, rate, updates / seconds, graph.version() - firstVersion, total,
+                        percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99),
+                        total == 0 ? 0 : all[total - 1] / 1e6, updates == 0 ? 0 : updateNanos / 1e3 / updates);
+            }
+        }
+    }
+
+    // Every consecutive pair of a path must be joined by an edge of the version it was found in.
+    private static void checkPath(CompactGraph<Airport> version, List<Airport> path) {
+        for (int i = 0; i + 1 < path.size(); i++) {
+            int u = version.idOf(path.get(i));
+            int v = version.idOf(path.get(i + 1));
+            boolean found = false;
+            for (int e = version.edgeStart(u); e < version.edgeEnd(u) && !found; e++) {
+                found = version.target(e) == v;
+            }
+            if (!found) {
+                throw new IllegalStateException("Path uses an edge missing from its version");
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e6;
+    }
+}
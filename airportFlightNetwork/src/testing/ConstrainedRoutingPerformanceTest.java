@@ -0,0 +1,105 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+
+public class ConstrainedRoutingPerformanceTest {
+    // Queries per graph and constraint.
+    private static final int QUERIES = 50;
+
+    // Constraints tried; "none" is the unconstrained baseline.
+    private static final String[] CONSTRAINTS = {
+            "none", "empty", "ban_1pct_airports", "ban_5pct_edges", "edge_filter", "max_cost_1.1", "max_legs_same",
+            "max_legs_minus_1"
+    };
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        System.out.println("input_size,constraint,avg_ms,avg_settled,reached,vs_none");
+
+        int[] inputSizes = {
+                10_000,
+                100_000,
+                1_000_000
+        };
+
+        for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
+            int EDGES_PER_NODE = 3;
+            Random rand = new Random(42);
+
+            // 1. Random graph, as in GraphPerformanceTest
+            List<Airport> nodes = new ArrayList<>(size);
+            CompactGraph<Airport> graph = RandomGraphs.build(size, EDGES_PER_NODE, rand, nodes).buildCompact();
+            int[][] queries = new int[QUERIES][];
+            for (int q = 0; q < QUERIES; q++) {
+                queries[q] = new int[]{rand.nextInt(size), rand.nextInt(size)};
+            }
+
+            // 2. Unconstrained cost and legs of every query, which also warms up the engine
+            DijkstraEngine engine = new DijkstraEngine(graph);
+            double[] cheapest = new double[QUERIES];
+            int[] legs = new int[QUERIES];
+            for (int q = 0; q < QUERIES; q++) {
+                engine.run(queries[q][0], queries[q][1]);
+                cheapest[q] = engine.distance(queries[q][1]);
+                legs[q] = engine.path(queries[q][1]).length - 1;
+            }
+
+            // 3. Every constraint, reusing one set of constraints and its bitsets
+            RouteConstraints constraints = new RouteConstraints(graph);
+            double noneMs = 0;
+            for (String name : CONSTRAINTS) {
+                constraints.clear();
+                if (name.equals("ban_1pct_airports")) {
+                    for (int i = 0; i < size / 100; i++) {
+                        constraints.banVertex(rand.nextInt(size));
+                    }
+                } else if (name.equals("ban_5pct_edges")) {
+                    for (int i = 0; i < graph.numEdges() / 20; i++) {
+                        constraints.banEdge(rand.nextInt(graph.numEdges()));
+                    }
+                } else if (name.equals("edge_filter")) {
+                    constraints.setEdgeFilter(e -> graph.weight(e) <= 90);
+                }
+                long settled = 0;
+                int reached = 0;
+                long start = System.nanoTime();
+                for (int q = 0; q < QUERIES; q++) {
+                    int source = queries[q][0];
+                    int target = queries[q][1];
+                    boolean found;
+                    if (name.equals("none")) {
+                        found = engine.run(source, target);
+                    } else {
+                        if (name.equals("max_cost_1.1")) {
+                            constraints.setMaxCost(cheapest[q] * 1.1);
+                        } else if (name.equals("max_legs_same")) {
+                            constraints.setMaxLegs(Math.max(0, legs[q]));
+                        } else if (name.equals("max_legs_minus_1")) {
+                            constraints.setMaxLegs(Math.max(0, legs[q] - 1));
+                        }
+                        found = engine.run(source, target, constraints);
+                    }
+                    if (found) {
+                        reached++;
+                        if (engine.distance(target) < cheapest[q]) {
+                            throw new IllegalStateException("Constrained route cheaper than the shortest path");
+                        }
+                    }
+                    settled += engine.settledCount();
+                }
+                double ms = (System.nanoTime() - start) / 1e6 / QUERIES;
+                if (name.equals("none")) {
+                    noneMs = ms;
+                }
+
+                // 4. Output CSV row
+                System.out.printf(Locale.US, "%d,%s,%.3f,%.0f,%d,%.2f%n",
+                        size, name, ms, (double) settled / QUERIES, reached, ms / noneMs);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+public class DeltaSteppingPerformanceTest {
+    // Bucket widths tried, as multiples of the default delta.
+    private static final double[] DELTA_FACTORS = {0.25, 1.0, 4.0};
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("input_size,delta,threads,dijkstra_ms,delta_stepping_ms,speedup_vs_dijkstra,"
+                + "speedup_vs_one_thread,rounds");
+
+        int[] inputSizes = {
+                100_000,
+                1_000_000,
+                4_000_000
+        };
+
+        for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
+            int EDGES_PER_NODE = 3;
+            Random rand = new Random(42);
+
+            // 1. Random graph, as in GraphPerformanceTest
+            List<Airport> nodes = new ArrayList<>(size);
+            CompactGraph<Airport> graph = RandomGraphs.build(size, EDGES_PER_NODE, rand, nodes).buildCompact();
+            int source = rand.nextInt(size);
+
+            // 2. Sequential baseline (second run, after warm-up)
+            DijkstraEngine dijkstra = new DijkstraEngine(graph);
+            dijkstra.run(source);
+            long start = System.nanoTime();
+            dijkstra.run(source);
+            long end = System.nanoTime();
+            double dijkstraMs = (end - start) / 1e6;
+
+            // 3. Delta-stepping for every bucket width and 1, 2, 4, ... threads up to the number of cores
+            for (double factor : DELTA_FACTORS) {
+                double delta = DeltaSteppingEngine.defaultDelta(graph) * factor;
+                double oneThreadMs = 0;
+                for (int threads = 1; threads <= cores; threads *= 2) {
+                    ForkJoinPool pool = new ForkJoinPool(threads);
+                    DeltaSteppingEngine engine = new DeltaSteppingEngine(graph, delta, pool);
+                    engine.run(source);
+                    start = System.nanoTime();
+                    engine.run(source);
+                    end = System.nanoTime();
+                    pool.shutdown();
+                    double deltaMs = (end - start) / 1e6;
+                    if (threads == 1) {
+                        oneThreadMs = deltaMs;
+                    }
+                    for (int v = 0; v < size; v++) {
+                        if (engine.distance(v) != dijkstra.distance(v)) {
+                            throw new IllegalStateException("Delta-stepping disagrees with Dijkstra at vertex " + v);
+                        }
+                    }
+
+                    // 4. Output CSV row
+                    System.out.printf(Locale.US, "%d,%.3f,%d,%.2f,%.2f,%.2f,%.2f,%d%n",
+                            size, delta, threads, dijkstraMs, deltaMs, dijkstraMs / deltaMs,
+                            oneThreadMs / deltaMs, engine.rounds());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+
+public class DynamicTreePerformanceTest {
+    // Random single-edge updates per kind.
+    private static final int UPDATES = 1_000;
+
+    // Every this many updates the tree is checked against, and timed against, a full recomputation.
+    private static final int RECOMPUTE_EVERY = 50;
+
+    private static final String[] KINDS = {"insert", "delete", "decrease", "increase"};
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        System.out.println("input_size,update,updates,repair_us,recompute_us,speedup,avg_repair_size,"
+                + "max_repair_size");
+
+        int[] inputSizes = {
+                10_000,
+                100_000
+        };
+
+        for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
+            int EDGES_PER_NODE = 3;
+            Random rand = new Random(42);
+
+            // 1. Random graph, as in GraphPerformanceTest
+            List<Airport> nodes = new ArrayList<>(size);
+            Graph<Airport> graph = RandomGraphs.build(size, EDGES_PER_NODE, rand, nodes).build();
+            Airport source = nodes.get(rand.nextInt(size));
+            DynamicShortestPathTree<Airport> tree = new DynamicShortestPathTree<>(graph, source);
+            DijkstraEngine engine = new DijkstraEngine(graph.freeze());
+
+            for (String kind : KINDS) {
+                long repairNanos = 0;
+                long recomputeNanos = 0;
+                int recomputes = 0;
+                long repaired = 0;
+                int maxRepaired = 0;
+                for (int u = 1; u <= UPDATES; u++) {
+                    // 2. One random update, repaired by the tree as the graph reports it
+                    Airport from = nodes.get(rand.nextInt(size));
+                    List<Edge<Airport>> edges = graph.getEdges(from);
+                    long start = System.nanoTime();
+                    switch (kind) {
+                        case "insert":
+                            graph.addEdge(from, nodes.get(rand.nextInt(size)), 1 + rand.nextDouble() * 100);
+                            break;
+                        case "delete":
+                            if (!edges.isEmpty()) {
+                                graph.removeEdge(edges.get(rand.nextInt(edges.size())));
+                            }
+                            break;
+                        default:
+                            if (!edges.isEmpty()) {
+                                Edge<Airport> edge = edges.get(rand.nextInt(edges.size()));
+                                double factor = kind.equals("decrease") ? 0.5 : 2.0;
+                                graph.setEdgeWeight(edge, edge.getWeight() * factor);
+                            }
+                            break;
+                    }
+                    repairNanos += System.nanoTime() - start;
+                    repaired += tree.lastRepairSize();
+                    maxRepaired = Math.max(maxRepaired, tree.lastRepairSize());
+
+                    // 3. Full recomputation on a sample of the updates, on a snapshot built outside the timing
+                    if (u % RECOMPUTE_EVERY == 0) {
+                        CompactGraph<Airport> compact = graph.freeze();
+                        engine.rebind(compact);
+                        start = System.nanoTime();
+                        engine.run(compact.idOf(source));
+                        recomputeNanos += System.nanoTime() - start;
+                        recomputes++;
+                        for (Airport airport : nodes) {
+                            if (tree.distance(airport) != engine.distance(compact.idOf(airport))) {
+                                throw new IllegalStateException("Repaired tree disagrees with Dijkstra at " + airport);
+                            }
+                        }
+                    }
+                }
+
+                // 4. Output CSV row
+                double repairUs = repairNanos / 1e3 / UPDATES;
+                double recomputeUs = recomputeNanos / 1e3 / recomputes;
+                System.out.printf(Locale.US, "%d,%s,%d,%.2f,%.2f,%.1f,%.1f,%d%n",
+                        size, kind, UPDATES, repairUs, recomputeUs, recomputeUs / repairUs,
+                        (double) repaired / UPDATES, maxRepaired);
+            }
+        }
+    }
+}
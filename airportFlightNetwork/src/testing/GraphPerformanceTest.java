@@ -3,10 +3,28 @@ package testing;
 import airportnetwork.*;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.IntToDoubleFunction;
 
 public class GraphPerformanceTest {
+    // Contraction hierarchy preprocessing is only benchmarked up to this size.
+    private static final int CH_MAX_SIZE = 10_000;
+
+    // Number of landmarks used for the ALT heuristic.
+    private static final int LANDMARKS = 16;
+
+    // Bounding box of the geometric graph (roughly Europe), in degrees.
+    private static final double MIN_LAT = 35.0, MAX_LAT = 60.0, MIN_LON = -10.0, MAX_LON = 30.0;
+
     public static void main(String[] args) {
-        System.out.println("input_size,node_insert_ms,edge_insert_ms,degree_lookup_us,astar_ms,dijkstra_ms");
+        // Optional first argument caps the largest input size, e.g. for quick runs.
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        System.out.println("input_size,node_insert_ms,edge_insert_ms,degree_lookup_us,astar_ms,dijkstra_ms,"
+                + "graph_mb,freeze_ms,compact_mb,compact_astar_ms,compact_dijkstra_ms,"
+                + "dijkstra_sssp_ms,dijkstra_bounded_ms,dijkstra_settled,astar_settled,"
+                + "bidijkstra_ms,bidijkstra_settled,ch_build_ms,ch_shortcuts,ch_core,ch_query_us,ch_settled,"
+                + "alt_preprocess_ms,alt_astar_ms,alt_settled,"
+                + "geo_dijkstra_ms,geo_dijkstra_settled,geo_astar_ms,geo_astar_settled,remove_vertex_us,"
+                + "builder_compact_ms,builder_graph_ms");
 
         int[] inputSizes = {
                 10_000,
@@ -22,7 +40,11 @@ public class GraphPerformanceTest {
         };
 
         for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
             int EDGES_PER_NODE = 3;
+            long memBefore = usedMemory();
             Graph<Airport> graph = new Graph<>();
             List<Airport> nodes = new ArrayList<>(size);
             Random rand = new Random(42);
@@ -37,19 +59,18 @@ public class GraphPerformanceTest {
             long end = System.nanoTime();
             double nodeInsertMs = (end - start) / 1e6;
 
-            // 2. Insert edges
+            // 2. Insert edges, recording them so that step 12 can bulk load the same ones
+            RandomGraphs.Edges edges = new RandomGraphs.Edges(size * EDGES_PER_NODE);
             start = System.nanoTime();
-            for (int i = 0; i < size; i++) {
-                for (int j = 0; j < EDGES_PER_NODE; j++) {
-                    int targetIdx = rand.nextInt(size);
-                    if (targetIdx != i) {
-                        graph.addEdge(nodes.get(i), nodes.get(targetIdx), 1 + rand.nextDouble() * 100);
-                    }
-                }
-            }
+            RandomGraphs.edges(size, EDGES_PER_NODE, rand, (source, target, weight) -> {
+                edges.accept(source, target, weight);
+                graph.addEdge(nodes.get(source), nodes.get(target), weight);
+            });
             end = System.nanoTime();
             double edgeInsertMs = (end - start) / 1e6;
 
+            double graphMb = (usedMemory() - memBefore) / 1e6;
+
             // 3. Degree lookup
             Airport probe = nodes.get(size / 10); // sample node
             start = System.nanoTime();
@@ -62,6 +83,7 @@ public class GraphPerformanceTest {
             Airport src = nodes.get(size / 1000);
             Airport dst = nodes.get(size - 1);
             Function<Airport, Double> heuristic = a -> 0.0;
+            graph.freeze(); // build the snapshot the queries route on outside the timed region
 
             start = System.nanoTime();
             List<Airport> aStarPath = AStar.findPath(graph, src, dst, heuristic);
@@ -74,10 +96,194 @@ public class GraphPerformanceTest {
             end = System.nanoTime();
             double dijkstraMs = (end - start) / 1e6;
 
-            // 6. Output CSV row
+            // 6. Compressed (CSR) snapshot
+            memBefore = usedMemory();
+            start = System.nanoTime();
+            CompactGraph<Airport> compact = CompactGraph.of(graph);
+            end = System.nanoTime();
+            double freezeMs = (end - start) / 1e6;
+            double compactMb = (usedMemory() - memBefore) / 1e6;
+
+            start = System.nanoTime();
+            AStar.findPath(compact, src, dst, heuristic);
+            end = System.nanoTime();
+            double compactAStarMs = (end - start) / 1e6;
+
+            start = System.nanoTime();
+            Dijkstra.getPath(compact, src, dst);
+            end = System.nanoTime();
+            double compactDijkstraMs = (end - start) / 1e6;
+
+            // 7. Full single-source run versus a bounded "no route under X" query
+            start = System.nanoTime();
+            Dijkstra.computeShortestPath(compact, src);
+            end = System.nanoTime();
+            double dijkstraSsspMs = (end - start) / 1e6;
+
+            start = System.nanoTime();
+            Dijkstra.findShortestDistance(compact, src, dst, 50.0);
+            end = System.nanoTime();
+            double dijkstraBoundedMs = (end - start) / 1e6;
+
+            // 8. Settled-node counts of the forward engines versus bidirectional Dijkstra
+            int srcId = compact.idOf(src);
+            int dstId = compact.idOf(dst);
+            DijkstraEngine dijkstraEngine = new DijkstraEngine(compact);
+            dijkstraEngine.run(srcId, dstId);
+            AStarEngine aStarEngine = new AStarEngine(compact);
+            aStarEngine.findPath(srcId, dstId, v -> 0.0);
+            int aStarSettled = aStarEngine.settledCount();
+
+            BidirectionalDijkstra bidirectional = new BidirectionalDijkstra(compact);
+            start = System.nanoTime();
+            bidirectional.run(srcId, dstId);
+            end = System.nanoTime();
+            double bidijkstraMs = (end - start) / 1e6;
+
+            // 9. Contraction hierarchy preprocessing and query (skipped on the largest graphs)
+            double chBuildMs = Double.NaN;
+            double chQueryUs = Double.NaN;
+            int chShortcuts = -1;
+            int chCore = -1;
+            int chSettled = -1;
+            if (size <= CH_MAX_SIZE) {
+                start = System.nanoTime();
+                ContractionHierarchy<Airport> hierarchy = ContractionHierarchy.build(compact);
+                end = System.nanoTime();
+                chBuildMs = (end - start) / 1e6;
+                chShortcuts = hierarchy.numShortcuts();
+                chCore = hierarchy.coreSize();
+
+                ContractionHierarchyQuery chQuery = new ContractionHierarchyQuery(hierarchy);
+                start = System.nanoTime();
+                chQuery.run(srcId, dstId);
+                end = System.nanoTime();
+                chQueryUs = (end - start) / 1e3;
+                chSettled = chQuery.settledCount();
+            }
+
+            // 10. A* with landmark (ALT) lower bounds
+            start = System.nanoTime();
+            Landmarks landmarks = Landmarks.select(compact, LANDMARKS);
+            end = System.nanoTime();
+            double altPreprocessMs = (end - start) / 1e6;
+
+            start = System.nanoTime();
+            aStarEngine.findPath(srcId, dstId, landmarks.toward(dstId));
+            end = System.nanoTime();
+            double altAStarMs = (end - start) / 1e6;
+
+            // 11. Vertex removal (the probe is no longer needed by later steps)
+            start = System.nanoTime();
+            graph.removeVertex(probe);
+            end = System.nanoTime();
+            double removeVertexUs = (end - start) / 1e3;
+
+            // 12. Bulk loading the edges of step 2 with GraphBuilder (parallel edges are merged)
+            int[] edgeSources = Arrays.copyOf(edges.sources, edges.count);
+            int[] edgeTargets = Arrays.copyOf(edges.targets, edges.count);
+            double[] edgeWeights = Arrays.copyOf(edges.weights, edges.count);
+
+            start = System.nanoTime();
+            new GraphBuilder<>(nodes).addEdges(edgeSources, edgeTargets, edgeWeights).buildCompact();
+            end = System.nanoTime();
+            double builderCompactMs = (end - start) / 1e6;
+
+            start = System.nanoTime();
+            new GraphBuilder<>(nodes).addEdges(edgeSources, edgeTargets, edgeWeights).build();
+            end = System.nanoTime();
+            double builderGraphMs = (end - start) / 1e6;
+
+            // 13. Geometric graph: Dijkstra versus A* with the great-circle heuristic
+            List<Airport> geoNodes = new ArrayList<>(size);
+            CompactGraph<Airport> geo = buildGeometricGraph(size, EDGES_PER_NODE, new Random(42), geoNodes).freeze();
+            int geoSrc = geo.idOf(geoNodes.get(size / 1000));
+            Airport geoGoal = geoNodes.get(size - 1);
+            int geoDst = geo.idOf(geoGoal);
+            IntToDoubleFunction greatCircle = AStar.greatCircle(geo, geoGoal);
+
+            DijkstraEngine geoDijkstra = new DijkstraEngine(geo);
+            start = System.nanoTime();
+            geoDijkstra.run(geoSrc, geoDst);
+            end = System.nanoTime();
+            double geoDijkstraMs = (end - start) / 1e6;
+
+            AStarEngine geoAStar = new AStarEngine(geo);
+            start = System.nanoTime();
+            geoAStar.findPath(geoSrc, geoDst, greatCircle);
+            end = System.nanoTime();
+            double geoAStarMs = (end - start) / 1e6;
+
+            // 14. Output CSV row
             System.out.printf(Locale.US,
-                    "%d,%.2f,%.2f,%.2f,%.2f,%.2f%n",
-                    size, nodeInsertMs, edgeInsertMs, degreeLookupUs, aStarMs, dijkstraMs);
+                    "%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%d,%d,%.2f,%d,%.2f,%d,%d,%.2f,%d,%.2f,%.2f,%d,%.2f,%d,%.2f,%d,%.2f,%.2f,%.2f%n",
+                    size, nodeInsertMs, edgeInsertMs, degreeLookupUs, aStarMs, dijkstraMs,
+                    graphMb, freezeMs, compactMb, compactAStarMs, compactDijkstraMs,
+                    dijkstraSsspMs, dijkstraBoundedMs, dijkstraEngine.settledCount(), aStarSettled,
+                    bidijkstraMs, bidirectional.settledCount(), chBuildMs, chShortcuts, chCore, chQueryUs, chSettled,
+                    altPreprocessMs, altAStarMs, aStarEngine.settledCount(),
+                    geoDijkstraMs, geoDijkstra.settledCount(), geoAStarMs, geoAStar.settledCount(), removeVertexUs,
+                    builderCompactMs, builderGraphMs);
+        }
+    }
+
+    /**
+     * Builds a graph of airports scattered uniformly over a bounding box, each with flights
+     * in both directions to random airports in its own or an adjacent grid cell. Edge
+     * weights are great-circle distances in kilometres with a detour of up to 20%, so the
+     * great-circle heuristic is admissible.
+     */
+    static Graph<Airport> buildGeometricGraph(int size, int edgesPerNode, Random rand, List<Airport> nodes) {
+        // About four airports per cell, so neighbours are always close by.
+        int gridSize = Math.max(1, (int) Math.sqrt(size / 4.0));
+        List<List<Airport>> cells = new ArrayList<>(gridSize * gridSize);
+        for (int c = 0; c < gridSize * gridSize; c++) {
+            cells.add(new ArrayList<>());
+        }
+        int[] cellOf = new int[size];
+        Graph<Airport> graph = new Graph<>();
+        for (int i = 0; i < size; i++) {
+            double lat = MIN_LAT + rand.nextDouble() * (MAX_LAT - MIN_LAT);
+            double lon = MIN_LON + rand.nextDouble() * (MAX_LON - MIN_LON);
+            Airport a = new Airport("GEO" + i, "Geo" + i, lat, lon);
+            int row = Math.min(gridSize - 1, (int) ((lat - MIN_LAT) / (MAX_LAT - MIN_LAT) * gridSize));
+            int col = Math.min(gridSize - 1, (int) ((lon - MIN_LON) / (MAX_LON - MIN_LON) * gridSize));
+            cellOf[i] = row * gridSize + col;
+            cells.get(cellOf[i]).add(a);
+            nodes.add(a);
+            graph.addNode(a);
+        }
+
+        for (int i = 0; i < size; i++) {
+            Airport from = nodes.get(i);
+            int row = cellOf[i] / gridSize;
+            int col = cellOf[i] % gridSize;
+            for (int j = 0; j < edgesPerNode; j++) {
+                int r = Math.max(0, Math.min(gridSize - 1, row + rand.nextInt(3) - 1));
+                int c = Math.max(0, Math.min(gridSize - 1, col + rand.nextInt(3) - 1));
+                List<Airport> cell = cells.get(r * gridSize + c);
+                if (cell.isEmpty()) {
+                    continue;
+                }
+                Airport to = cell.get(rand.nextInt(cell.size()));
+                if (to != from) {
+                    double km = from.distanceTo(to) * (1.0 + rand.nextDouble() * 0.2);
+                    graph.addEdge(from, to, km);
+                    graph.addEdge(to, from, km);
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Returns the heap currently in use after requesting a garbage collection.
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
         }
+        return runtime.totalMemory() - runtime.freeMemory();
     }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+
+public class HeapPerformanceTest {
+    // Each workload is timed this many times and the fastest run is reported.
+    private static final int REPEATS = 3;
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        System.out.println("input_size,minheap_ms,int_binary_ms,int_4ary_ms,int_8ary_ms");
+
+        int[] inputSizes = {
+                10_000,
+                40_000,
+                160_000,
+                640_000,
+                2_560_000
+        };
+
+        for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
+            // 1. A Dijkstra-like workload: insert every key, lower a random key three times per key, drain
+            Random rand = new Random(42);
+            double[] initial = new double[size];
+            for (int i = 0; i < size; i++) {
+                initial[i] = rand.nextDouble() * 1000;
+            }
+            int[] decreased = new int[3 * size];
+            for (int i = 0; i < decreased.length; i++) {
+                decreased[i] = rand.nextInt(size);
+            }
+
+            // 2. Generic heap with boxed keys and a HashMap index
+            double miniHeapMs = Double.POSITIVE_INFINITY;
+            for (int r = 0; r < REPEATS; r++) {
+                long start = System.nanoTime();
+                MiniHeap<Integer> heap = new MiniHeap<>();
+                for (int i = 0; i < size; i++) {
+                    heap.insert(i, initial[i]);
+                }
+                for (int i = 0; i < decreased.length; i++) {
+                    heap.decreaseKey(decreased[i], initial[decreased[i]] * 0.5 - i);
+                }
+                int extracted = 0;
+                while (!heap.isEmpty()) {
+                    heap.extractMin();
+                    extracted++;
+                }
+                long end = System.nanoTime();
+                miniHeapMs = Math.min(miniHeapMs, (end - start) / 1e6);
+                check(extracted, size);
+            }
+
+            // 3. Primitive heap with 2, 4 and 8 children per node
+            double binaryMs = timeIntHeap(size, 2, initial, decreased);
+            double fourAryMs = timeIntHeap(size, 4, initial, decreased);
+            double eightAryMs = timeIntHeap(size, 8, initial, decreased);
+
+            // 4. Output CSV row
+            System.out.printf(Locale.US, "%d,%.2f,%.2f,%.2f,%.2f%n",
+                    size, miniHeapMs, binaryMs, fourAryMs, eightAryMs);
+        }
+    }
+
+    /**
+     * Runs the workload on an {@link IntMiniHeap} of the given arity and returns the fastest time in ms.
+     * The heap is allocated once and reused through {@code clear()}, as the search engines do.
+     */
+    private static double timeIntHeap(int size, int arity, double[] initial, int[] decreased) {
+        IntMiniHeap heap = new IntMiniHeap(size, arity);
+        double best = Double.POSITIVE_INFINITY;
+        for (int r = 0; r < REPEATS; r++) {
+            long start = System.nanoTime();
+            heap.clear();
+            for (int i = 0; i < size; i++) {
+                heap.insert(i, initial[i]);
+            }
+            for (int i = 0; i < decreased.length; i++) {
+                heap.decreaseKey(decreased[i], initial[decreased[i]] * 0.5 - i);
+            }
+            int extracted = 0;
+            while (!heap.isEmpty()) {
+                heap.extractMin();
+                extracted++;
+            }
+            long end = System.nanoTime();
+            best = Math.min(best, (end - start) / 1e6);
+            check(extracted, size);
+        }
+        return best;
+    }
+
+    /**
+     * Verifies that every key was extracted exactly once.
+     */
+    private static void check(int extracted, int size) {
+        if (extracted != size) {
+            throw new IllegalStateException("Extracted " + extracted + " of " + size + " keys");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+
+public class HubPerformanceTest {
+    // Number of hub airports; every other airport has a flight to and from each hub.
+    private static final int HUBS = 20;
+
+    // Number of edge lookups timed per size; the linear scan is timed on the first 1% only.
+    private static final int LOOKUPS = 100_000;
+    private static final int SCAN_LOOKUPS = LOOKUPS / 100;
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        System.out.println("input_size,hub_degree,insert_edge_ms,get_edge_ns,scan_get_edge_ns,remove_edge_ms,remove_hub_us");
+
+        int[] inputSizes = {
+                1_000,
+                10_000,
+                100_000
+        };
+
+        for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
+            Random rand = new Random(42);
+            List<Airport> nodes = new ArrayList<>(size);
+            Graph<Airport> graph = new Graph<>();
+            for (int i = 0; i < size; i++) {
+                Airport a = new Airport("CODE" + i, "City" + i);
+                nodes.add(a);
+                graph.addNode(a);
+            }
+
+            // 1. Bulk-load hub routes through insertEdge, which rejects duplicates
+            long start = System.nanoTime();
+            for (int h = 0; h < HUBS; h++) {
+                Airport hub = nodes.get(h);
+                for (int i = HUBS; i < size; i++) {
+                    double weight = 1 + rand.nextDouble() * 100;
+                    graph.insertEdge(hub, nodes.get(i), weight);
+                    graph.insertEdge(nodes.get(i), hub, weight);
+                }
+            }
+            long end = System.nanoTime();
+            double insertEdgeMs = (end - start) / 1e6;
+
+            // 2. Edge lookups at hubs: indexed getEdge versus scanning the adjacency list
+            int[] hubIdx = new int[LOOKUPS];
+            int[] destIdx = new int[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                hubIdx[i] = rand.nextInt(HUBS);
+                destIdx[i] = HUBS + rand.nextInt(size - HUBS);
+            }
+            int found = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                if (graph.getEdge(nodes.get(hubIdx[i]), nodes.get(destIdx[i])) != null && i < SCAN_LOOKUPS) {
+                    found++;
+                }
+            }
+            end = System.nanoTime();
+            double getEdgeNs = (double) (end - start) / LOOKUPS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < SCAN_LOOKUPS; i++) {
+                Airport dest = nodes.get(destIdx[i]);
+                for (Edge<Airport> e : graph.getEdges(nodes.get(hubIdx[i]))) {
+                    if (e.getDestination().equals(dest)) {
+                        found--;
+                        break;
+                    }
+                }
+            }
+            end = System.nanoTime();
+            double scanGetEdgeNs = (double) (end - start) / SCAN_LOOKUPS;
+            if (found != 0) {
+                throw new IllegalStateException("Indexed and scanned lookups disagree");
+            }
+
+            // 3. Remove every route of the first hub one edge at a time, then remove the second hub
+            List<Edge<Airport>> routes = new ArrayList<>(graph.getEdges(nodes.get(0)));
+            start = System.nanoTime();
+            for (Edge<Airport> e : routes) {
+                graph.removeEdge(e);
+            }
+            end = System.nanoTime();
+            double removeEdgeMs = (end - start) / 1e6;
+
+            start = System.nanoTime();
+            graph.removeVertex(nodes.get(1));
+            end = System.nanoTime();
+            double removeHubUs = (end - start) / 1e3;
+
+            // 4. Output CSV row
+            System.out.printf(Locale.US, "%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f%n",
+                    size, size - HUBS, insertEdgeMs, getEdgeNs, scanGetEdgeNs, removeEdgeMs, removeHubUs);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+public class KShortestPathsPerformanceTest {
+    // Number of paths taken from each iterator.
+    private static final int[] K = {1, 3, 10, 50};
+
+    // Queries per graph.
+    private static final int QUERIES = 5;
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("input_size,k,threads,avg_ms,ms_per_path,avg_spur_searches,avg_kth_cost_ratio");
+
+        int[] inputSizes = {
+                10_000,
+                100_000,
+                1_000_000
+        };
+
+        for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
+            int EDGES_PER_NODE = 3;
+            Random rand = new Random(42);
+
+            // 1. Random graph, as in GraphPerformanceTest
+            List<Airport> nodes = new ArrayList<>(size);
+            CompactGraph<Airport> graph = RandomGraphs.build(size, EDGES_PER_NODE, rand, nodes).buildCompact();
+            int[][] queries = new int[QUERIES][];
+            for (int q = 0; q < QUERIES; q++) {
+                queries[q] = new int[]{rand.nextInt(size), rand.nextInt(size)};
+            }
+
+            // 2. The first k paths of every query, on 1, 2, 4, ... threads up to the number of cores
+            for (int threads = 1; threads <= cores; threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                for (int k : K) {
+                    long spurs = 0;
+                    double ratios = 0;
+                    int paths = 0;
+                    long start = System.nanoTime();
+                    for (int[] q : queries) {
+                        KShortestPaths iterator = new KShortestPaths(graph, q[0], q[1], pool);
+                        double first = 0;
+                        double previous = 0;
+                        for (int i = 0; i < k && iterator.hasNext(); i++) {
+                            iterator.next();
+                            if (iterator.cost() < previous) {
+                                throw new IllegalStateException("Paths out of order");
+                            }
+                            previous = iterator.cost();
+                            first = i == 0 ? previous : first;
+                            paths++;
+                        }
+                        spurs += iterator.spurSearches();
+                        ratios += first == 0 ? 1 : previous / first;
+                    }
+                    double ms = (System.nanoTime() - start) / 1e6 / QUERIES;
+
+                    // 3. Output CSV row
+                    System.out.printf(Locale.US, "%d,%d,%d,%.2f,%.3f,%.0f,%.3f%n",
+                            size, k, threads, ms, ms * QUERIES / Math.max(1, paths),
+                            (double) spurs / QUERIES, ratios / QUERIES);
+                }
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package testing;
+
+import airportnetwork.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class LoaderPerformanceTest {
+    // Number of routes generated per airport.
+    private static final int ROUTES_PER_AIRPORT = 10;
+
+    public static void main(String[] args) throws IOException {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        System.out.println("input_size,routes,file_mb,airports_ms,routes_ms,routes_mb_per_s,routes_per_s,skipped");
+
+        int[] inputSizes = {
+                1_000,
+                10_000,
+                100_000
+        };
+
+        Path dir = Files.createTempDirectory("flights");
+        try {
+            for (int size : inputSizes) {
+                if (size > maxSize) {
+                    break;
+                }
+                Random rand = new Random(42);
+                Path airportFile = dir.resolve("airports.dat");
+                Path routeFile = dir.resolve("routes.dat");
+
+                // 1. Write synthetic files in the OpenFlights layout
+                try (BufferedWriter out = Files.newBufferedWriter(airportFile, StandardCharsets.UTF_8)) {
+                    for (int i = 0; i < size; i++) {
+                        out.write(String.format(Locale.US,
+                                "%d,\"Airport %d, Terminal \"\"A\"\"\",\"City%d\",\"Country\",\"%s\",\"%s\",%.6f,%.6f,100,0,\"U\",\"UTC\",\"airport\",\"OurAirports\"%n",
+                                i, i, i, code(i, 4), code(i, 5),
+                                -60 + rand.nextDouble() * 130, -180 + rand.nextDouble() * 360));
+                    }
+                }
+                int routes = size * ROUTES_PER_AIRPORT;
+                try (BufferedWriter out = Files.newBufferedWriter(routeFile, StandardCharsets.UTF_8)) {
+                    for (int i = 0; i < routes; i++) {
+                        int u = i / ROUTES_PER_AIRPORT;
+                        int v = rand.nextInt(size);
+                        out.write("AA,24," + code(u, 4) + "," + u + "," + code(v, 4) + "," + v + ",,0,738\n");
+                    }
+                }
+                double fileMb = Files.size(routeFile) / (1024.0 * 1024.0);
+
+                // 2. Time loading airports, then routes, into an empty graph
+                Graph<Airport> graph = new Graph<>();
+                FlightDataLoader loader = new FlightDataLoader(graph);
+                long start = System.nanoTime();
+                int airports = loader.loadAirports(airportFile);
+                long end = System.nanoTime();
+                double airportsMs = (end - start) / 1e6;
+                if (airports != size) {
+                    throw new IllegalStateException("Loaded " + airports + " of " + size + " airports");
+                }
+
+                start = System.nanoTime();
+                int loaded = loader.loadRoutes(routeFile);
+                end = System.nanoTime();
+                double routesMs = (end - start) / 1e6;
+
+                // 3. Output CSV row
+                System.out.printf(Locale.US, "%d,%d,%.2f,%.2f,%.2f,%.2f,%.0f,%d%n",
+                        size, loaded, fileMb, airportsMs, routesMs,
+                        fileMb / (routesMs / 1e3), routes / (routesMs / 1e3), loader.skippedLines());
+            }
+        } finally {
+            Files.deleteIfExists(dir.resolve("airports.dat"));
+            Files.deleteIfExists(dir.resolve("routes.dat"));
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    // Encodes an index as a fixed-length code of upper-case letters.
+    private static String code(int i, int length) {
+        char[] c = new char[length];
+        for (int k = length - 1; k >= 0; k--) {
+            c[k] = (char) ('A' + i % 26);
+            i /= 26;
+        }
+        return new String(c);
+    }
+}
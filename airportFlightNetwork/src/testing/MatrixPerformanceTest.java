@@ -0,0 +1,83 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+public class MatrixPerformanceTest {
+    // Number of sources and of targets in every matrix.
+    private static final int SOURCES = 200;
+    private static final int TARGETS = 200;
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("input_size,sources,targets,threads,one_to_one_ms,matrix_ms,speedup,cells_per_s");
+
+        int[] inputSizes = {
+                10_000,
+                100_000,
+                1_000_000
+        };
+
+        for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
+            int EDGES_PER_NODE = 3;
+            Random rand = new Random(42);
+
+            // 1. Random graph, as in GraphPerformanceTest
+            List<Airport> nodes = new ArrayList<>(size);
+            CompactGraph<Airport> graph = RandomGraphs.build(size, EDGES_PER_NODE, rand, nodes).buildCompact();
+            int[] sources = new int[SOURCES];
+            int[] targets = new int[TARGETS];
+            for (int i = 0; i < SOURCES; i++) {
+                sources[i] = rand.nextInt(size);
+            }
+            for (int j = 0; j < TARGETS; j++) {
+                targets[j] = rand.nextInt(size);
+            }
+
+            // 2. Baseline: one point-to-point query per cell, on a few rows only
+            int baselineRows = Math.max(1, SOURCES / 100);
+            long start = System.nanoTime();
+            double check = 0;
+            for (int i = 0; i < baselineRows; i++) {
+                for (int j = 0; j < TARGETS; j++) {
+                    check += Dijkstra.findShortestDistance(graph, nodes.get(sources[i]), nodes.get(targets[j]));
+                }
+            }
+            long end = System.nanoTime();
+            double oneToOneMs = (end - start) / 1e6 * SOURCES / baselineRows;
+
+            // 3. The whole matrix with 1, 2, 4, ... worker threads up to the number of cores
+            double singleThreadMs = 0;
+            for (int threads = 1; threads <= cores; threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                start = System.nanoTime();
+                DistanceMatrix matrix = DistanceMatrix.compute(graph, sources, targets, pool);
+                end = System.nanoTime();
+                pool.shutdown();
+                double matrixMs = (end - start) / 1e6;
+                if (threads == 1) {
+                    singleThreadMs = matrixMs;
+                    double sum = 0;
+                    for (int i = 0; i < baselineRows; i++) {
+                        for (int j = 0; j < TARGETS; j++) {
+                            sum += matrix.distance(i, j);
+                        }
+                    }
+                    if (sum != check) {
+                        throw new IllegalStateException("Matrix disagrees with point-to-point queries");
+                    }
+                }
+
+                // 4. Output CSV row
+                System.out.printf(Locale.US, "%d,%d,%d,%d,%.2f,%.2f,%.2f,%.0f%n",
+                        size, SOURCES, TARGETS, threads, oneToOneMs, matrixMs, singleThreadMs / matrixMs,
+                        SOURCES * TARGETS / (matrixMs / 1e3));
+            }
+        }
+    }
+}
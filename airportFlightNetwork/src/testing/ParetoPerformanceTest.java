@@ -0,0 +1,85 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+
+public class ParetoPerformanceTest {
+    // Queries per graph and bound.
+    private static final int QUERIES = 20;
+
+    // Labels after which an unbounded query gives up, so the largest graph finishes.
+    private static final int MAX_LABELS = 2_000_000;
+
+    // Cost bounds tried, as multiples of the cheapest route; infinity means no bound.
+    private static final double[] COST_FACTORS = {Double.POSITIVE_INFINITY, 1.5, 1.2};
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        System.out.println("input_size,cost_factor,queries,avg_front,max_front,avg_labels,avg_ms,truncated,dijkstra_ms");
+
+        int[] inputSizes = {
+                1_000,
+                10_000,
+                100_000
+        };
+
+        for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
+            int EDGES_PER_NODE = 3;
+            Random rand = new Random(42);
+
+            // 1. Random graph, as in GraphPerformanceTest, where cheap flights tend to be slow
+            List<Airport> nodes = new ArrayList<>(size);
+            CompactGraph<Airport> graph = RandomGraphs.build(size, EDGES_PER_NODE, rand, nodes).buildCompact();
+            double[] duration = new double[graph.numEdges()];
+            for (int e = 0; e < duration.length; e++) {
+                duration[e] = 10 + (101 - graph.weight(e)) * (0.5 + rand.nextDouble());
+            }
+            int[][] queries = new int[QUERIES][];
+            for (int q = 0; q < QUERIES; q++) {
+                queries[q] = new int[]{rand.nextInt(size), rand.nextInt(size)};
+            }
+
+            // 2. Single-criterion baseline, which also gives the cheapest cost of every query
+            DijkstraEngine dijkstra = new DijkstraEngine(graph);
+            double[] cheapest = new double[QUERIES];
+            long start = System.nanoTime();
+            for (int q = 0; q < QUERIES; q++) {
+                dijkstra.run(queries[q][0], queries[q][1]);
+                cheapest[q] = dijkstra.distance(queries[q][1]);
+            }
+            double dijkstraMs = (System.nanoTime() - start) / 1e6 / QUERIES;
+
+            // 3. The Pareto front under every cost bound
+            ParetoEngine engine = new ParetoEngine(graph, duration);
+            engine.setMaxLabels(MAX_LABELS);
+            for (double factor : COST_FACTORS) {
+                long fronts = 0;
+                int maxFront = 0;
+                long labels = 0;
+                int truncated = 0;
+                start = System.nanoTime();
+                for (int q = 0; q < QUERIES; q++) {
+                    engine.setBounds(cheapest[q] * factor, Double.POSITIVE_INFINITY, Integer.MAX_VALUE);
+                    int front = engine.run(queries[q][0], queries[q][1]);
+                    fronts += front;
+                    maxFront = Math.max(maxFront, front);
+                    labels += engine.labelCount();
+                    truncated += engine.isTruncated() ? 1 : 0;
+                    // The cheapest route of a complete front is the shortest path.
+                    if (!engine.isTruncated() && front > 0 && engine.cost(0) != cheapest[q]) {
+                        throw new IllegalStateException("Cheapest Pareto route is not the shortest path");
+                    }
+                }
+                double ms = (System.nanoTime() - start) / 1e6 / QUERIES;
+
+                // 4. Output CSV row
+                System.out.printf(Locale.US, "%d,%s,%d,%.1f,%d,%.0f,%.2f,%d,%.2f%n",
+                        size, Double.isInfinite(factor) ? "none" : String.valueOf(factor), QUERIES,
+                        (double) fronts / QUERIES, maxFront, (double) labels / QUERIES, ms, truncated, dijkstraMs);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+
+public class QueuePerformanceTest {
+    // Each query is timed this many times and the fastest run is reported.
+    private static final int REPEATS = 3;
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        System.out.println("input_size,graph,queue,sssp_ms,p2p_ms,p2p_settled");
+
+        int[] inputSizes = {
+                10_000,
+                40_000,
+                160_000,
+                640_000,
+                2_560_000
+        };
+
+        for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
+            int EDGES_PER_NODE = 3;
+
+            // 1. Sparse random graph, as in GraphPerformanceTest
+            Random rand = new Random(42);
+            List<Airport> nodes = new ArrayList<>(size);
+            CompactGraph<Airport> random = RandomGraphs.build(size, EDGES_PER_NODE, rand, nodes).buildCompact();
+            compare(size, "random", random, nodes);
+
+            // 2. Geometric graph with great-circle edge weights
+            List<Airport> geoNodes = new ArrayList<>(size);
+            Graph<Airport> geo = GraphPerformanceTest.buildGeometricGraph(size, EDGES_PER_NODE, new Random(42), geoNodes);
+            compare(size, "geometric", geo.freeze(), geoNodes);
+        }
+    }
+
+    /**
+     * Times a full single-source run and a point-to-point query with every queue type
+     * and prints one CSV row per type.
+     */
+    private static void compare(int size, String name, CompactGraph<Airport> graph, List<Airport> nodes) {
+        int source = graph.idOf(nodes.get(size / 1000));
+        int target = graph.idOf(nodes.get(size - 1));
+        DijkstraEngine engine = new DijkstraEngine(graph);
+        for (QueueType type : QueueType.values()) {
+            engine.useQueue(type);
+            double ssspMs = Double.POSITIVE_INFINITY;
+            double p2pMs = Double.POSITIVE_INFINITY;
+            for (int r = 0; r < REPEATS; r++) {
+                long start = System.nanoTime();
+                engine.run(source);
+                long end = System.nanoTime();
+                ssspMs = Math.min(ssspMs, (end - start) / 1e6);
+
+                start = System.nanoTime();
+                engine.run(source, target);
+                end = System.nanoTime();
+                p2pMs = Math.min(p2pMs, (end - start) / 1e6);
+            }
+            System.out.printf(Locale.US, "%d,%s,%s,%.2f,%.2f,%d%n",
+                    size, name, type, ssspMs, p2pMs, engine.settledCount());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+
+/**
+ * The sparse random graph most benchmarks run on, first used by GraphPerformanceTest.
+ */
+final class RandomGraphs {
+
+    /**
+     * Receives the edges of a random graph as indices into its list of airports.
+     */
+    interface EdgeSink {
+        void accept(int source, int target, double weight);
+    }
+
+    /**
+     * Edges of a random graph recorded in parallel arrays, for benchmarks that load the
+     * same edges more than once.
+     */
+    static final class Edges implements EdgeSink {
+        final int[] sources;
+        final int[] targets;
+        final double[] weights;
+        int count;
+
+        Edges(int capacity) {
+            sources = new int[capacity];
+            targets = new int[capacity];
+            weights = new double[capacity];
+        }
+
+        @Override
+        public void accept(int source, int target, double weight) {
+            sources[count] = source;
+            targets[count] = target;
+            weights[count++] = weight;
+        }
+    }
+
+    private RandomGraphs() {
+    }
+
+    /**
+     * Adds {@code size} airports named CODE0, CODE1, ... to {@code nodes} and returns a
+     * builder holding {@code edgesPerNode} flights from each of them, drawn from
+     * {@code rand} as by {@link #edges}. Parallel flights are merged by the builder.
+     */
+    static GraphBuilder<Airport> build(int size, int edgesPerNode, Random rand, List<Airport> nodes) {
+        for (int i = 0; i < size; i++) {
+            nodes.add(new Airport("CODE" + i, "City" + i));
+        }
+        GraphBuilder<Airport> builder = new GraphBuilder<>(nodes).expectEdges(size * edgesPerNode);
+        edges(size, edgesPerNode, rand, builder::addEdge);
+        return builder;
+    }
+
+    /**
+     * Draws {@code edgesPerNode} flights from every airport to uniformly random airports,
+     * weighted between 1 and 101, and passes them to {@code sink}; self-loops are dropped.
+     */
+    static void edges(int size, int edgesPerNode, Random rand, EdgeSink sink) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < edgesPerNode; j++) {
+                int targetIdx = rand.nextInt(size);
+                if (targetIdx != i) {
+                    sink.accept(i, targetIdx, 1 + rand.nextDouble() * 100);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+
+public class RouteCachePerformanceTest {
+    // Requests per measurement.
+    private static final int REQUESTS = 5_000;
+
+    // Distinct (origin, destination) pairs requested, with Zipf-like popularity.
+    private static final int PAIRS = 1_000;
+
+    // Graph changes per 1000 requests; half add a flight, half cancel one.
+    private static final int[] MUTATIONS_PER_1K = {0, 1, 10};
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        System.out.println("input_size,mutations_per_1k,requests,uncached_ms,cached_ms,speedup,hit_rate,"
+                + "tree_hits,evictions,invalidations");
+
+        int[] inputSizes = {
+                10_000,
+                100_000
+        };
+
+        for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
+            for (int mutationRate : MUTATIONS_PER_1K) {
+                // 1. The same random graph and request stream for both runs
+                long uncachedNanos = run(size, mutationRate, null);
+                Graph<Airport> graph = randomGraph(size);
+                RouteCache cache = new RouteCache(graph);
+                long cachedNanos = run(size, mutationRate, cache, graph);
+
+                // 2. Output CSV row
+                long total = cache.hitCount() + cache.missCount();
+                System.out.printf(Locale.US, "%d,%d,%d,%.2f,%.2f,%.2f,%.3f,%d,%d,%d%n",
+                        size, mutationRate, REQUESTS, uncachedNanos / 1e6, cachedNanos / 1e6,
+                        (double) uncachedNanos / cachedNanos, (double) cache.hitCount() / total,
+                        cache.treeHitCount(), cache.evictionCount(), cache.invalidationCount());
+            }
+        }
+    }
+
+    private static long run(int size, int mutationRate, RouteCache cache) {
+        return run(size, mutationRate, cache, randomGraph(size));
+    }
+
+    // Serves the request stream, from the cache if there is one, and checks a sample of answers.
+    private static long run(int size, int mutationRate, RouteCache cache, Graph<Airport> graph) {
+        List<Airport> nodes = new ArrayList<>(graph.getAllNodes());
+        nodes.sort(Comparator.comparing(Airport::getCode));
+        Random rand = new Random(7);
+        Airport[][] pairs = new Airport[PAIRS][];
+        for (int i = 0; i < PAIRS; i++) {
+            // A few hub origins dominate, as in real booking traffic.
+            Airport from = nodes.get(rand.nextInt(4) == 0 ? rand.nextInt(20) : rand.nextInt(size));
+            pairs[i] = new Airport[]{from, nodes.get(rand.nextInt(size))};
+        }
+        graph.freeze();
+        long elapsed = 0;
+        for (int r = 0; r < REQUESTS; r++) {
+            if (mutationRate > 0 && r % (1000 / mutationRate) == 0) {
+                Airport from = nodes.get(rand.nextInt(size));
+                if (r % 2 == 0) {
+                    graph.addEdge(from, nodes.get(rand.nextInt(size)), 1 + rand.nextDouble() * 100);
+                } else if (!graph.getEdges(from).isEmpty()) {
+                    graph.removeEdge(graph.getEdges(from).get(0));
+                }
+            }
+            // Zipf-like pick: pair i is requested about 1 / (i + 1) as often as pair 0.
+            Airport[] pair = pairs[(int) Math.min(PAIRS - 1, Math.exp(rand.nextDouble() * Math.log(PAIRS)) - 1)];
+            long start = System.nanoTime();
+            // Without a cache, route on the snapshot, rebuilt like the cache's after a change.
+            double distance = cache == null
+                    ? Dijkstra.findShortestDistance(graph.freeze(), pair[0], pair[1])
+                    : cache.findShortestDistance(pair[0], pair[1]);
+            elapsed += System.nanoTime() - start;
+            if (cache != null && r % 100 == 0 && distance != Dijkstra.findShortestDistance(graph, pair[0], pair[1])) {
+                throw new IllegalStateException("Cached distance is stale for " + pair[0] + " -> " + pair[1]);
+            }
+        }
+        return elapsed;
+    }
+
+    // Random graph, as in GraphPerformanceTest.
+    private static Graph<Airport> randomGraph(int size) {
+        int EDGES_PER_NODE = 3;
+        return RandomGraphs.build(size, EDGES_PER_NODE, new Random(42), new ArrayList<>(size)).build();
+    }
+}
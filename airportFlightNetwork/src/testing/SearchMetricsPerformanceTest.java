@@ -0,0 +1,82 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+
+public class SearchMetricsPerformanceTest {
+    // Queries per graph and engine.
+    private static final int QUERIES = 200;
+
+    public static void main(String[] args) {
+        // Run once with -Dairportnetwork.metrics=true and once without to see the cost of metrics.
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        System.out.println("input_size,metrics,engine,avg_ms,avg_settled,avg_relaxed,avg_inserts,avg_decrease_keys,"
+                + "avg_extract_mins,max_heap,p50_us,p99_us,p999_us,settled_vs_dijkstra");
+
+        int[] inputSizes = {
+                10_000,
+                100_000,
+                1_000_000
+        };
+
+        for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
+            int EDGES_PER_NODE = 3;
+            Random rand = new Random(42);
+
+            // 1. Geometric graph, as in GraphPerformanceTest, where the great-circle heuristic is admissible
+            List<Airport> nodes = new ArrayList<>(size);
+            CompactGraph<Airport> graph = GraphPerformanceTest.buildGeometricGraph(size, EDGES_PER_NODE, rand, nodes)
+                    .freeze();
+            int[][] queries = new int[QUERIES][];
+            for (int q = 0; q < QUERIES; q++) {
+                queries[q] = new int[]{graph.idOf(nodes.get(rand.nextInt(size))), graph.idOf(nodes.get(rand.nextInt(size)))};
+            }
+            DijkstraEngine dijkstra = new DijkstraEngine(graph);
+            AStarEngine aStar = new AStarEngine(graph);
+
+            // 2. Warm up both engines, then start the metrics from zero
+            for (int[] q : queries) {
+                dijkstra.run(q[0], q[1]);
+                aStar.findPath(q[0], q[1], AStar.greatCircle(graph, graph.vertex(q[1])));
+            }
+            for (SearchMetrics m : SearchMetrics.all()) {
+                m.reset();
+            }
+
+            // 3. The same queries on each engine
+            long start = System.nanoTime();
+            for (int[] q : queries) {
+                dijkstra.run(q[0], q[1]);
+            }
+            double dijkstraMs = (System.nanoTime() - start) / 1e6 / QUERIES;
+
+            start = System.nanoTime();
+            for (int[] q : queries) {
+                aStar.findPath(q[0], q[1], AStar.greatCircle(graph, graph.vertex(q[1])));
+            }
+            double aStarMs = (System.nanoTime() - start) / 1e6 / QUERIES;
+
+            // 4. Output CSV rows
+            double dijkstraSettled = (double) SearchMetrics.DIJKSTRA.settled() / QUERIES;
+            print(size, SearchMetrics.DIJKSTRA, dijkstraMs, dijkstraSettled);
+            print(size, SearchMetrics.A_STAR, aStarMs, dijkstraSettled);
+        }
+        if (SearchMetrics.ENABLED) {
+            System.err.print(SearchMetrics.toPrometheus());
+            System.err.println(SearchMetrics.toJson());
+        }
+    }
+
+    private static void print(int size, SearchMetrics m, double ms, double dijkstraSettled) {
+        double settled = (double) m.settled() / QUERIES;
+        System.out.printf(Locale.US, "%d,%s,%s,%.3f,%.0f,%.0f,%.0f,%.0f,%.0f,%d,%.1f,%.1f,%.1f,%.2f%n",
+                size, SearchMetrics.ENABLED ? "on" : "off", m.engine(), ms, settled,
+                (double) m.relaxed() / QUERIES, (double) m.heapInserts() / QUERIES,
+                (double) m.decreaseKeys() / QUERIES, (double) m.extractMins() / QUERIES, m.maxHeapSize(),
+                m.latencyNanos(0.5) / 1e3, m.latencyNanos(0.99) / 1e3, m.latencyNanos(0.999) / 1e3,
+                dijkstraSettled > 0 ? settled / dijkstraSettled : Double.NaN);
+    }
+}
@@ -0,0 +1,108 @@
+package testing;
+
+import airportnetwork.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class SnapshotPerformanceTest {
+    // Number of flights generated per airport.
+    private static final int EDGES_PER_NODE = 8;
+
+    // Number of point-to-point queries timed on the heap and the mapped graph.
+    private static final int QUERIES = 10;
+
+    public static void main(String[] args) throws IOException {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        System.out.println("input_size,edges,file_mb,build_ms,write_ms,open_ms,first_query_ms,heap_query_ms,mapped_query_ms");
+
+        int[] inputSizes = {
+                100_000,
+                1_000_000,
+                3_000_000
+        };
+
+        Path file = Files.createTempFile("graph", ".snapshot");
+        try {
+            for (int size : inputSizes) {
+                if (size > maxSize) {
+                    break;
+                }
+                Random rand = new Random(42);
+
+                // 1. Build the graph the way a process would at startup without a snapshot
+                long start = System.nanoTime();
+                List<Airport> nodes = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    nodes.add(new Airport("CODE" + i, "City" + i,
+                            -60 + rand.nextDouble() * 130, -180 + rand.nextDouble() * 360));
+                }
+                GraphBuilder<Airport> builder = new GraphBuilder<>(nodes).expectEdges(size * EDGES_PER_NODE);
+                for (int i = 0; i < size; i++) {
+                    for (int j = 0; j < EDGES_PER_NODE; j++) {
+                        int to = rand.nextInt(size);
+                        builder.addEdge(i, to, nodes.get(i).distanceTo(nodes.get(to)) * (1.0 + rand.nextDouble()));
+                    }
+                }
+                CompactGraph<Airport> graph = builder.buildCompact();
+                long end = System.nanoTime();
+                double buildMs = (end - start) / 1e6;
+
+                // 2. Write the snapshot
+                start = System.nanoTime();
+                GraphSnapshot.write(graph, file);
+                end = System.nanoTime();
+                double writeMs = (end - start) / 1e6;
+                double fileMb = Files.size(file) / (1024.0 * 1024.0);
+
+                // 3. Cold start: open the snapshot and answer the first query
+                Airport[] from = new Airport[QUERIES];
+                Airport[] to = new Airport[QUERIES];
+                for (int i = 0; i < QUERIES; i++) {
+                    from[i] = nodes.get(rand.nextInt(size));
+                    to[i] = nodes.get(rand.nextInt(size));
+                }
+                start = System.nanoTime();
+                CompactGraph<Airport> mapped = GraphSnapshot.open(file);
+                end = System.nanoTime();
+                double openMs = (end - start) / 1e6;
+
+                start = System.nanoTime();
+                double first = Dijkstra.findShortestDistance(mapped, from[0], to[0]);
+                end = System.nanoTime();
+                double firstQueryMs = (end - start) / 1e6;
+
+                // 4. Point-to-point queries on the heap graph and the mapped graph must agree
+                double[] expected = new double[QUERIES];
+                start = System.nanoTime();
+                for (int i = 0; i < QUERIES; i++) {
+                    expected[i] = Dijkstra.findShortestDistance(graph, from[i], to[i]);
+                }
+                end = System.nanoTime();
+                double heapQueryMs = (end - start) / 1e6 / QUERIES;
+
+                start = System.nanoTime();
+                for (int i = 0; i < QUERIES; i++) {
+                    if (Dijkstra.findShortestDistance(mapped, from[i], to[i]) != expected[i]) {
+                        throw new IllegalStateException("Mapped graph disagrees on query " + i);
+                    }
+                }
+                end = System.nanoTime();
+                double mappedQueryMs = (end - start) / 1e6 / QUERIES;
+                if (first != expected[0]
+                        || AStar.findPath(mapped, from[0], to[0], AStar.greatCircle(to[0])).isEmpty()
+                        != Double.isInfinite(first)) {
+                    throw new IllegalStateException("First query on the mapped graph disagrees");
+                }
+
+                // 5. Output CSV row
+                System.out.printf(Locale.US, "%d,%d,%.2f,%.2f,%.2f,%.3f,%.2f,%.2f,%.2f%n",
+                        size, graph.numEdges(), fileMb, buildMs, writeMs, openMs, firstQueryMs,
+                        heapQueryMs, mappedQueryMs);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package testing;
+
+import airportnetwork.*;
+
+import java.util.*;
+
+public class TestBidirectional {
+    public static void main(String[] args) {
+        // 1. Define airports
+        Airport dub = new Airport("DUB", "Dublin");
+        Airport lon = new Airport("LON", "London");
+        Airport par = new Airport("PAR", "Paris");
+        Airport ber = new Airport("BER", "Berlin");
+
+        // 2. Create and populate the graph
+        Graph<Airport> graph = new Graph<>();
+        graph.addEdge(dub, lon, 100);  // DUB -> LON
+        graph.addEdge(lon, par, 200);  // LON -> PAR
+        graph.addEdge(par, ber, 300);  // PAR -> BER
+        graph.addEdge(dub, ber, 700);  // DUB -> BER (direct but longer)
+
+        // 3. Run bidirectional Dijkstra and bidirectional A* (zero estimate)
+        List<Airport> path = BidirectionalDijkstra.findPath(graph, dub, ber);
+        List<Airport> aStarPath = BidirectionalAStar.findPath(graph, dub, ber, (a, b) -> 0.0);
+
+        // 4. Compare with forward Dijkstra
+        System.out.println("Bidirectional Dijkstra: " + path);
+        System.out.println("Bidirectional A*:       " + aStarPath);
+        System.out.println("Forward Dijkstra:       " + Dijkstra.getPath(graph, dub, ber));
+        System.out.println("Unreachable (BER -> DUB): " + BidirectionalDijkstra.findPath(graph, ber, dub));
+    }
+}
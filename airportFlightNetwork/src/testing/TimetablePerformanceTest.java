@@ -0,0 +1,100 @@
+package testing;
+
+import airportnetwork.*;
+import java.util.*;
+
+public class TimetablePerformanceTest {
+    // Airports of the synthetic schedule; the first tenth are hubs that see half of the flights.
+    private static final int AIRPORTS = 3_000;
+
+    // Earliest-arrival queries per schedule, and profile queries.
+    private static final int QUERIES = 1_000;
+    private static final int PROFILES = 20;
+
+    // Minutes in the day the flights depart in.
+    private static final int DAY = 24 * 60;
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        System.out.println("flights,airports,build_ms,dijkstra_us,csa_us,speedup,profile_ms,reached");
+
+        int[] inputSizes = {
+                100_000,
+                300_000,
+                1_000_000
+        };
+
+        for (int size : inputSizes) {
+            if (size > maxSize) {
+                break;
+            }
+            Random rand = new Random(42);
+
+            // 1. One day of flights, with longer flights out of hubs, and 45 minutes to connect
+            List<Airport> airports = new ArrayList<>(AIRPORTS);
+            for (int i = 0; i < AIRPORTS; i++) {
+                airports.add(new Airport("CODE" + i, "City" + i));
+            }
+            List<Flight> flights = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int from = rand.nextBoolean() ? rand.nextInt(AIRPORTS / 10) : rand.nextInt(AIRPORTS);
+                int to = rand.nextBoolean() ? rand.nextInt(AIRPORTS / 10) : rand.nextInt(AIRPORTS);
+                if (from != to) {
+                    int departure = rand.nextInt(DAY);
+                    flights.add(new Flight(airports.get(from), airports.get(to), departure,
+                            departure + 30 + rand.nextInt(from < AIRPORTS / 10 ? 600 : 180)));
+                }
+            }
+            long start = System.nanoTime();
+            Timetable timetable = new Timetable(flights, 45, Collections.emptyMap());
+            long end = System.nanoTime();
+            double buildMs = (end - start) / 1e6;
+            TimetableEngine engine = new TimetableEngine(timetable);
+
+            // 2. Random queries departing in the morning, by both algorithms (after a warm-up round)
+            int[][] queries = new int[QUERIES][];
+            for (int q = 0; q < QUERIES; q++) {
+                queries[q] = new int[]{rand.nextInt(timetable.numAirports()), rand.nextInt(timetable.numAirports()),
+                        rand.nextInt(DAY / 2)};
+            }
+            long dijkstraNanos = 0;
+            long scanNanos = 0;
+            int reached = 0;
+            for (int round = 0; round < 2; round++) {
+                dijkstraNanos = 0;
+                scanNanos = 0;
+                reached = 0;
+                for (int[] q : queries) {
+                    start = System.nanoTime();
+                    int byDijkstra = engine.earliestArrival(q[0], q[1], q[2]);
+                    long middle = System.nanoTime();
+                    int byScan = engine.scan(q[0], q[1], q[2]);
+                    end = System.nanoTime();
+                    dijkstraNanos += middle - start;
+                    scanNanos += end - middle;
+                    if (byDijkstra != byScan) {
+                        throw new IllegalStateException("Dijkstra and connection scan disagree: " + byDijkstra
+                                + " != " + byScan);
+                    }
+                    if (byScan != TimetableEngine.UNREACHABLE) {
+                        reached++;
+                    }
+                }
+            }
+
+            // 3. Profiles over the whole day
+            start = System.nanoTime();
+            for (int p = 0; p < PROFILES; p++) {
+                engine.profile(queries[p][0], queries[p][1], 0);
+            }
+            end = System.nanoTime();
+
+            // 4. Output CSV row
+            double dijkstraUs = dijkstraNanos / 1e3 / QUERIES;
+            double scanUs = scanNanos / 1e3 / QUERIES;
+            System.out.printf(Locale.US, "%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.3f%n",
+                    timetable.numFlights(), timetable.numAirports(), buildMs, dijkstraUs, scanUs,
+                    dijkstraUs / scanUs, (end - start) / 1e6 / PROFILES, (double) reached / QUERIES);
+        }
+    }
+}